@@ -0,0 +1,32 @@
+-- 商品模板图片拆分到 product_template_images 表
+-- 适用于引入Flyway之前的已有数据库: 在启动新版本应用之前按编号顺序执行一次(新建数据库无需执行)
+--   mysql -u root -p stoqdb < db/upgrade/001-product-template-images.sql
+
+CREATE TABLE IF NOT EXISTS product_template_images (
+    template_id BIGINT NOT NULL,
+    position INT NOT NULL,
+    url VARCHAR(1000) NOT NULL,
+    PRIMARY KEY (template_id, position),
+    CONSTRAINT fk_product_template_images_template FOREIGN KEY (template_id) REFERENCES product_templates (id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- 将逗号分隔的 images 拆分为有序的图片行
+INSERT INTO product_template_images (template_id, position, url)
+WITH RECURSIVE split AS (
+    SELECT id AS template_id,
+           0 AS position,
+           SUBSTRING_INDEX(images, ',', 1) AS url,
+           IF(LOCATE(',', images) > 0, SUBSTRING(images, LOCATE(',', images) + 1), NULL) AS rest
+    FROM product_templates
+    WHERE images IS NOT NULL AND images <> ''
+    UNION ALL
+    SELECT template_id,
+           position + 1,
+           SUBSTRING_INDEX(rest, ',', 1),
+           IF(LOCATE(',', rest) > 0, SUBSTRING(rest, LOCATE(',', rest) + 1), NULL)
+    FROM split
+    WHERE rest IS NOT NULL
+)
+SELECT template_id, position, url FROM split;
+
+ALTER TABLE product_templates DROP COLUMN images;
@@ -0,0 +1,27 @@
+-- 商品模板增加 cluster_id,条形码/二维码在集群内唯一(扫码查询使用)
+-- 适用于引入Flyway之前的已有数据库: 在启动新版本应用之前按编号顺序执行一次(新建数据库无需执行)
+--   mysql -u root -p stoqdb < db/upgrade/002-product-template-scan-codes.sql
+
+ALTER TABLE product_templates ADD COLUMN cluster_id BIGINT NULL AFTER category_id;
+
+UPDATE product_templates t
+JOIN product_categories c ON c.id = t.category_id
+SET t.cluster_id = c.cluster_id;
+
+ALTER TABLE product_templates MODIFY cluster_id BIGINT NOT NULL;
+
+-- 空字符串视为未设置
+UPDATE product_templates SET bar_code = NULL WHERE TRIM(bar_code) = '';
+UPDATE product_templates SET qr_code = NULL WHERE TRIM(qr_code) = '';
+
+-- 添加唯一索引前先检查重复条码(有结果时需要先手动处理):
+--   SELECT cluster_id, bar_code, COUNT(*) FROM product_templates
+--   WHERE bar_code IS NOT NULL GROUP BY cluster_id, bar_code HAVING COUNT(*) > 1;
+--   SELECT cluster_id, qr_code, COUNT(*) FROM product_templates
+--   WHERE qr_code IS NOT NULL GROUP BY cluster_id, qr_code HAVING COUNT(*) > 1;
+ALTER TABLE product_templates
+    ADD UNIQUE INDEX uk_product_templates_cluster_bar_code (cluster_id, bar_code),
+    ADD UNIQUE INDEX uk_product_templates_cluster_qr_code (cluster_id, qr_code);
+
+-- 由复合唯一索引取代的单列索引(仅在之前由Hibernate自动创建过时存在)
+-- ALTER TABLE product_templates DROP INDEX idx_product_templates_bar_code, DROP INDEX idx_product_templates_qr_code;
@@ -0,0 +1,7 @@
+-- 商品模板名称和供应商全文索引(搜索使用)
+-- 适用于引入Flyway之前的已有数据库: 在启动新版本应用之前按编号顺序执行一次(新建数据库无需执行)
+-- 之前的版本在启动时会自动创建该索引,已存在时跳过本脚本:
+--   SHOW INDEX FROM product_templates WHERE Key_name = 'ft_product_templates_name_supplier';
+--   mysql -u root -p stoqdb < db/upgrade/003-product-template-fulltext.sql
+
+ALTER TABLE product_templates ADD FULLTEXT INDEX ft_product_templates_name_supplier (name, supplier) WITH PARSER ngram;
@@ -5,7 +5,7 @@ USE stoq-db-user;
 -- 设置时区
 SET time_zone = '+08:00';
 
--- 表会由Hibernate自动创建，这里只是示例
+-- 表由应用启动时的Flyway迁移创建(src/main/resources/db/migration)，这里只是示例
 -- 如果需要手动创建表或插入初始数据，可以在这里添加
 
 -- 示例：插入初始国家数据
@@ -0,0 +1,60 @@
+package com.stoq.benchmark;
+
+import com.stoq.StoqWebApiApplication;
+import org.h2.engine.Mode;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 基准测试使用的应用上下文: 默认使用内存H2数据库,关闭Web服务器与SQL日志
+ */
+public final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    public static ConfigurableApplicationContext start(String databaseName) {
+        // H2的MySQL模式在每次插入自增列后都会不加锁地把序列"追平"到插入的值,
+        // 并发插入时序列会被回拨,分配出重复的ID;基准只插入自动生成的ID,关闭该行为
+        Mode.getInstance("MySQL").updateSequenceOnManualIdentityInsertion = false;
+        // H2无法执行MySQL迁移脚本,由Hibernate建表
+        return run("jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;MODE=MySQL",
+                "org.h2.Driver", "sa", "", "org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.flyway.enabled=false");
+    }
+
+    /**
+     * 连接MySQL,表结构由Flyway迁移创建(与生产一致)。请使用专用的空数据库,结束时调用Flyway.clean()清空
+     */
+    public static ConfigurableApplicationContext startMySql(String url, String username, String password) {
+        return run(url, "com.mysql.cj.jdbc.Driver", username, password, "org.hibernate.dialect.MySQL8Dialect",
+                "--spring.jpa.hibernate.ddl-auto=validate",
+                "--spring.flyway.clean-disabled=false");
+    }
+
+    private static ConfigurableApplicationContext run(String url, String driverClassName, String username,
+                                                      String password, String dialect, String... schemaArgs) {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        List<String> args = new ArrayList<>(Arrays.asList(
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.driver-class-name=" + driverClassName,
+                "--spring.datasource.username=" + username,
+                "--spring.datasource.password=" + password,
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--spring.jpa.properties.hibernate.dialect=" + dialect,
+                "--logging.level.root=WARN",
+                "--logging.level.com.stoq=WARN"));
+        args.addAll(Arrays.asList(schemaArgs));
+        // 以命令行参数传入,优先级高于application.yml
+        return new SpringApplicationBuilder(StoqWebApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(new String[0]));
+    }
+}
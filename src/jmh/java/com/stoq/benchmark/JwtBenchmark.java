@@ -0,0 +1,117 @@
+package com.stoq.benchmark;
+
+import com.stoq.config.JwtAuthenticationFilter;
+import com.stoq.util.JwtUtil;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT生成/验证以及每个请求的认证开销
+ * legacy*基准复现旧实现: 每次调用重建密钥和解析器,且每个请求解析两次
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private static final String SECRET = "stoq-web-api-secret-key-2024-very-long-secret-key-for-jwt-token-generation-must-be-at-least-512-bits-long-for-hs512-algorithm";
+
+    private JwtUtil jwtUtil;
+    private JwtAuthenticationFilter filter;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86400000L);
+        jwtUtil.init();
+        filter = new JwtAuthenticationFilter(jwtUtil,
+                new DefaultListableBeanFactory().getBeanProvider(MeterRegistry.class),
+                10000);
+        token = jwtUtil.generateToken("bench@stoq.com");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken("bench@stoq.com");
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public Object parseClaims() {
+        return jwtUtil.parseClaims(token);
+    }
+
+    /**
+     * 旧实现: validateToken + getEmailFromToken, 各自重建密钥与解析器
+     */
+    @Benchmark
+    public String legacyValidateThenExtract() {
+        return legacyExtract(token);
+    }
+
+    /**
+     * 当前过滤器的完整单次请求认证开销(命中已验证token缓存)
+     */
+    @Benchmark
+    public Object filterRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/clusters/my");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        SecurityContextHolder.clearContext();
+        return principal;
+    }
+
+    /**
+     * 旧过滤器的完整单次请求认证开销(同样的请求构造,使用旧的双重解析)
+     */
+    @Benchmark
+    public Object legacyFilterRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/clusters/my");
+        request.addHeader("Authorization", "Bearer " + token);
+        String email = legacyExtract(request.getHeader("Authorization").substring(7));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(email, null, new ArrayList<>()));
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        SecurityContextHolder.clearContext();
+        return principal;
+    }
+
+    private String legacyExtract(String jwt) {
+        SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes());
+        Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(jwt);
+        SecretKey key2 = Keys.hmacShaKeyFor(SECRET.getBytes());
+        return Jwts.parserBuilder().setSigningKey(key2).build().parseClaimsJws(jwt).getBody().getSubject();
+    }
+}
@@ -0,0 +1,129 @@
+package com.stoq.benchmark;
+
+import com.stoq.dto.ClusterResponseDTO;
+import com.stoq.dto.CreateClusterDTO;
+import com.stoq.dto.CreateProductCategoryDTO;
+import com.stoq.dto.CreateProductTemplateDTO;
+import com.stoq.dto.CreateStoqDTO;
+import com.stoq.dto.ProductCategoryResponseDTO;
+import com.stoq.service.ClusterService;
+import com.stoq.service.ProductCategoryService;
+import com.stoq.service.ProductTemplateService;
+import com.stoq.service.StoqService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 列表查询在只读事务与读写事务下的对比
+ * 读写事务中服务方法的@Transactional(readOnly = true)会加入外层事务,实体被托管、保存快照并在提交时脏检查,
+ * 即改动前的行为。配合 -prof gc 查看每次调用的分配量(gc.alloc.rate.norm)。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadOnlyBenchmark {
+
+    private static final String EMAIL = "bench@stoq.com";
+
+    @Param({"true", "false"})
+    private boolean readOnly;
+
+    @Param({"50"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private ProductTemplateService productTemplateService;
+    private StoqService stoqService;
+    private TransactionTemplate transactionTemplate;
+    private Long clusterId;
+    private Long categoryId;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkApplication.start("read-only-benchmark");
+        productTemplateService = context.getBean(ProductTemplateService.class);
+        stoqService = context.getBean(StoqService.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        transactionTemplate.setReadOnly(readOnly);
+
+        CreateClusterDTO clusterDTO = new CreateClusterDTO();
+        clusterDTO.setName("Bench Cluster");
+        clusterDTO.setAddress("1 Bench Road");
+        clusterDTO.setCountryId(1L);
+        clusterDTO.setCity("Shanghai");
+        clusterDTO.setField("Retail");
+        clusterDTO.setEmployeeCount(10);
+        clusterDTO.setType("PERSONAL");
+        ClusterResponseDTO cluster = context.getBean(ClusterService.class).createCluster(clusterDTO, EMAIL);
+        clusterId = cluster.getId();
+
+        for (int i = 0; i < pageSize; i++) {
+            CreateStoqDTO stoqDTO = new CreateStoqDTO();
+            stoqDTO.setName("Stoq " + i);
+            stoqDTO.setAdministrator(EMAIL);
+            stoqDTO.setClusterId(clusterId);
+            stoqService.createStoq(stoqDTO, EMAIL);
+        }
+
+        CreateProductCategoryDTO categoryDTO = new CreateProductCategoryDTO();
+        categoryDTO.setName("Bench Category");
+        categoryDTO.setClusterId(clusterId);
+        ProductCategoryResponseDTO category = context.getBean(ProductCategoryService.class)
+                .createProductCategory(categoryDTO, EMAIL);
+        categoryId = category.getId();
+
+        for (int i = 0; i < pageSize; i++) {
+            CreateProductTemplateDTO templateDTO = new CreateProductTemplateDTO();
+            templateDTO.setName("Template " + i);
+            templateDTO.setDescription("Benchmark product template " + i);
+            templateDTO.setImages(Arrays.asList(
+                    "https://cdn.stoq.com/" + i + "/1.jpg",
+                    "https://cdn.stoq.com/" + i + "/2.jpg"));
+            templateDTO.setUnit("box");
+            templateDTO.setPrice(new BigDecimal("9.99"));
+            templateDTO.setCurrency("CNY");
+            templateDTO.setSupplier("Bench Supplier");
+            templateDTO.setSupplierCountry("CN");
+            templateDTO.setBarCode("690000" + i);
+            templateDTO.setCategoryId(categoryId);
+            productTemplateService.createProductTemplate(templateDTO, EMAIL);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object stoqsByCluster() {
+        return transactionTemplate.execute(status -> stoqService.getStoqsByCluster(clusterId, EMAIL, null, pageSize));
+    }
+
+    @Benchmark
+    public Object productTemplatesByCategory() {
+        return transactionTemplate.execute(status ->
+                productTemplateService.getProductTemplatesByCategory(categoryId, EMAIL, null, pageSize));
+    }
+}
@@ -0,0 +1,158 @@
+package com.stoq.benchmark;
+
+import com.stoq.dto.ClusterResponseDTO;
+import com.stoq.dto.CreateClusterDTO;
+import com.stoq.dto.CreateProductCategoryDTO;
+import com.stoq.entity.User;
+import com.stoq.repository.UserRepository;
+import com.stoq.service.ClusterService;
+import com.stoq.service.ProductCategoryService;
+import com.stoq.service.ProductTemplateSearchService;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 商品模板搜索延迟分布(SampleTime模式输出p99)
+ * 默认使用H2(LIKE查询);全文索引需要MySQL 8,通过环境变量STOQ_BENCHMARK_MYSQL_URL/USERNAME/PASSWORD
+ * 指定一个专用的空数据库(环境变量会被JMH的fork进程继承)
+ * clusterCount>1时模板分布在多个集群中,搜索只针对其中一个集群
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    private static final String EMAIL = "bench@stoq.com";
+
+    private static final String[] BRANDS = {"Apple", "Samsung", "Huawei", "Xiaomi", "Lenovo", "Sony", "Philips", "Haier",
+            "Midea", "Gree", "苹果", "华为", "小米", "联想", "海尔", "美的"};
+    private static final String[] PRODUCTS = {"Phone", "Tablet", "Charger", "Cable", "Speaker", "Monitor", "Keyboard",
+            "Mouse", "Router", "Camera", "手机", "平板", "充电器", "数据线", "音箱", "显示器", "键盘", "鼠标"};
+    private static final String[] SUPPLIERS = {"Shenzhen Electronics", "Guangzhou Trading", "Shanghai Import",
+            "深圳电子科技", "义乌小商品", "杭州供应链"};
+
+    @Param({"500000"})
+    private int templateCount;
+
+    @Param({"1", "10"})
+    private int clusterCount;
+
+    @Param({"Apple Pho", "充电", "6900001234", "Shenzhen"})
+    private String query;
+
+    private ConfigurableApplicationContext context;
+    private ProductTemplateSearchService searchService;
+    private Long clusterId;
+    private boolean mySql;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String mysqlUrl = System.getenv("STOQ_BENCHMARK_MYSQL_URL");
+        mySql = mysqlUrl != null;
+        context = mySql
+                ? BenchmarkApplication.startMySql(mysqlUrl,
+                        envOrDefault("STOQ_BENCHMARK_MYSQL_USERNAME", "root"),
+                        envOrDefault("STOQ_BENCHMARK_MYSQL_PASSWORD", ""))
+                : BenchmarkApplication.start("search-benchmark");
+        searchService = context.getBean(ProductTemplateSearchService.class);
+
+        User user = new User();
+        user.setEmail(EMAIL);
+        user.setName("Bench");
+        user.setSurName("Mark");
+        user.setAge(30);
+        user.setPhone("10000000000");
+        user.setCountry("CN");
+        user.setCity("Shanghai");
+        user.setPassword("not-used");
+        context.getBean(UserRepository.class).save(user);
+
+        // 模板平均分布在多个集群中,只搜索第一个集群,检验各检索分支是否按集群过滤
+        List<Long> clusterIds = new ArrayList<>();
+        List<List<Long>> categoryIds = new ArrayList<>();
+        for (int c = 0; c < clusterCount; c++) {
+            CreateClusterDTO clusterDTO = new CreateClusterDTO();
+            clusterDTO.setName("Bench Cluster " + c);
+            clusterDTO.setAddress("1 Bench Road");
+            clusterDTO.setCountryId(1L);
+            clusterDTO.setCity("Shanghai");
+            clusterDTO.setField("Retail");
+            clusterDTO.setEmployeeCount(10);
+            clusterDTO.setType("PERSONAL");
+            ClusterResponseDTO cluster = context.getBean(ClusterService.class).createCluster(clusterDTO, EMAIL);
+            clusterIds.add(cluster.getId());
+
+            List<Long> clusterCategoryIds = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                CreateProductCategoryDTO categoryDTO = new CreateProductCategoryDTO();
+                categoryDTO.setName("Bench Category " + i);
+                categoryDTO.setClusterId(cluster.getId());
+                clusterCategoryIds.add(context.getBean(ProductCategoryService.class)
+                        .createProductCategory(categoryDTO, EMAIL).getId());
+            }
+            categoryIds.add(clusterCategoryIds);
+        }
+        clusterId = clusterIds.get(0);
+
+        // 直接批量写入模板,避免逐条经过服务层
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < templateCount; i++) {
+            batch.add(new Object[]{
+                    categoryIds.get(i % clusterCount).get((i / clusterCount) % 20), clusterIds.get(i % clusterCount),
+                    BRANDS[i % BRANDS.length] + " " + PRODUCTS[(i / BRANDS.length) % PRODUCTS.length] + " " + i,
+                    "box", new BigDecimal("9.99"), "CNY",
+                    SUPPLIERS[i % SUPPLIERS.length], "CN",
+                    String.format("69%011d", i), EMAIL, now, now});
+            if (batch.size() == 5000 || i == templateCount - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO product_templates (category_id, cluster_id, name, unit, price, currency, "
+                        + "supplier, supplier_country, bar_code, creator_email, created_at, updated_at) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private static String envOrDefault(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null ? defaultValue : value;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (mySql) {
+            context.getBean(Flyway.class).clean();
+        }
+        context.close();
+    }
+
+    @Benchmark
+    public Object search() {
+        return searchService.search(clusterId, query, EMAIL, null, 20);
+    }
+}
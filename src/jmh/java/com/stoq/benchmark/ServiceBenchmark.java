@@ -0,0 +1,160 @@
+package com.stoq.benchmark;
+
+import com.stoq.dto.ClusterResponseDTO;
+import com.stoq.dto.CreateClusterDTO;
+import com.stoq.dto.CreateProductCategoryDTO;
+import com.stoq.dto.CreateProductTemplateDTO;
+import com.stoq.dto.CreateStoqDTO;
+import com.stoq.dto.LoginDTO;
+import com.stoq.dto.ProductCategoryResponseDTO;
+import com.stoq.entity.User;
+import com.stoq.repository.UserRepository;
+import com.stoq.service.ClusterService;
+import com.stoq.service.ProductCategoryService;
+import com.stoq.service.ProductTemplateService;
+import com.stoq.service.StoqService;
+import com.stoq.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于H2的端到端服务调用(权限检查 + 查询 + DTO转换)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+    private static final String EMAIL = "bench@stoq.com";
+    private static final String PASSWORD = "Password123!";
+
+    @Param({"50"})
+    private int pageSize;
+
+    @Param({"500"})
+    private int templateCount;
+
+    private ConfigurableApplicationContext context;
+    private ProductTemplateService productTemplateService;
+    private StoqService stoqService;
+    private UserService userService;
+    private Long categoryId;
+    private Long templateId;
+    private LoginDTO loginDTO;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkApplication.start("service-benchmark");
+        productTemplateService = context.getBean(ProductTemplateService.class);
+        stoqService = context.getBean(StoqService.class);
+        userService = context.getBean(UserService.class);
+
+        User user = new User();
+        user.setEmail(EMAIL);
+        user.setName("Bench");
+        user.setSurName("Mark");
+        user.setAge(30);
+        user.setPhone("10000000000");
+        user.setCountry("CN");
+        user.setCity("Shanghai");
+        user.setPassword(context.getBean(PasswordEncoder.class).encode(PASSWORD));
+        context.getBean(UserRepository.class).save(user);
+
+        CreateClusterDTO clusterDTO = new CreateClusterDTO();
+        clusterDTO.setName("Bench Cluster");
+        clusterDTO.setAddress("1 Bench Road");
+        clusterDTO.setCountryId(1L);
+        clusterDTO.setCity("Shanghai");
+        clusterDTO.setField("Retail");
+        clusterDTO.setEmployeeCount(10);
+        clusterDTO.setType("PERSONAL");
+        ClusterResponseDTO cluster = context.getBean(ClusterService.class).createCluster(clusterDTO, EMAIL);
+
+        for (int i = 0; i < 20; i++) {
+            CreateStoqDTO stoqDTO = new CreateStoqDTO();
+            stoqDTO.setName("Stoq " + i);
+            stoqDTO.setAdministrator(EMAIL);
+            stoqDTO.setClusterId(cluster.getId());
+            stoqService.createStoq(stoqDTO, EMAIL);
+        }
+
+        CreateProductCategoryDTO categoryDTO = new CreateProductCategoryDTO();
+        categoryDTO.setName("Bench Category");
+        categoryDTO.setClusterId(cluster.getId());
+        ProductCategoryResponseDTO category = context.getBean(ProductCategoryService.class)
+                .createProductCategory(categoryDTO, EMAIL);
+        categoryId = category.getId();
+
+        for (int i = 0; i < templateCount; i++) {
+            CreateProductTemplateDTO templateDTO = new CreateProductTemplateDTO();
+            templateDTO.setName("Template " + i);
+            templateDTO.setDescription("Benchmark product template " + i);
+            templateDTO.setImages(Arrays.asList(
+                    "https://cdn.stoq.com/" + i + "/1.jpg",
+                    "https://cdn.stoq.com/" + i + "/2.jpg",
+                    "https://cdn.stoq.com/" + i + "/3.jpg"));
+            templateDTO.setUnit("box");
+            templateDTO.setPrice(new BigDecimal("9.99"));
+            templateDTO.setCurrency("CNY");
+            templateDTO.setSupplier("Bench Supplier");
+            templateDTO.setSupplierCountry("CN");
+            templateDTO.setBarCode("690000" + i);
+            templateDTO.setCategoryId(categoryId);
+            templateId = productTemplateService.createProductTemplate(templateDTO, EMAIL).getId();
+        }
+
+        loginDTO = new LoginDTO();
+        loginDTO.setEmail(EMAIL);
+        loginDTO.setPassword(PASSWORD);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object productTemplatesByCategory() {
+        return productTemplateService.getProductTemplatesByCategory(categoryId, EMAIL, null, pageSize);
+    }
+
+    @Benchmark
+    public Object myProductTemplates() {
+        return productTemplateService.getMyProductTemplates(EMAIL, null, pageSize);
+    }
+
+    @Benchmark
+    public Object productTemplateById() {
+        return productTemplateService.getProductTemplateById(templateId, EMAIL);
+    }
+
+    @Benchmark
+    public Object myStoqs() {
+        return stoqService.getMyStoqs(EMAIL, null, pageSize);
+    }
+
+    @Benchmark
+    public Object login() {
+        return userService.login(loginDTO);
+    }
+}
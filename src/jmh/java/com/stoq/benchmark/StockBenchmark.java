@@ -0,0 +1,165 @@
+package com.stoq.benchmark;
+
+import com.stoq.dto.ClusterResponseDTO;
+import com.stoq.dto.CreateClusterDTO;
+import com.stoq.dto.CreateProductCategoryDTO;
+import com.stoq.dto.CreateProductTemplateDTO;
+import com.stoq.dto.CreateStoqDTO;
+import com.stoq.dto.StockAdjustmentDTO;
+import com.stoq.dto.StockAdjustmentRequestDTO;
+import com.stoq.dto.StockReservationItemDTO;
+import com.stoq.dto.StockReservationRequestDTO;
+import com.stoq.service.ClusterService;
+import com.stoq.service.ProductCategoryService;
+import com.stoq.service.ProductTemplateService;
+import com.stoq.service.StockLevelService;
+import com.stoq.service.StockReservationService;
+import com.stoq.service.StoqService;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 并发扫码调整库存的吞吐量(每秒库存变动数)
+ * skuCount=1 时所有线程争用同一行,对比 skuCount 较大时的结果可看出热点商品的排队开销。
+ * reserveAndRelease 测量预留路径(分段锁 + 条件UPDATE),吞吐应随商品数增长;
+ * 默认使用H2;行锁行为以InnoDB为准,可通过环境变量STOQ_BENCHMARK_MYSQL_URL/USERNAME/PASSWORD指定专用的空数据库
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(1)
+public class StockBenchmark {
+
+    private static final String EMAIL = "bench@stoq.com";
+    private static final long INITIAL_QUANTITY = 1_000_000L;
+
+    @Param({"1", "64"})
+    private int skuCount;
+
+    private ConfigurableApplicationContext context;
+    private StockLevelService stockLevelService;
+    private StockReservationService stockReservationService;
+    private Long stoqId;
+    private final List<Long> templateIds = new ArrayList<>();
+    private boolean mySql;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String mysqlUrl = System.getenv("STOQ_BENCHMARK_MYSQL_URL");
+        mySql = mysqlUrl != null;
+        context = mySql
+                ? BenchmarkApplication.startMySql(mysqlUrl,
+                        envOrDefault("STOQ_BENCHMARK_MYSQL_USERNAME", "root"),
+                        envOrDefault("STOQ_BENCHMARK_MYSQL_PASSWORD", ""))
+                : BenchmarkApplication.start("stock-benchmark");
+        stockLevelService = context.getBean(StockLevelService.class);
+        stockReservationService = context.getBean(StockReservationService.class);
+
+        CreateClusterDTO clusterDTO = new CreateClusterDTO();
+        clusterDTO.setName("Bench Cluster");
+        clusterDTO.setAddress("1 Bench Road");
+        clusterDTO.setCountryId(1L);
+        clusterDTO.setCity("Shanghai");
+        clusterDTO.setField("Retail");
+        clusterDTO.setEmployeeCount(10);
+        clusterDTO.setType("PERSONAL");
+        ClusterResponseDTO cluster = context.getBean(ClusterService.class).createCluster(clusterDTO, EMAIL);
+
+        CreateStoqDTO stoqDTO = new CreateStoqDTO();
+        stoqDTO.setName("Bench Stoq");
+        stoqDTO.setAdministrator(EMAIL);
+        stoqDTO.setClusterId(cluster.getId());
+        stoqId = context.getBean(StoqService.class).createStoq(stoqDTO, EMAIL).getId();
+
+        CreateProductCategoryDTO categoryDTO = new CreateProductCategoryDTO();
+        categoryDTO.setName("Bench Category");
+        categoryDTO.setClusterId(cluster.getId());
+        Long categoryId = context.getBean(ProductCategoryService.class).createProductCategory(categoryDTO, EMAIL).getId();
+
+        ProductTemplateService productTemplateService = context.getBean(ProductTemplateService.class);
+        for (int i = 0; i < skuCount; i++) {
+            CreateProductTemplateDTO templateDTO = new CreateProductTemplateDTO();
+            templateDTO.setName("Template " + i);
+            templateDTO.setUnit("box");
+            templateDTO.setPrice(new BigDecimal("9.99"));
+            templateDTO.setCurrency("CNY");
+            templateDTO.setSupplier("Bench Supplier");
+            templateDTO.setSupplierCountry("CN");
+            templateDTO.setBarCode("690000" + i);
+            templateDTO.setCategoryId(categoryId);
+            Long templateId = productTemplateService.createProductTemplate(templateDTO, EMAIL).getId();
+            templateIds.add(templateId);
+            // 预先入库,测量期间出库不会因库存不足失败
+            stockLevelService.adjustStock(stoqId, adjustment(templateId, INITIAL_QUANTITY), EMAIL);
+        }
+    }
+
+    private static StockAdjustmentRequestDTO adjustment(Long templateId, long delta) {
+        StockAdjustmentDTO dto = new StockAdjustmentDTO();
+        dto.setProductTemplateId(templateId);
+        dto.setDelta(delta);
+        StockAdjustmentRequestDTO request = new StockAdjustmentRequestDTO();
+        request.setAdjustments(Collections.singletonList(dto));
+        return request;
+    }
+
+    private static String envOrDefault(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null ? defaultValue : value;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (mySql) {
+            context.getBean(Flyway.class).clean();
+        }
+        context.close();
+    }
+
+    /**
+     * 一次扫码: 随机商品入库或出库一件
+     */
+    @Benchmark
+    public Object scan() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Long templateId = templateIds.get(random.nextInt(templateIds.size()));
+        long delta = random.nextBoolean() ? 1 : -1;
+        return stockLevelService.adjustStock(stoqId, adjustment(templateId, delta), EMAIL);
+    }
+
+    /**
+     * 预留一件随机商品后立即释放
+     */
+    @Benchmark
+    public Object reserveAndRelease() {
+        Long templateId = templateIds.get(ThreadLocalRandom.current().nextInt(templateIds.size()));
+        StockReservationRequestDTO request = new StockReservationRequestDTO();
+        request.setItems(Collections.singletonList(new StockReservationItemDTO(templateId, 1L)));
+        Long reservationId = stockReservationService.reserve(stoqId, request, EMAIL).getId();
+        return stockReservationService.release(stoqId, reservationId, EMAIL);
+    }
+}
@@ -1,8 +1,15 @@
 package com.stoq.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.stoq.util.JwtUtil;
-import lombok.RequiredArgsConstructor;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
@@ -13,15 +20,35 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final JwtUtil jwtUtil;
     
+    // 已验证token缓存: key为token的SHA-256摘要,条目在token的exp时刻过期
+    private final Cache<String, VerifiedToken> verifiedTokens;
+    
+    public JwtAuthenticationFilter(JwtUtil jwtUtil,
+                                   ObjectProvider<MeterRegistry> meterRegistry,
+                                   @Value("${stoq.jwt.verified-cache.maximum-size:10000}") long maximumSize) {
+        this.jwtUtil = jwtUtil;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+        meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, verifiedTokens, "jwtVerification"));
+    }
+    
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
@@ -33,20 +60,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String token = authHeader.substring(7);
             
             try {
-                // 验证token
-                if (jwtUtil.validateToken(token)) {
-                    // 从token中获取用户邮箱
-                    String email = jwtUtil.getEmailFromToken(token);
+                // 验证token并获取用户邮箱(命中缓存时无需重新验签)
+                String email = resolveEmail(token);
+                
+                if (email != null) {
+                    // 创建认证对象
+                    UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(email, null, new ArrayList<>());
                     
-                    if (email != null) {
-                        // 创建认证对象
-                        UsernamePasswordAuthenticationToken authentication = 
-                            new UsernamePasswordAuthenticationToken(email, null, new ArrayList<>());
-                        
-                        // 设置到SecurityContext
-                        SecurityContextHolder.getContext().setAuthentication(authentication);
-                        log.debug("User authenticated: {}", email);
-                    }
+                    // 设置到SecurityContext
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                    log.debug("User authenticated: {}", email);
                 }
             } catch (Exception e) {
                 log.error("JWT authentication failed: {}", e.getMessage());
@@ -55,4 +79,65 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         filterChain.doFilter(request, response);
     }
+    
+    /**
+     * 解析token中的邮箱,无效token抛出异常
+     */
+    private String resolveEmail(String token) {
+        String digest = digest(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null && cached.expiresAtMillis > System.currentTimeMillis()) {
+            return cached.email;
+        }
+        
+        Claims claims = jwtUtil.parseClaims(token);
+        Date expiration = claims.getExpiration();
+        if (expiration != null && claims.getSubject() != null) {
+            verifiedTokens.put(digest, new VerifiedToken(claims.getSubject(), expiration.getTime()));
+        }
+        return claims.getSubject();
+    }
+    
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    /**
+     * 已验证的token信息
+     */
+    private static final class VerifiedToken {
+        private final String email;
+        private final long expiresAtMillis;
+        
+        private VerifiedToken(String email, long expiresAtMillis) {
+            this.email = email;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+    
+    /**
+     * 缓存条目在token的exp时刻过期
+     */
+    private static final class TokenExpiry implements Expiry<String, VerifiedToken> {
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            long remainingMillis = value.expiresAtMillis - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+        }
+        
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+        
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
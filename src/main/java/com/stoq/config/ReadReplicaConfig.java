@@ -0,0 +1,105 @@
+package com.stoq.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 读写分离数据源(stoq.datasource.read-replica.enabled=true时启用)
+ * 主库使用spring.datasource配置,每个副本一个独立的Hikari连接池(连接池参数与主库相同),
+ * 每个连接池以pool(primary、replica-0...)为tag输出hikaricp.*指标。
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "stoq.datasource.read-replica", name = "enabled", havingValue = "true")
+@Slf4j
+public class ReadReplicaConfig {
+    
+    // 连接池不是独立的bean,由配置类负责关闭
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties,
+                                 Environment environment,
+                                 @Value("${stoq.datasource.read-replica.urls}") List<String> replicaUrls,
+                                 @Value("${stoq.datasource.read-replica.username:${spring.datasource.username}}") String replicaUsername,
+                                 @Value("${stoq.datasource.read-replica.password:${spring.datasource.password}}") String replicaPassword,
+                                 @Value("${stoq.datasource.read-replica.sticky-window:5s}") Duration stickyWindow) {
+        if (replicaUrls.isEmpty()) {
+            throw new IllegalStateException("stoq.datasource.read-replica.urls must not be empty when read replicas are enabled");
+        }
+        
+        Map<Object, Object> targets = new HashMap<>();
+        HikariDataSource primary = pool(properties.getUrl(), properties.getUsername(), properties.getPassword(),
+                ReadWriteRoutingDataSource.PRIMARY, false, properties, environment);
+        targets.put(ReadWriteRoutingDataSource.PRIMARY, primary);
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            String name = ReadWriteRoutingDataSource.replicaKey(i);
+            targets.put(name, pool(replicaUrls.get(i).trim(), replicaUsername, replicaPassword,
+                    name, true, properties, environment));
+        }
+        
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(replicaUrls.size(), stickyWindow);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        log.info("✅ 读写分离已启用 (副本: {}个, 写后主库粘滞: {})", replicaUrls.size(), stickyWindow);
+        
+        // 延迟到第一条语句执行时才取连接,此时事务的只读标记已设置
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+    
+    /**
+     * 路由计数和各连接池指标
+     */
+    @Bean
+    public MeterBinder readReplicaMetrics(DataSource dataSource) {
+        return (MeterBinder) ((LazyConnectionDataSourceProxy) dataSource).getTargetDataSource();
+    }
+    
+    /**
+     * 创建连接池,spring.datasource.hikari下的参数同样应用于副本
+     */
+    private HikariDataSource pool(String url, String username, String password, String poolName, boolean readOnly,
+                                         DataSourceProperties properties, Environment environment) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        dataSource.setPoolName(poolName);
+        dataSource.setReadOnly(readOnly);
+        pools.add(dataSource);
+        return dataSource;
+    }
+    
+    /**
+     * 关闭主库和各副本连接池
+     * 配置类在它创建的dataSource及其依赖者(EntityManagerFactory等)销毁之后才销毁
+     */
+    @PreDestroy
+    public void closePools() {
+        for (HikariDataSource pool : pools) {
+            pool.close();
+        }
+        log.info("✅ 读写分离连接池已关闭 ({}个)", pools.size());
+    }
+}
@@ -0,0 +1,142 @@
+package com.stoq.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 读写分离路由: 只读事务(@Transactional(readOnly = true))轮询发往只读副本,其它一律发往主库。
+ * 用户自己的写事务提交后,在stickyWindow内该用户的只读事务仍走主库,避免读到复制延迟前的旧数据。
+ * 结果会被缓存的读取(权限、扫码缓存的加载)通过readFromPrimary强制走主库,不计入写入也不触发粘滞。
+ * 需配合LazyConnectionDataSourceProxy使用,保证取连接时事务的只读标记已经设置。
+ * 作为MeterBinder注册路由计数和各连接池的hikaricp.*指标(数据源先于MeterRegistry创建,不能在构造时注册)。
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements MeterBinder {
+    
+    static final String PRIMARY = "primary";
+    
+    private static final String ROUTES_METRIC = "stoq.datasource.routes";
+    
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+    
+    private final int replicaCount;
+    private final AtomicInteger next = new AtomicInteger();
+    // 最近写过数据的用户,过期即解除主库粘滞
+    private final Cache<String, Boolean> recentWriters;
+    
+    private final LongAdder primaryWrites = new LongAdder();
+    private final LongAdder primaryPinnedReads = new LongAdder();
+    private final LongAdder primaryForcedReads = new LongAdder();
+    private final LongAdder replicaReads = new LongAdder();
+    
+    public ReadWriteRoutingDataSource(int replicaCount, Duration stickyWindow) {
+        this.replicaCount = replicaCount;
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(stickyWindow)
+                .maximumSize(100_000)
+                .build();
+    }
+    
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        routeCounter(registry, PRIMARY, "write", primaryWrites);
+        routeCounter(registry, PRIMARY, "pinned_read", primaryPinnedReads);
+        routeCounter(registry, PRIMARY, "forced_read", primaryForcedReads);
+        routeCounter(registry, "replica", "read", replicaReads);
+        // 连接池已启动时Hikari同样允许设置一次指标
+        for (DataSource dataSource : getResolvedDataSources().values()) {
+            if (dataSource instanceof HikariDataSource) {
+                ((HikariDataSource) dataSource).setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            }
+        }
+    }
+    
+    private static void routeCounter(MeterRegistry registry, String target, String reason, LongAdder count) {
+        FunctionCounter.builder(ROUTES_METRIC, count, LongAdder::doubleValue)
+                .description("Connections routed by the read/write routing datasource")
+                .tag("target", target)
+                .tag("reason", reason)
+                .register(registry);
+    }
+    
+    static String replicaKey(int index) {
+        return "replica-" + index;
+    }
+    
+    /**
+     * 在当前线程上执行action,期间新取的连接一律来自主库
+     * 已持有连接的事务不受影响,调用方需要在新事务中执行(见PrimaryReadTemplate)
+     */
+    public static <T> T readFromPrimary(Supplier<T> action) {
+        Boolean previous = FORCE_PRIMARY.get();
+        FORCE_PRIMARY.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                FORCE_PRIMARY.remove();
+            } else {
+                FORCE_PRIMARY.set(previous);
+            }
+        }
+    }
+    
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String user = currentUser();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            primaryWrites.increment();
+            pinAfterCommit(user);
+            return PRIMARY;
+        }
+        if (FORCE_PRIMARY.get() != null) {
+            primaryForcedReads.increment();
+            return PRIMARY;
+        }
+        if (user != null && recentWriters.getIfPresent(user) != null) {
+            primaryPinnedReads.increment();
+            return PRIMARY;
+        }
+        replicaReads.increment();
+        return replicaKey(Math.floorMod(next.getAndIncrement(), replicaCount));
+    }
+    
+    /**
+     * 写事务提交后开始计算粘滞时间(没有事务时立即生效)
+     */
+    private void pinAfterCommit(String user) {
+        if (user == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recentWriters.put(user, Boolean.TRUE);
+                }
+            });
+        } else {
+            recentWriters.put(user, Boolean.TRUE);
+        }
+    }
+    
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? null : authentication.getName();
+    }
+}
@@ -0,0 +1,139 @@
+package com.stoq.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 启动时检查MySQL中是否存在查询依赖的索引(由Flyway迁移创建),缺少时启动失败。
+ * 按表名和列顺序比对,不依赖索引名,因此也适用于由Hibernate建表后基线化的旧数据库。
+ * 非MySQL数据库(如H2)跳过检查,商品模板搜索退化为LIKE查询。
+ */
+@Component
+@Slf4j
+public class SchemaIndexVerifier {
+    
+    private static final String FULLTEXT_INDEX = "product_templates(name,supplier)";
+    
+    // 表(列1,列2...),与db/migration中的索引一一对应
+    private static final List<String> EXPECTED_INDEXES = Arrays.asList(
+            "cluster_members(cluster_id,user_email)",
+            "cluster_members(cluster_id,id)",
+            "cluster_members(cluster_id,role)",
+            "cluster_members(user_email)",
+            "email_outbox(status,next_attempt_at)",
+            "email_outbox(lease_token)",
+            "email_outbox(status,sent_at)",
+            "clusters(owner_email,id)",
+            "clusters(name)",
+            "product_categories(cluster_id,id)",
+            "product_categories(cluster_id,name)",
+            "product_categories(creator_email,id)",
+            "product_templates(category_id,id)",
+            "product_templates(category_id,name)",
+            "product_templates(creator_email,id)",
+            "product_templates(cluster_id,bar_code)",
+            "product_templates(cluster_id,qr_code)",
+            FULLTEXT_INDEX,
+            "stoqs(cluster_id,id)",
+            "stoqs(creator_email,id)",
+            "stoqs(administrator)",
+            "stock_levels(stoq_id,product_template_id)",
+            "stock_levels(product_template_id)",
+            "stock_levels(updated_at,stoq_id)",
+            "stock_movements(stoq_id,id)",
+            "stock_movements(stoq_id,created_at,product_template_id,delta)",
+            "stock_snapshots(stoq_id,snapshot_at,product_template_id)",
+            "stock_snapshot_runs(snapshot_at)",
+            "stock_reservations(status,expires_at)",
+            "stock_reservations(stoq_id)",
+            "stock_reservation_items(reservation_id,product_template_id)",
+            "low_stock_alerts(notified_at,stoq_id,created_at)",
+            "low_stock_alerts(stoq_id)",
+            "stocktake_sessions(stoq_id)",
+            "stocktake_counts(session_id,product_template_id)",
+            "stocktake_uploads(session_id,upload_id)",
+            "teams(cluster_id,id)",
+            "teams(creator_email,id)",
+            "team_members(team_id,email)",
+            "team_members(team_id,id)",
+            "team_members(creator_email,id)",
+            "team_members(linked_user_email)",
+            "team_members(email)",
+            "users(phone)",
+            "verification_codes(email,scenario,created_at)");
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean failOnMissing;
+    private volatile boolean fullTextAvailable;
+    
+    public SchemaIndexVerifier(JdbcTemplate jdbcTemplate,
+                               @Value("${stoq.schema.fail-on-missing-index:true}") boolean failOnMissing) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.failOnMissing = failOnMissing;
+    }
+    
+    @PostConstruct
+    public void verify() {
+        if (!isMySql()) {
+            log.info("ℹ️ 非MySQL数据库,跳过索引检查,商品模板搜索使用LIKE查询");
+            return;
+        }
+        
+        Set<String> existing = loadIndexes();
+        List<String> missing = EXPECTED_INDEXES.stream()
+                .filter(index -> !existing.contains(index))
+                .collect(Collectors.toList());
+        fullTextAvailable = existing.contains(FULLTEXT_INDEX);
+        
+        if (missing.isEmpty()) {
+            log.info("✅ 数据库索引检查通过 ({}个)", EXPECTED_INDEXES.size());
+            return;
+        }
+        if (failOnMissing) {
+            throw new IllegalStateException("Missing database indexes " + missing
+                    + ", run the Flyway migrations (and db/upgrade scripts for pre-Flyway databases) first");
+        }
+        log.warn("⚠️ 缺少数据库索引: {}", missing);
+    }
+    
+    /**
+     * 全文索引是否可用
+     */
+    public boolean isFullTextAvailable() {
+        return fullTextAvailable;
+    }
+    
+    /**
+     * 读取当前库的所有索引,格式为"表(列1,列2...)"
+     */
+    private Set<String> loadIndexes() {
+        Map<String, StringBuilder> columns = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT table_name, index_name, column_name FROM information_schema.statistics "
+                        + "WHERE table_schema = DATABASE() ORDER BY table_name, index_name, seq_in_index",
+                rs -> {
+                    String key = rs.getString(1) + "." + rs.getString(2);
+                    columns.computeIfAbsent(key, k -> new StringBuilder()).append(',').append(rs.getString(3));
+                });
+        Set<String> indexes = new HashSet<>();
+        columns.forEach((key, value) -> indexes.add(
+                (key.substring(0, key.indexOf('.')) + "(" + value.substring(1) + ")").toLowerCase()));
+        return indexes;
+    }
+    
+    private boolean isMySql() {
+        String product = jdbcTemplate.execute((Connection connection) -> connection.getMetaData().getDatabaseProductName());
+        return "MySQL".equalsIgnoreCase(product);
+    }
+}
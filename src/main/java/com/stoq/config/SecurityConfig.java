@@ -47,6 +47,8 @@ public class SecurityConfig {
                 // Swagger和H2控制台
                 .antMatchers("/swagger-ui/**", "/v3/api-docs/**", "/swagger-ui.html").permitAll()
                 .antMatchers("/h2-console/**").permitAll()
+                // 健康检查和Prometheus抓取端点(其余actuator端点需要认证)
+                .antMatchers("/actuator/health", "/actuator/prometheus").permitAll()
                 // 集群管理端点需要认证
                 .antMatchers("/clusters/**").authenticated()
                 // 仓库管理端点需要认证
@@ -1,6 +1,7 @@
 package com.stoq.controller;
 import com.stoq.dto.ClusterResponseDTO;
 import com.stoq.dto.CreateClusterDTO;
+import com.stoq.dto.SliceResponseDTO;
 import com.stoq.service.ClusterService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -13,8 +14,6 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/clusters")
 @Tag(name = "Cluster Management", description = "Cluster creation, query, update, and delete APIs")
@@ -38,12 +37,14 @@ public class ClusterController {
     // Get all clusters owned by current user
     @GetMapping("/my")
     @Operation(summary = "Get my clusters", 
-               description = "Get all clusters created by current logged-in user",
+               description = "Get all clusters created by current logged-in user (cursor paginated, use nextCursor to fetch the next page)",
                security = @SecurityRequirement(name = "bearerAuth"))
-    public ResponseEntity<List<ClusterResponseDTO>> getMyClusters() {
+    public ResponseEntity<SliceResponseDTO<ClusterResponseDTO>> getMyClusters(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String ownerEmail = authentication.getName();
-        List<ClusterResponseDTO> clusters = clusterService.getMyClusters(ownerEmail);
+        SliceResponseDTO<ClusterResponseDTO> clusters = clusterService.getMyClusters(ownerEmail, cursor, limit);
         return ResponseEntity.ok(clusters);
     }
     
@@ -88,10 +89,12 @@ public class ClusterController {
     // Get all clusters (admin only)
     @GetMapping
     @Operation(summary = "Get all clusters", 
-               description = "Get all clusters in the system (admin only)",
+               description = "Get all clusters in the system (admin only) (cursor paginated, use nextCursor to fetch the next page)",
                security = @SecurityRequirement(name = "bearerAuth"))
-    public ResponseEntity<List<ClusterResponseDTO>> getAllClusters() {
-        List<ClusterResponseDTO> clusters = clusterService.getAllClusters();
+    public ResponseEntity<SliceResponseDTO<ClusterResponseDTO>> getAllClusters(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        SliceResponseDTO<ClusterResponseDTO> clusters = clusterService.getAllClusters(cursor, limit);
         return ResponseEntity.ok(clusters);
     }
 }
@@ -1,5 +1,6 @@
 package com.stoq.controller;
 import com.stoq.dto.ClusterMemberDTO;
+import com.stoq.dto.SliceResponseDTO;
 import com.stoq.service.ClusterMemberService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -12,8 +13,6 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/cluster-members")
 @Tag(name = "Cluster Member Management", description = "Cluster member management APIs")
@@ -37,12 +36,15 @@ public class ClusterMemberController {
     // Get all members of a cluster
     @GetMapping("/cluster/{clusterId}")
     @Operation(summary = "Get cluster members", 
-               description = "Get all members of a cluster",
+               description = "Get all members of a cluster (cursor paginated, use nextCursor to fetch the next page)",
                security = @SecurityRequirement(name = "bearerAuth"))
-    public ResponseEntity<List<ClusterMemberDTO>> getClusterMembers(@PathVariable Long clusterId) {
+    public ResponseEntity<SliceResponseDTO<ClusterMemberDTO>> getClusterMembers(
+            @PathVariable Long clusterId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String userEmail = authentication.getName();
-        List<ClusterMemberDTO> members = clusterMemberService.getClusterMembers(clusterId, userEmail);
+        SliceResponseDTO<ClusterMemberDTO> members = clusterMemberService.getClusterMembers(clusterId, userEmail, cursor, limit);
         return ResponseEntity.ok(members);
     }
     
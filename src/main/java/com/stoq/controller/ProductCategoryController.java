@@ -1,19 +1,23 @@
 package com.stoq.controller;
 import com.stoq.dto.CreateProductCategoryDTO;
 import com.stoq.dto.ProductCategoryResponseDTO;
+import com.stoq.dto.SliceResponseDTO;
+import com.stoq.enums.ExportFormat;
+import com.stoq.service.ProductCatalogExportService;
 import com.stoq.service.ProductCategoryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/product-categories")
@@ -23,6 +27,9 @@ public class ProductCategoryController {
     @Autowired
     private ProductCategoryService productCategoryService;
     
+    @Autowired
+    private ProductCatalogExportService productCatalogExportService;
+    
     /**
      * Create a new product category
      */
@@ -42,15 +49,39 @@ public class ProductCategoryController {
      */
     @GetMapping("/cluster/{clusterId}")
     @Operation(summary = "Get product categories by cluster", 
-               description = "Get all product categories for a specific cluster",
+               description = "Get all product categories for a specific cluster (cursor paginated, use nextCursor to fetch the next page)",
                security = @SecurityRequirement(name = "bearerAuth"))
-    public ResponseEntity<List<ProductCategoryResponseDTO>> getProductCategoriesByCluster(@PathVariable Long clusterId) {
+    public ResponseEntity<SliceResponseDTO<ProductCategoryResponseDTO>> getProductCategoriesByCluster(
+            @PathVariable Long clusterId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String userEmail = authentication.getName();
-        List<ProductCategoryResponseDTO> categories = productCategoryService.getProductCategoriesByCluster(clusterId, userEmail);
+        SliceResponseDTO<ProductCategoryResponseDTO> categories = productCategoryService.getProductCategoriesByCluster(clusterId, userEmail, cursor, limit);
         return ResponseEntity.ok(categories);
     }
     
+    /**
+     * Export the full catalog (categories and templates) of a cluster
+     */
+    @GetMapping("/cluster/{clusterId}/export")
+    @Operation(summary = "Export cluster catalog", 
+               description = "Stream all product categories and templates of a cluster as NDJSON (default) or CSV",
+               security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<StreamingResponseBody> exportCatalog(
+            @PathVariable Long clusterId,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String userEmail = authentication.getName();
+        ExportFormat exportFormat = ExportFormat.fromCode(format);
+        StreamingResponseBody body = productCatalogExportService.exportCatalog(clusterId, userEmail, exportFormat);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"catalog-" + clusterId + "." + exportFormat.getCode() + "\"")
+                .body(body);
+    }
+    
     /**
      * Get product category by ID
      */
@@ -70,12 +101,14 @@ public class ProductCategoryController {
      */
     @GetMapping("/my")
     @Operation(summary = "Get my product categories", 
-               description = "Get all product categories created by current logged-in user",
+               description = "Get all product categories created by current logged-in user (cursor paginated, use nextCursor to fetch the next page)",
                security = @SecurityRequirement(name = "bearerAuth"))
-    public ResponseEntity<List<ProductCategoryResponseDTO>> getMyProductCategories() {
+    public ResponseEntity<SliceResponseDTO<ProductCategoryResponseDTO>> getMyProductCategories(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String creatorEmail = authentication.getName();
-        List<ProductCategoryResponseDTO> categories = productCategoryService.getMyProductCategories(creatorEmail);
+        SliceResponseDTO<ProductCategoryResponseDTO> categories = productCategoryService.getMyProductCategories(creatorEmail, cursor, limit);
         return ResponseEntity.ok(categories);
     }
     
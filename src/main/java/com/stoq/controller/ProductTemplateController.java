@@ -1,18 +1,28 @@
 package com.stoq.controller;
+import com.stoq.dto.BulkImportResultDTO;
 import com.stoq.dto.CreateProductTemplateDTO;
 import com.stoq.dto.ProductTemplateResponseDTO;
+import com.stoq.dto.ProductTemplateSummaryDTO;
+import com.stoq.dto.ScanRequestDTO;
+import com.stoq.dto.ScanResultDTO;
+import com.stoq.dto.SliceResponseDTO;
+import com.stoq.service.ProductTemplateImportService;
+import com.stoq.service.ProductTemplateSearchService;
 import com.stoq.service.ProductTemplateService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -23,6 +33,12 @@ public class ProductTemplateController {
     @Autowired
     private ProductTemplateService productTemplateService;
     
+    @Autowired
+    private ProductTemplateImportService productTemplateImportService;
+    
+    @Autowired
+    private ProductTemplateSearchService productTemplateSearchService;
+    
     /**
      * Create a new product template
      */
@@ -37,20 +53,83 @@ public class ProductTemplateController {
         return ResponseEntity.status(HttpStatus.CREATED).body(template);
     }
     
+    /**
+     * Bulk import product templates from a JSON array
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Bulk import product templates (JSON)", 
+               description = "Import a JSON array of product templates (requires ADMIN role on each category). Invalid rows are reported per row and do not abort the import",
+               security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<BulkImportResultDTO> importProductTemplates(InputStream body) throws IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String creatorEmail = authentication.getName();
+        BulkImportResultDTO result = productTemplateImportService.importJson(body, creatorEmail);
+        return ResponseEntity.ok(result);
+    }
+    
+    /**
+     * Bulk import product templates from CSV
+     */
+    @PostMapping(value = "/bulk", consumes = "text/csv")
+    @Operation(summary = "Bulk import product templates (CSV)", 
+               description = "Import product templates from CSV with a header row (requires ADMIN role on each category). Multiple images are separated by '|'",
+               security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<BulkImportResultDTO> importProductTemplatesCsv(InputStream body) throws IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String creatorEmail = authentication.getName();
+        BulkImportResultDTO result = productTemplateImportService.importCsv(body, creatorEmail);
+        return ResponseEntity.ok(result);
+    }
+    
     /**
      * Get all product templates for a specific category
      */
     @GetMapping("/category/{categoryId}")
     @Operation(summary = "Get product templates by category", 
-               description = "Get all product templates for a specific category",
+               description = "Get summaries (without description and images) of all product templates for a specific category (cursor paginated, use nextCursor to fetch the next page)",
+               security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<SliceResponseDTO<ProductTemplateSummaryDTO>> getProductTemplatesByCategory(
+            @PathVariable Long categoryId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String userEmail = authentication.getName();
+        SliceResponseDTO<ProductTemplateSummaryDTO> templates = productTemplateService.getProductTemplatesByCategory(categoryId, userEmail, cursor, limit);
+        return ResponseEntity.ok(templates);
+    }
+    
+    /**
+     * Search product templates in a cluster
+     */
+    @GetMapping("/search")
+    @Operation(summary = "Search product templates", 
+               description = "Typeahead search by name, supplier (prefix, ranked by relevance), barCode or qrCode (prefix) across a cluster (cursor paginated, use nextCursor to fetch the next page)",
                security = @SecurityRequirement(name = "bearerAuth"))
-    public ResponseEntity<List<ProductTemplateResponseDTO>> getProductTemplatesByCategory(@PathVariable Long categoryId) {
+    public ResponseEntity<SliceResponseDTO<ProductTemplateSummaryDTO>> searchProductTemplates(
+            @RequestParam Long clusterId,
+            @RequestParam String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String userEmail = authentication.getName();
-        List<ProductTemplateResponseDTO> templates = productTemplateService.getProductTemplatesByCategory(categoryId, userEmail);
+        SliceResponseDTO<ProductTemplateSummaryDTO> templates = productTemplateSearchService.search(clusterId, q, userEmail, cursor, limit);
         return ResponseEntity.ok(templates);
     }
     
+    /**
+     * Resolve scanned bar codes / QR codes to product templates
+     */
+    @PostMapping("/scan")
+    @Operation(summary = "Scan product templates", 
+               description = "Resolve up to 500 scanned barCode or qrCode values to product template summaries in a cluster. Results keep the request order; template is null for unknown codes",
+               security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<List<ScanResultDTO>> scanProductTemplates(@Validated @RequestBody ScanRequestDTO dto) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String userEmail = authentication.getName();
+        List<ScanResultDTO> results = productTemplateService.scan(dto.getClusterId(), dto.getCodes(), userEmail);
+        return ResponseEntity.ok(results);
+    }
+    
     /**
      * Get product template by ID
      */
@@ -70,12 +149,14 @@ public class ProductTemplateController {
      */
     @GetMapping("/my")
     @Operation(summary = "Get my product templates", 
-               description = "Get all product templates created by current logged-in user",
+               description = "Get summaries (without description and images) of all product templates created by current logged-in user (cursor paginated, use nextCursor to fetch the next page)",
                security = @SecurityRequirement(name = "bearerAuth"))
-    public ResponseEntity<List<ProductTemplateResponseDTO>> getMyProductTemplates() {
+    public ResponseEntity<SliceResponseDTO<ProductTemplateSummaryDTO>> getMyProductTemplates(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String creatorEmail = authentication.getName();
-        List<ProductTemplateResponseDTO> templates = productTemplateService.getMyProductTemplates(creatorEmail);
+        SliceResponseDTO<ProductTemplateSummaryDTO> templates = productTemplateService.getMyProductTemplates(creatorEmail, cursor, limit);
         return ResponseEntity.ok(templates);
     }
     
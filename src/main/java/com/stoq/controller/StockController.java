@@ -0,0 +1,152 @@
+package com.stoq.controller;
+import com.stoq.dto.LowStockThresholdDTO;
+import com.stoq.dto.SliceResponseDTO;
+import com.stoq.dto.StockAdjustmentRequestDTO;
+import com.stoq.dto.StockLevelResponseDTO;
+import com.stoq.dto.StockMovementResponseDTO;
+import com.stoq.dto.StockQuantityDTO;
+import com.stoq.dto.StockTransferRequestDTO;
+import com.stoq.service.StockLevelService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/stoqs/{stoqId}/stock")
+@Tag(name = "Stock Management", description = "Per-stoq stock quantity query and adjustment APIs")
+public class StockController {
+    
+    @Autowired
+    private StockLevelService stockLevelService;
+    
+    /**
+     * Get stock levels of a stoq
+     */
+    @GetMapping
+    @Operation(summary = "Get stock levels",
+               description = "Get stock quantities of all product templates in a stoq (cursor paginated, use nextCursor to fetch the next page)",
+               security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<SliceResponseDTO<StockLevelResponseDTO>> getStockLevels(
+            @PathVariable Long stoqId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String userEmail = authentication.getName();
+        SliceResponseDTO<StockLevelResponseDTO> stockLevels = stockLevelService.getStockLevels(stoqId, userEmail, cursor, limit);
+        return ResponseEntity.ok(stockLevels);
+    }
+    
+    /**
+     * Get stock movements of a stoq
+     */
+    @GetMapping("/movements")
+    @Operation(summary = "Get stock movements",
+               description = "Get the append-only stock movement journal of a stoq, newest first (cursor paginated)",
+               security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<SliceResponseDTO<StockMovementResponseDTO>> getStockMovements(
+            @PathVariable Long stoqId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String userEmail = authentication.getName();
+        SliceResponseDTO<StockMovementResponseDTO> movements = stockLevelService.getStockMovements(stoqId, userEmail, cursor, limit);
+        return ResponseEntity.ok(movements);
+    }
+    
+    /**
+     * Get stock quantities at a point in time
+     */
+    @GetMapping("/history")
+    @Operation(summary = "Get stock at a point in time",
+               description = "Get the quantities in a stoq at the given time (ISO date-time, e.g. 2026-01-01T00:00:00). "
+                       + "Product templates with zero quantity are omitted",
+               security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<List<StockQuantityDTO>> getStockAt(
+            @PathVariable Long stoqId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at,
+            @RequestParam(required = false) Long productTemplateId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String userEmail = authentication.getName();
+        List<StockQuantityDTO> quantities = stockLevelService.getStockAt(stoqId, productTemplateId, at, userEmail);
+        return ResponseEntity.ok(quantities);
+    }
+    
+    /**
+     * Get stock level of one product template
+     */
+    @GetMapping("/{productTemplateId}")
+    @Operation(summary = "Get stock level",
+               description = "Get the stock quantity of a product template in a stoq (0 if it has never been stocked)",
+               security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<StockLevelResponseDTO> getStockLevel(
+            @PathVariable Long stoqId,
+            @PathVariable Long productTemplateId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String userEmail = authentication.getName();
+        StockLevelResponseDTO stockLevel = stockLevelService.getStockLevel(stoqId, productTemplateId, userEmail);
+        return ResponseEntity.ok(stockLevel);
+    }
+    
+    /**
+     * Set the low-stock threshold of one product template
+     */
+    @PutMapping("/{productTemplateId}/threshold")
+    @Operation(summary = "Set low-stock threshold",
+               description = "Alert when the available quantity (quantity - reserved) drops to or below the threshold. "
+                       + "Alerts of a stoq are coalesced into one digest email. A null threshold disables alerts (cluster admin only)",
+               security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<StockLevelResponseDTO> setLowStockThreshold(
+            @PathVariable Long stoqId,
+            @PathVariable Long productTemplateId,
+            @Validated @RequestBody LowStockThresholdDTO dto) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String userEmail = authentication.getName();
+        StockLevelResponseDTO stockLevel = stockLevelService.setLowStockThreshold(stoqId, productTemplateId, dto, userEmail);
+        return ResponseEntity.ok(stockLevel);
+    }
+    
+    /**
+     * Adjust stock quantities
+     */
+    @PostMapping("/adjustments")
+    @Operation(summary = "Adjust stock",
+               description = "Add (positive delta) or remove (negative delta) units of up to 500 product templates atomically. "
+                       + "type is RECEIVE (positive deltas), PICK (negative deltas) or ADJUST (default). "
+                       + "Fails with 409 and changes nothing if any product would go below zero",
+               security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<List<StockLevelResponseDTO>> adjustStock(
+            @PathVariable Long stoqId,
+            @Validated @RequestBody StockAdjustmentRequestDTO dto) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String userEmail = authentication.getName();
+        List<StockLevelResponseDTO> stockLevels = stockLevelService.adjustStock(stoqId, dto, userEmail);
+        return ResponseEntity.ok(stockLevels);
+    }
+    
+    /**
+     * Transfer stock to another stoq
+     */
+    @PostMapping("/transfers")
+    @Operation(summary = "Transfer stock",
+               description = "Move units (positive deltas) of up to 500 product templates to another stoq of the same cluster atomically. "
+                       + "Returns the source stoq's stock levels; fails with 409 and changes nothing if the source has too few units",
+               security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<List<StockLevelResponseDTO>> transferStock(
+            @PathVariable Long stoqId,
+            @Validated @RequestBody StockTransferRequestDTO dto) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String userEmail = authentication.getName();
+        List<StockLevelResponseDTO> stockLevels = stockLevelService.transferStock(stoqId, dto, userEmail);
+        return ResponseEntity.ok(stockLevels);
+    }
+}
@@ -0,0 +1,89 @@
+package com.stoq.controller;
+import com.stoq.dto.StockReservationRequestDTO;
+import com.stoq.dto.StockReservationResponseDTO;
+import com.stoq.service.StockReservationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/stoqs/{stoqId}/stock/reservations")
+@Tag(name = "Stock Reservations", description = "Reserve stock for order picking, then confirm or release it")
+public class StockReservationController {
+    
+    @Autowired
+    private StockReservationService stockReservationService;
+    
+    /**
+     * Reserve stock
+     */
+    @PostMapping
+    @Operation(summary = "Reserve stock",
+               description = "Reserve units of up to 500 product templates. Fails with 409 and reserves nothing if any product "
+                       + "has fewer available (unreserved) units. Unconfirmed reservations are released after ttlSeconds (default 15 minutes)",
+               security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<StockReservationResponseDTO> reserve(
+            @PathVariable Long stoqId,
+            @Validated @RequestBody StockReservationRequestDTO dto) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String userEmail = authentication.getName();
+        StockReservationResponseDTO reservation = stockReservationService.reserve(stoqId, dto, userEmail);
+        return ResponseEntity.status(HttpStatus.CREATED).body(reservation);
+    }
+    
+    /**
+     * Get a reservation
+     */
+    @GetMapping("/{reservationId}")
+    @Operation(summary = "Get reservation",
+               description = "Get a stock reservation and its status",
+               security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<StockReservationResponseDTO> getReservation(
+            @PathVariable Long stoqId,
+            @PathVariable Long reservationId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String userEmail = authentication.getName();
+        StockReservationResponseDTO reservation = stockReservationService.getReservation(stoqId, reservationId, userEmail);
+        return ResponseEntity.ok(reservation);
+    }
+    
+    /**
+     * Confirm a reservation
+     */
+    @PostMapping("/{reservationId}/confirm")
+    @Operation(summary = "Confirm reservation",
+               description = "Remove the reserved units from stock (recorded as PICK movements). "
+                       + "Fails with 409 if the reservation has expired or was already confirmed or released",
+               security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<StockReservationResponseDTO> confirm(
+            @PathVariable Long stoqId,
+            @PathVariable Long reservationId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String userEmail = authentication.getName();
+        StockReservationResponseDTO reservation = stockReservationService.confirm(stoqId, reservationId, userEmail);
+        return ResponseEntity.ok(reservation);
+    }
+    
+    /**
+     * Release a reservation
+     */
+    @PostMapping("/{reservationId}/release")
+    @Operation(summary = "Release reservation",
+               description = "Make the reserved units available again. Fails with 409 if the reservation is no longer active",
+               security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<StockReservationResponseDTO> release(
+            @PathVariable Long stoqId,
+            @PathVariable Long reservationId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String userEmail = authentication.getName();
+        StockReservationResponseDTO reservation = stockReservationService.release(stoqId, reservationId, userEmail);
+        return ResponseEntity.ok(reservation);
+    }
+}
@@ -0,0 +1,131 @@
+package com.stoq.controller;
+import com.stoq.dto.CreateStocktakeDTO;
+import com.stoq.dto.StocktakeResponseDTO;
+import com.stoq.dto.StocktakeUploadResultDTO;
+import com.stoq.dto.StocktakeVarianceDTO;
+import com.stoq.service.StocktakeService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+@RestController
+@RequestMapping("/stoqs/{stoqId}/stocktakes")
+@Tag(name = "Stocktakes", description = "Count stock with scanner uploads, review variances and apply them")
+public class StocktakeController {
+    
+    @Autowired
+    private StocktakeService stocktakeService;
+    
+    /**
+     * Start a stocktake
+     */
+    @PostMapping
+    @Operation(summary = "Start stocktake",
+               description = "Start a stocktake in a stoq. A full count treats product templates that were never scanned as 0; "
+                       + "otherwise (cycle count) only scanned product templates are compared",
+               security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<StocktakeResponseDTO> createStocktake(
+            @PathVariable Long stoqId,
+            @Validated @RequestBody(required = false) CreateStocktakeDTO dto) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String userEmail = authentication.getName();
+        StocktakeResponseDTO stocktake = stocktakeService.createStocktake(stoqId, dto, userEmail);
+        return ResponseEntity.status(HttpStatus.CREATED).body(stocktake);
+    }
+    
+    /**
+     * Get a stocktake
+     */
+    @GetMapping("/{stocktakeId}")
+    @Operation(summary = "Get stocktake",
+               description = "Get a stocktake, its status and scan totals",
+               security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<StocktakeResponseDTO> getStocktake(
+            @PathVariable Long stoqId,
+            @PathVariable Long stocktakeId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String userEmail = authentication.getName();
+        StocktakeResponseDTO stocktake = stocktakeService.getStocktake(stoqId, stocktakeId, userEmail);
+        return ResponseEntity.ok(stocktake);
+    }
+    
+    /**
+     * Upload scans from a scanner
+     */
+    @PostMapping(value = "/{stocktakeId}/scans", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Upload scans",
+               description = "Stream a JSON array of scans ({code, quantity, scanId}) into an open stocktake. Codes are barCode or qrCode values. "
+                       + "An upload is counted once per uploadId, so a scanner can safely retry it; scans repeating a scanId within the upload are ignored",
+               security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<StocktakeUploadResultDTO> uploadScans(
+            @PathVariable Long stoqId,
+            @PathVariable Long stocktakeId,
+            @RequestParam String uploadId,
+            InputStream body) throws IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String userEmail = authentication.getName();
+        StocktakeUploadResultDTO result = stocktakeService.uploadScans(stoqId, stocktakeId, uploadId, body, userEmail);
+        return ResponseEntity.ok(result);
+    }
+    
+    /**
+     * Get stocktake variances
+     */
+    @GetMapping("/{stocktakeId}/variances")
+    @Operation(summary = "Get variances",
+               description = "List product templates whose counted quantity differs from the current stock quantity",
+               security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<List<StocktakeVarianceDTO>> getVariances(
+            @PathVariable Long stoqId,
+            @PathVariable Long stocktakeId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String userEmail = authentication.getName();
+        List<StocktakeVarianceDTO> variances = stocktakeService.getVariances(stoqId, stocktakeId, userEmail);
+        return ResponseEntity.ok(variances);
+    }
+    
+    /**
+     * Complete a stocktake
+     */
+    @PostMapping("/{stocktakeId}/complete")
+    @Operation(summary = "Complete stocktake",
+               description = "Apply the variances to stock as ADJUST movements (reference STOCKTAKE-{id}) and close the stocktake. "
+                       + "Fails with 409 if a counted quantity is below the reserved quantity",
+               security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<StocktakeResponseDTO> complete(
+            @PathVariable Long stoqId,
+            @PathVariable Long stocktakeId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String userEmail = authentication.getName();
+        StocktakeResponseDTO stocktake = stocktakeService.complete(stoqId, stocktakeId, userEmail);
+        return ResponseEntity.ok(stocktake);
+    }
+    
+    /**
+     * Cancel a stocktake
+     */
+    @PostMapping("/{stocktakeId}/cancel")
+    @Operation(summary = "Cancel stocktake",
+               description = "Close the stocktake without changing stock",
+               security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<StocktakeResponseDTO> cancel(
+            @PathVariable Long stoqId,
+            @PathVariable Long stocktakeId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String userEmail = authentication.getName();
+        StocktakeResponseDTO stocktake = stocktakeService.cancel(stoqId, stocktakeId, userEmail);
+        return ResponseEntity.ok(stocktake);
+    }
+}
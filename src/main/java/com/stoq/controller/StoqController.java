@@ -1,5 +1,6 @@
 package com.stoq.controller;
 import com.stoq.dto.CreateStoqDTO;
+import com.stoq.dto.SliceResponseDTO;
 import com.stoq.dto.StoqResponseDTO;
 import com.stoq.service.StoqService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -13,8 +14,6 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/stoqs")
 @Tag(name = "Stoq Management", description = "Stoq (warehouse) creation, query, update, and delete APIs")
@@ -42,12 +41,15 @@ public class StoqController {
      */
     @GetMapping("/cluster/{clusterId}")
     @Operation(summary = "Get stoqs by cluster", 
-               description = "Get all stoqs for a specific cluster",
+               description = "Get all stoqs for a specific cluster (cursor paginated, use nextCursor to fetch the next page)",
                security = @SecurityRequirement(name = "bearerAuth"))
-    public ResponseEntity<List<StoqResponseDTO>> getStoqsByCluster(@PathVariable Long clusterId) {
+    public ResponseEntity<SliceResponseDTO<StoqResponseDTO>> getStoqsByCluster(
+            @PathVariable Long clusterId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String userEmail = authentication.getName();
-        List<StoqResponseDTO> stoqs = stoqService.getStoqsByCluster(clusterId, userEmail);
+        SliceResponseDTO<StoqResponseDTO> stoqs = stoqService.getStoqsByCluster(clusterId, userEmail, cursor, limit);
         return ResponseEntity.ok(stoqs);
     }
     
@@ -56,12 +58,14 @@ public class StoqController {
      */
     @GetMapping("/my")
     @Operation(summary = "Get my stoqs", 
-               description = "Get all stoqs created by current logged-in user",
+               description = "Get all stoqs created by current logged-in user (cursor paginated, use nextCursor to fetch the next page)",
                security = @SecurityRequirement(name = "bearerAuth"))
-    public ResponseEntity<List<StoqResponseDTO>> getMyStoqs() {
+    public ResponseEntity<SliceResponseDTO<StoqResponseDTO>> getMyStoqs(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String userEmail = authentication.getName();
-        List<StoqResponseDTO> stoqs = stoqService.getMyStoqs(userEmail);
+        SliceResponseDTO<StoqResponseDTO> stoqs = stoqService.getMyStoqs(userEmail, cursor, limit);
         return ResponseEntity.ok(stoqs);
     }
     
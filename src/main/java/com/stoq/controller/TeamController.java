@@ -1,5 +1,6 @@
 package com.stoq.controller;
 import com.stoq.dto.CreateTeamDTO;
+import com.stoq.dto.SliceResponseDTO;
 import com.stoq.dto.TeamResponseDTO;
 import com.stoq.service.TeamService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -13,8 +14,6 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/teams")
 @Tag(name = "Team Management", description = "Team creation, query, update, and delete APIs")
@@ -42,12 +41,15 @@ public class TeamController {
      */
     @GetMapping("/cluster/{clusterId}")
     @Operation(summary = "Get teams by cluster", 
-               description = "Get all teams for a specific cluster",
+               description = "Get all teams for a specific cluster (cursor paginated, use nextCursor to fetch the next page)",
                security = @SecurityRequirement(name = "bearerAuth"))
-    public ResponseEntity<List<TeamResponseDTO>> getTeamsByCluster(@PathVariable Long clusterId) {
+    public ResponseEntity<SliceResponseDTO<TeamResponseDTO>> getTeamsByCluster(
+            @PathVariable Long clusterId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String userEmail = authentication.getName();
-        List<TeamResponseDTO> teams = teamService.getTeamsByCluster(clusterId, userEmail);
+        SliceResponseDTO<TeamResponseDTO> teams = teamService.getTeamsByCluster(clusterId, userEmail, cursor, limit);
         return ResponseEntity.ok(teams);
     }
     
@@ -56,12 +58,14 @@ public class TeamController {
      */
     @GetMapping("/my")
     @Operation(summary = "Get my teams", 
-               description = "Get all teams created by current logged-in user",
+               description = "Get all teams created by current logged-in user (cursor paginated, use nextCursor to fetch the next page)",
                security = @SecurityRequirement(name = "bearerAuth"))
-    public ResponseEntity<List<TeamResponseDTO>> getMyTeams() {
+    public ResponseEntity<SliceResponseDTO<TeamResponseDTO>> getMyTeams(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String userEmail = authentication.getName();
-        List<TeamResponseDTO> teams = teamService.getMyTeams(userEmail);
+        SliceResponseDTO<TeamResponseDTO> teams = teamService.getMyTeams(userEmail, cursor, limit);
         return ResponseEntity.ok(teams);
     }
     
@@ -1,5 +1,6 @@
 package com.stoq.controller;
 import com.stoq.dto.CreateTeamMemberDTO;
+import com.stoq.dto.SliceResponseDTO;
 import com.stoq.dto.TeamMemberResponseDTO;
 import com.stoq.service.TeamMemberService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -13,8 +14,6 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/team-members")
 @Tag(name = "Team Member Management", description = "Team member creation, query, update, and delete APIs")
@@ -42,12 +41,15 @@ public class TeamMemberController {
      */
     @GetMapping("/team/{teamId}")
     @Operation(summary = "Get team members", 
-               description = "Get all members of a team",
+               description = "Get all members of a team (cursor paginated, use nextCursor to fetch the next page)",
                security = @SecurityRequirement(name = "bearerAuth"))
-    public ResponseEntity<List<TeamMemberResponseDTO>> getTeamMembers(@PathVariable Long teamId) {
+    public ResponseEntity<SliceResponseDTO<TeamMemberResponseDTO>> getTeamMembers(
+            @PathVariable Long teamId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String userEmail = authentication.getName();
-        List<TeamMemberResponseDTO> members = teamMemberService.getTeamMembers(teamId, userEmail);
+        SliceResponseDTO<TeamMemberResponseDTO> members = teamMemberService.getTeamMembers(teamId, userEmail, cursor, limit);
         return ResponseEntity.ok(members);
     }
     
@@ -70,12 +72,14 @@ public class TeamMemberController {
      */
     @GetMapping("/my")
     @Operation(summary = "Get my team members", 
-               description = "Get all team members created by current logged-in user",
+               description = "Get all team members created by current logged-in user (cursor paginated, use nextCursor to fetch the next page)",
                security = @SecurityRequirement(name = "bearerAuth"))
-    public ResponseEntity<List<TeamMemberResponseDTO>> getMyTeamMembers() {
+    public ResponseEntity<SliceResponseDTO<TeamMemberResponseDTO>> getMyTeamMembers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String creatorEmail = authentication.getName();
-        List<TeamMemberResponseDTO> members = teamMemberService.getMyTeamMembers(creatorEmail);
+        SliceResponseDTO<TeamMemberResponseDTO> members = teamMemberService.getMyTeamMembers(creatorEmail, cursor, limit);
         return ResponseEntity.ok(members);
     }
     
@@ -4,6 +4,7 @@ import com.stoq.dto.*;
 import com.stoq.service.EmailService;
 import com.stoq.service.UserService;
 import com.stoq.service.VerificationCodeService;
+import com.stoq.service.VerificationRateLimiter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -17,8 +18,8 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -34,16 +35,22 @@ public class UserController {
     
     @Autowired
     private EmailService emailService;
-
+    
+    @Autowired
+    private VerificationRateLimiter verificationRateLimiter;
+    
     @Autowired
     private MessageSource messageSource;
-
+    
     /**
      * Send verification code to email
      */
     @PostMapping("/send-verification-code")
     @Operation(summary = "Send verification code", description = "Send a 6-digit verification code to the specified email")
-    public ResponseEntity<Map<String, String>> sendVerificationCode(@Validated @RequestBody SendVerificationCodeDTO dto) {
+    public ResponseEntity<Map<String, String>> sendVerificationCode(@Validated @RequestBody SendVerificationCodeDTO dto,
+                                                                    HttpServletRequest request) {
+        // 先限流,超出限额时不生成验证码、不写库、不发邮件
+        verificationRateLimiter.acquire(dto.getEmail(), request.getRemoteAddr());
         String normalizedScenario = verificationCodeService.generateAndSendCode(dto.getEmail(),
                 com.stoq.enums.VerificationCodeScenario.REGISTER.getCode(), LocaleContextHolder.getLocale());
         Map<String, String> response = new HashMap<>();
@@ -52,13 +59,15 @@ public class UserController {
         response.put("scenario", normalizedScenario);
         return ResponseEntity.ok(response);
     }
-
+    
     /**
      * Send verification code for password reset
      */
     @PostMapping("/send-reset-code")
     @Operation(summary = "Send reset password code", description = "Send a 6-digit verification code for password reset to the specified email")
-    public ResponseEntity<Map<String, String>> sendResetCode(@Validated @RequestBody SendVerificationCodeDTO dto) {
+    public ResponseEntity<Map<String, String>> sendResetCode(@Validated @RequestBody SendVerificationCodeDTO dto,
+                                                             HttpServletRequest request) {
+        verificationRateLimiter.acquire(dto.getEmail(), request.getRemoteAddr());
         String normalizedScenario = verificationCodeService.generateAndSendCode(dto.getEmail(),
                 com.stoq.enums.VerificationCodeScenario.RESET_PASSWORD.getCode(), LocaleContextHolder.getLocale());
         Map<String, String> response = new HashMap<>();
@@ -74,7 +83,7 @@ public class UserController {
     @GetMapping("/get-verification-code")
     @Operation(summary = "Get verification code", description = "Get the sent verification code, for development testing only")
     public ResponseEntity<Map<String, String>> getVerificationCode(@RequestParam String email, @RequestParam String scenario) {
-        String code = emailService.getVerificationCode(email);
+        String code = emailService.getVerificationCode(email, scenario);
         Map<String, String> response = new HashMap<>();
         if (code != null) {
             response.put("email", email);
@@ -157,16 +166,19 @@ public class UserController {
      * Get all users or query a single user by email (requires authentication)
      */
     @GetMapping
-    @Operation(summary = "Get users", description = "Get all users if no email parameter, or get a specific user if email parameter is provided (requires authentication)",
+    @Operation(summary = "Get users", description = "Get all users (cursor paginated, use nextCursor to fetch the next page) if no email parameter, or get a specific user if email parameter is provided (requires authentication)",
                security = @SecurityRequirement(name = "bearerAuth"))
-    public ResponseEntity<?> getUsers(@RequestParam(required = false) String email) {
+    public ResponseEntity<?> getUsers(
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         if (email != null && !email.isEmpty()) {
             // Query a single user
             UserResponseDTO user = userService.getUserByEmail(email);
             return ResponseEntity.ok(user);
         } else {
             // Get all users
-            List<UserResponseDTO> users = userService.getAllUsers();
+            SliceResponseDTO<UserResponseDTO> users = userService.getAllUsers(cursor, limit);
             return ResponseEntity.ok(users);
         }
     }
@@ -0,0 +1,29 @@
+package com.stoq.dto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量导入结果
+ */
+@Data
+public class BulkImportResultDTO {
+    
+    private int totalRows; // 读取的数据行数
+    private int importedRows; // 成功导入的行数
+    private int failedRows; // 失败的行数
+    private List<RowError> errors = new ArrayList<>();
+    
+    /**
+     * 行级错误(row从1开始,不含CSV表头)
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private int row;
+        private String message;
+    }
+}
@@ -1,8 +1,15 @@
 package com.stoq.dto;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
+/**
+ * 集群响应(列表接口由ClusterRepository的构造器查询直接生成,字段顺序即构造器参数顺序)
+ */
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class ClusterResponseDTO {
     
     private Long id;
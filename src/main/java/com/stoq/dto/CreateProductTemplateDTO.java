@@ -36,8 +36,10 @@ public class CreateProductTemplateDTO {
     @Size(min = 2, max = 100, message = "Supplier country must be between 2-100 characters")
     private String supplierCountry;
     
+    @Size(max = 100, message = "Bar code cannot exceed 100 characters")
     private String barCode; // Optional
     
+    @Size(max = 100, message = "QR code cannot exceed 100 characters")
     private String qrCode; // Optional
     
     @NotNull(message = "Category ID cannot be empty")
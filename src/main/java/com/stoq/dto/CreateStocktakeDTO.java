@@ -0,0 +1,16 @@
+package com.stoq.dto;
+import lombok.Data;
+import javax.validation.constraints.*;
+
+/**
+ * 开始盘点请求
+ */
+@Data
+public class CreateStocktakeDTO {
+    
+    @Size(max = 100, message = "Reference cannot exceed 100 characters")
+    private String reference;
+    
+    // 全盘时未扫到的商品视为0;默认为循环盘点,只比较扫到的商品
+    private Boolean fullCount;
+}
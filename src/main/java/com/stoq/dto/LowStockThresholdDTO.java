@@ -0,0 +1,14 @@
+package com.stoq.dto;
+import lombok.Data;
+import javax.validation.constraints.*;
+
+/**
+ * 设置低库存阈值(为空表示取消提醒)
+ */
+@Data
+public class LowStockThresholdDTO {
+    
+    @Min(value = 0, message = "Threshold must be between 0 and 1000000000")
+    @Max(value = 1000000000, message = "Threshold must be between 0 and 1000000000")
+    private Long threshold;
+}
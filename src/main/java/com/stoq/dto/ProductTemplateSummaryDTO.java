@@ -0,0 +1,32 @@
+package com.stoq.dto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 商品模板摘要(列表接口使用,不含描述和图片)
+ * 列表查询连接分类名称后直接构造
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductTemplateSummaryDTO {
+    
+    private Long id;
+    private String name;
+    private String unit;
+    private BigDecimal price;
+    private String currency;
+    private String supplier;
+    private String supplierCountry;
+    private String barCode;
+    private String qrCode;
+    private Long categoryId;
+    private String categoryName;
+    private Long clusterId;
+    private String creatorEmail;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,18 @@
+package com.stoq.dto;
+import lombok.Data;
+import javax.validation.constraints.*;
+import java.util.List;
+
+/**
+ * 扫码查询请求(一次可提交多个条码)
+ */
+@Data
+public class ScanRequestDTO {
+    
+    @NotNull(message = "Cluster ID cannot be empty")
+    private Long clusterId;
+    
+    @NotEmpty(message = "Codes cannot be empty")
+    @Size(max = 500, message = "Cannot scan more than 500 codes at once")
+    private List<@NotBlank(message = "Code cannot be empty") @Size(max = 100, message = "Code cannot exceed 100 characters") String> codes; // 条形码或二维码
+}
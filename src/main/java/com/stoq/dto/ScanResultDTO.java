@@ -0,0 +1,16 @@
+package com.stoq.dto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 单个条码的扫码结果(未找到时template为null)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScanResultDTO {
+    
+    private String code;
+    private ProductTemplateSummaryDTO template;
+}
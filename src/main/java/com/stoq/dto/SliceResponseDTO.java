@@ -0,0 +1,14 @@
+package com.stoq.dto;
+import lombok.Data;
+import java.util.List;
+
+/**
+ * 游标分页响应(keyset分页)
+ */
+@Data
+public class SliceResponseDTO<T> {
+    
+    private List<T> items;
+    private String nextCursor; // 下一页游标,最后一页为null
+    private boolean hasNext;
+}
@@ -0,0 +1,18 @@
+package com.stoq.dto;
+import lombok.Data;
+import javax.validation.constraints.*;
+
+/**
+ * 单个商品的库存调整(正数入库,负数出库)
+ */
+@Data
+public class StockAdjustmentDTO {
+    
+    @NotNull(message = "Product template ID cannot be empty")
+    private Long productTemplateId;
+    
+    @NotNull(message = "Delta cannot be empty")
+    @Min(value = -1000000, message = "Delta must be between -1000000 and 1000000")
+    @Max(value = 1000000, message = "Delta must be between -1000000 and 1000000")
+    private Long delta;
+}
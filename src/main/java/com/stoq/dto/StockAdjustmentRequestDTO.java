@@ -0,0 +1,23 @@
+package com.stoq.dto;
+import com.stoq.enums.StockMovementType;
+import lombok.Data;
+import javax.validation.Valid;
+import javax.validation.constraints.*;
+import java.util.List;
+
+/**
+ * 库存调整请求(扫码枪一次可提交多个商品)
+ * type为RECEIVE时delta须为正数,PICK时须为负数,默认为ADJUST;调拨使用单独的接口
+ */
+@Data
+public class StockAdjustmentRequestDTO {
+    
+    private StockMovementType type;
+    
+    @Size(max = 100, message = "Reference cannot exceed 100 characters")
+    private String reference;
+    
+    @NotEmpty(message = "Adjustments cannot be empty")
+    @Size(max = 500, message = "Cannot submit more than 500 adjustments at once")
+    private List<@Valid @NotNull StockAdjustmentDTO> adjustments;
+}
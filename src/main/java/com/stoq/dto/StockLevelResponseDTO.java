@@ -0,0 +1,23 @@
+package com.stoq.dto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * 库存响应(列表查询连接模板名称和单位后直接构造)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLevelResponseDTO {
+    
+    private Long stoqId;
+    private Long productTemplateId;
+    private String productTemplateName;
+    private String unit;
+    private Long quantity;
+    private Long reserved; // 已预留,可用数量为quantity - reserved
+    private Long lowStockThreshold;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,24 @@
+package com.stoq.dto;
+import com.stoq.enums.StockMovementType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * 库存流水响应
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovementResponseDTO {
+    
+    private Long id;
+    private Long stoqId;
+    private Long productTemplateId;
+    private StockMovementType type;
+    private Long delta;
+    private String reference;
+    private String creatorEmail;
+    private LocalDateTime createdAt;
+}
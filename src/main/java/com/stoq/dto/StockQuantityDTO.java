@@ -0,0 +1,16 @@
+package com.stoq.dto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 历史时刻的库存数量(快照数量与流水合计相加得到)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockQuantityDTO {
+    
+    private Long productTemplateId;
+    private Long quantity;
+}
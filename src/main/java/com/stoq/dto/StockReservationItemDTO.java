@@ -0,0 +1,22 @@
+package com.stoq.dto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import javax.validation.constraints.*;
+
+/**
+ * 预留的商品和数量
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservationItemDTO {
+    
+    @NotNull(message = "Product template ID cannot be empty")
+    private Long productTemplateId;
+    
+    @NotNull(message = "Quantity cannot be empty")
+    @Min(value = 1, message = "Quantity must be between 1 and 1000000")
+    @Max(value = 1000000, message = "Quantity must be between 1 and 1000000")
+    private Long quantity;
+}
@@ -0,0 +1,24 @@
+package com.stoq.dto;
+import lombok.Data;
+import javax.validation.Valid;
+import javax.validation.constraints.*;
+import java.util.List;
+
+/**
+ * 预留请求: 全部商品都有足够的可用数量时才会预留
+ */
+@Data
+public class StockReservationRequestDTO {
+    
+    @Size(max = 100, message = "Reference cannot exceed 100 characters")
+    private String reference;
+    
+    // 预留有效期(秒),为空时使用默认值
+    @Min(value = 1, message = "TTL must be between 1 and 86400 seconds")
+    @Max(value = 86400, message = "TTL must be between 1 and 86400 seconds")
+    private Integer ttlSeconds;
+    
+    @NotEmpty(message = "Items cannot be empty")
+    @Size(max = 500, message = "Cannot reserve more than 500 items at once")
+    private List<@Valid @NotNull StockReservationItemDTO> items;
+}
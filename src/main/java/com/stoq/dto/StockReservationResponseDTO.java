@@ -0,0 +1,21 @@
+package com.stoq.dto;
+import com.stoq.enums.StockReservationStatus;
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 库存预留响应
+ */
+@Data
+public class StockReservationResponseDTO {
+    
+    private Long id;
+    private Long stoqId;
+    private StockReservationStatus status;
+    private String reference;
+    private List<StockReservationItemDTO> items;
+    private String creatorEmail;
+    private LocalDateTime createdAt;
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,22 @@
+package com.stoq.dto;
+import lombok.Data;
+import javax.validation.Valid;
+import javax.validation.constraints.*;
+import java.util.List;
+
+/**
+ * 调拨请求: 从路径中的仓库转出到目标仓库(两个仓库需属于同一集群),items中的delta为转移的数量
+ */
+@Data
+public class StockTransferRequestDTO {
+    
+    @NotNull(message = "Target stoq ID cannot be empty")
+    private Long targetStoqId;
+    
+    @Size(max = 100, message = "Reference cannot exceed 100 characters")
+    private String reference;
+    
+    @NotEmpty(message = "Items cannot be empty")
+    @Size(max = 500, message = "Cannot transfer more than 500 items at once")
+    private List<@Valid @NotNull StockAdjustmentDTO> items;
+}
@@ -0,0 +1,22 @@
+package com.stoq.dto;
+import com.stoq.enums.StocktakeStatus;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 盘点响应
+ */
+@Data
+public class StocktakeResponseDTO {
+    
+    private Long id;
+    private Long stoqId;
+    private StocktakeStatus status;
+    private String reference;
+    private Boolean fullCount;
+    private Long countedScans;
+    private Long unknownScans;
+    private String creatorEmail;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+}
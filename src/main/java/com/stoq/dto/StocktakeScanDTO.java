@@ -0,0 +1,27 @@
+package com.stoq.dto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import javax.validation.constraints.*;
+
+/**
+ * 一次扫码(上传时逐条流式读取)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StocktakeScanDTO {
+    
+    @NotBlank(message = "Code cannot be empty")
+    @Size(max = 100, message = "Code cannot exceed 100 characters")
+    private String code; // 条形码或二维码
+    
+    // 本次扫到的件数,为空时为1
+    @Min(value = 1, message = "Quantity must be between 1 and 1000000")
+    @Max(value = 1000000, message = "Quantity must be between 1 and 1000000")
+    private Long quantity;
+    
+    // 扫码枪生成的扫码ID,同一上传中ID相同的扫码只计一次
+    @Size(max = 100, message = "Scan ID cannot exceed 100 characters")
+    private String scanId;
+}
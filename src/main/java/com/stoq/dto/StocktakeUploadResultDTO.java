@@ -0,0 +1,20 @@
+package com.stoq.dto;
+import lombok.Data;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 扫码上传结果
+ */
+@Data
+public class StocktakeUploadResultDTO {
+    
+    private String uploadId;
+    private boolean duplicateUpload; // 该批次之前已计入,本次未重复计数
+    private int totalScans; // 读取的扫码数
+    private int countedScans; // 计入盘点的扫码数
+    private int duplicateScans; // 扫码ID重复而忽略的扫码数
+    private int invalidScans; // 格式错误的扫码数
+    private int unknownScans; // 条码未匹配到商品的扫码数
+    private List<String> unknownCodes = new ArrayList<>(); // 未匹配的条码(去重,最多返回100个)
+}
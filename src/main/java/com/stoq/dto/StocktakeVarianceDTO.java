@@ -0,0 +1,20 @@
+package com.stoq.dto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 盘点差异: 盘点数量与账面数量不一致的商品(variance = counted - expected)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StocktakeVarianceDTO {
+    
+    private Long productTemplateId;
+    private String productTemplateName;
+    private String unit;
+    private Long expected; // 账面数量(stock_levels.quantity)
+    private Long counted; // 盘点数量
+    private Long variance;
+}
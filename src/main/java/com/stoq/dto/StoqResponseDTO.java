@@ -1,8 +1,15 @@
 package com.stoq.dto;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
+/**
+ * 仓库响应(列表查询连接集群名称后直接构造)
+ */
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class StoqResponseDTO {
     
     private Long id;
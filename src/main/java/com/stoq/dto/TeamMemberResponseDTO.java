@@ -1,9 +1,16 @@
 package com.stoq.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
+/**
+ * 团队成员响应(列表查询连接团队名称后直接构造)
+ */
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class TeamMemberResponseDTO {
     
     private Long id;
@@ -1,8 +1,15 @@
 package com.stoq.dto;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
+/**
+ * 团队响应(列表查询连接集群名称后直接构造)
+ */
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class TeamResponseDTO {
     
     private Long id;
@@ -0,0 +1,59 @@
+package com.stoq.entity;
+import com.stoq.enums.EmailOutboxStatus;
+import lombok.Data;
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 邮件发件箱: 与业务数据在同一事务中写入,由EmailOutboxRelay异步发送
+ */
+@Entity
+@Table(name = "email_outbox")
+@Data
+public class EmailOutbox {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false, length = 100)
+    private String recipient; // 收件人邮箱
+    
+    @Column(length = 100)
+    private String sender; // 发件人(为空时使用邮件服务器默认值)
+    
+    @Column(nullable = false, length = 200)
+    private String subject;
+    
+    @Column(nullable = false, length = 4000)
+    private String body;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EmailOutboxStatus status = EmailOutboxStatus.PENDING;
+    
+    @Column(nullable = false)
+    private Integer attempts = 0; // 已失败的发送次数
+    
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt; // 下次可发送时间(被领取时延后到租约到期)
+    
+    @Column(length = 36)
+    private String leaseToken; // 领取该行的批次标识
+    
+    @Column(length = 500)
+    private String lastError;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    
+    private LocalDateTime sentAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+}
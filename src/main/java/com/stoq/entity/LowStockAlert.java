@@ -0,0 +1,34 @@
+package com.stoq.entity;
+import lombok.Data;
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 低库存提醒: 商品可用数量降到阈值以下时记录一条,由LowStockAlertService按仓库合并后发送摘要邮件
+ */
+@Entity
+@Table(name = "low_stock_alerts")
+@Data
+public class LowStockAlert {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private Long stoqId;
+    
+    @Column(nullable = false)
+    private Long productTemplateId;
+    
+    @Column(nullable = false)
+    private Long quantity; // 触发时的可用数量
+    
+    @Column(nullable = false)
+    private Long threshold; // 触发时的阈值
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    
+    private LocalDateTime notifiedAt; // 已写入摘要邮件的时间,为空表示待发送
+}
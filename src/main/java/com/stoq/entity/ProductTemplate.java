@@ -1,11 +1,19 @@
 package com.stoq.entity;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
 import javax.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
-@Table(name = "product_templates")
+@Table(name = "product_templates", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_product_templates_cluster_bar_code", columnNames = {"clusterId", "barCode"}),
+    @UniqueConstraint(name = "uk_product_templates_cluster_qr_code", columnNames = {"clusterId", "qrCode"})
+})
 @Data
 public class ProductTemplate {
     
@@ -16,6 +24,9 @@ public class ProductTemplate {
     @Column(nullable = false)
     private Long categoryId; // 商品分类ID
     
+    @Column(nullable = false)
+    private Long clusterId; // 所属集群ID(与分类一致,条形码/二维码在集群内唯一)
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "categoryId", insertable = false, updatable = false)
     private ProductCategory category;
@@ -26,8 +37,15 @@ public class ProductTemplate {
     @Column(length = 1000)
     private String description; // 模板描述
     
-    @Column(columnDefinition = "LONGTEXT")
-    private String images; // 图片URL列表(JSON格式,逗号分隔)
+    // 图片URL列表(按position排序),存放在product_template_images表,按需懒加载
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "product_template_images", joinColumns = @JoinColumn(name = "templateId"))
+    @OrderColumn(name = "position")
+    @Column(name = "url", nullable = false, length = 1000)
+    @BatchSize(size = 50)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private List<String> images = new ArrayList<>();
     
     @Column(nullable = false, length = 100)
     private String unit; // 单位(件、盒、箱等)
@@ -0,0 +1,43 @@
+package com.stoq.entity;
+import lombok.Data;
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 库存: 某个商品模板在某个仓库中的数量
+ * 数量只通过StockLevelRepository的原子更新语句修改,不要读出后再保存实体
+ */
+@Entity
+@Table(name = "stock_levels", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_stock_levels_stoq_product_template", columnNames = {"stoqId", "productTemplateId"})
+})
+@Data
+public class StockLevel {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private Long stoqId; // 仓库ID
+    
+    @Column(nullable = false)
+    private Long productTemplateId; // 商品模板ID
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "productTemplateId", insertable = false, updatable = false)
+    private ProductTemplate productTemplate;
+    
+    @Column(nullable = false)
+    private Long quantity = 0L; // 现有数量(不会小于0)
+    
+    @Column(nullable = false)
+    private Long reserved = 0L; // 其中已被预留的数量(不大于quantity)
+    
+    private Long lowStockThreshold; // 低库存阈值: 可用数量不大于此值时提醒,为空表示不提醒
+    
+    private LocalDateTime lowStockAlertedAt; // 已发出低库存提醒的时间,可用数量回到阈值以上后清空
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
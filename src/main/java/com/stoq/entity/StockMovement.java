@@ -0,0 +1,43 @@
+package com.stoq.entity;
+import com.stoq.enums.StockMovementType;
+import lombok.Data;
+import org.hibernate.annotations.Immutable;
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 库存流水: 只追加不修改,由StockMovementJournal批量插入
+ * 与stock_levels在同一事务中写入,任一仓库商品的流水合计等于其当前数量
+ */
+@Entity
+@Immutable
+@Table(name = "stock_movements")
+@Data
+public class StockMovement {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private Long stoqId; // 仓库ID
+    
+    @Column(nullable = false)
+    private Long productTemplateId; // 商品模板ID
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StockMovementType type;
+    
+    @Column(nullable = false)
+    private Long delta; // 数量变化(正数增加,负数减少)
+    
+    @Column(length = 100)
+    private String reference; // 业务单号,调拨的转出和转入两条流水相同
+    
+    @Column(length = 100)
+    private String creatorEmail;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
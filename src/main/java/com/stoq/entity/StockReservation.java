@@ -0,0 +1,54 @@
+package com.stoq.entity;
+import com.stoq.enums.StockReservationStatus;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
+import javax.persistence.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 库存预留: 订单拣货前锁定一个仓库中若干商品的数量(计入stock_levels.reserved)
+ * 状态只通过StockReservationRepository的条件更新从ACTIVE转出,确认、释放和过期互斥
+ */
+@Entity
+@Table(name = "stock_reservations")
+@Data
+public class StockReservation {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private Long stoqId; // 仓库ID
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StockReservationStatus status = StockReservationStatus.ACTIVE;
+    
+    @Column(length = 100)
+    private String reference; // 业务单号(如订单号)
+    
+    // 预留的商品和数量,创建后不再修改
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "stock_reservation_items", joinColumns = @JoinColumn(name = "reservationId"))
+    @BatchSize(size = 50)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private List<StockReservationItem> items = new ArrayList<>();
+    
+    @Column(nullable = false, length = 100)
+    private String creatorEmail;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(nullable = false)
+    private LocalDateTime expiresAt; // 超过此时间未确认的预留会被释放
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,22 @@
+package com.stoq.entity;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+
+/**
+ * 预留中的一个商品
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservationItem {
+    
+    @Column(nullable = false)
+    private Long productTemplateId;
+    
+    @Column(nullable = false)
+    private Long quantity;
+}
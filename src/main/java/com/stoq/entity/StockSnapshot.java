@@ -0,0 +1,33 @@
+package com.stoq.entity;
+import lombok.Data;
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 库存快照: 某次快照时刻(仓库, 商品模板)的数量,数量为0的商品不保存
+ * 由上一次快照加上两次快照之间的流水压缩得到,历史查询只需再累加快照之后的流水
+ */
+@Entity
+@Table(name = "stock_snapshots", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_stock_snapshots_at_stoq_product_template",
+            columnNames = {"stoqId", "snapshotAt", "productTemplateId"})
+})
+@Data
+public class StockSnapshot {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private LocalDateTime snapshotAt; // 包含此时刻及之前的所有流水
+    
+    @Column(nullable = false)
+    private Long stoqId;
+    
+    @Column(nullable = false)
+    private Long productTemplateId;
+    
+    @Column(nullable = false)
+    private Long quantity;
+}
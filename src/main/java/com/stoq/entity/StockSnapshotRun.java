@@ -0,0 +1,30 @@
+package com.stoq.entity;
+import lombok.Data;
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 快照批次: 每个快照时刻一行,唯一约束保证多实例中只有一个实例执行;
+ * completedAt为空表示尚未完成(或执行中断),查询时忽略
+ */
+@Entity
+@Table(name = "stock_snapshot_runs", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_stock_snapshot_runs_snapshot_at", columnNames = {"snapshotAt"})
+})
+@Data
+public class StockSnapshotRun {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private LocalDateTime snapshotAt;
+    
+    private Long rowCount; // 写入的快照行数
+    
+    @Column(nullable = false)
+    private LocalDateTime startedAt;
+    
+    private LocalDateTime completedAt;
+}
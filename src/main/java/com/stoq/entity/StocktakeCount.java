@@ -0,0 +1,28 @@
+package com.stoq.entity;
+import lombok.Data;
+import javax.persistence.*;
+
+/**
+ * 盘点计数: 一次盘点中某个商品模板扫到的数量合计
+ * 只通过StocktakeService的JDBC批量插入累加
+ */
+@Entity
+@Table(name = "stocktake_counts", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_stocktake_counts_session_product_template", columnNames = {"sessionId", "productTemplateId"})
+})
+@Data
+public class StocktakeCount {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private Long sessionId; // 盘点ID
+    
+    @Column(nullable = false)
+    private Long productTemplateId; // 商品模板ID
+    
+    @Column(nullable = false)
+    private Long counted; // 扫到的数量
+}
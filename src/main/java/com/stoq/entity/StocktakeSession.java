@@ -0,0 +1,49 @@
+package com.stoq.entity;
+import com.stoq.enums.StocktakeStatus;
+import lombok.Data;
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 盘点: 一个仓库的一次盘点,扫码数量合计在stocktake_counts中
+ * 状态和计数只通过StocktakeSessionRepository的条件更新修改,上传与完成、取消在这一行上互斥
+ */
+@Entity
+@Table(name = "stocktake_sessions")
+@Data
+public class StocktakeSession {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private Long stoqId; // 仓库ID
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StocktakeStatus status = StocktakeStatus.OPEN;
+    
+    @Column(length = 100)
+    private String reference; // 盘点单号
+    
+    @Column(nullable = false)
+    private Boolean fullCount = false; // 全盘: 未扫到的商品按0计算差异;否则只比较扫到的商品
+    
+    @Column(nullable = false)
+    private Long countedScans = 0L; // 已计入的扫码数
+    
+    @Column(nullable = false)
+    private Long unknownScans = 0L; // 条码未匹配到商品的扫码数
+    
+    @Column(nullable = false, length = 100)
+    private String creatorEmail;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    
+    private LocalDateTime completedAt; // 完成或取消的时间
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
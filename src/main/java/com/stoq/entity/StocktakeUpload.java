@@ -0,0 +1,34 @@
+package com.stoq.entity;
+import lombok.Data;
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 已计入的扫码上传: 扫码枪重传同一批次(相同uploadId)时不再重复计数
+ */
+@Entity
+@Table(name = "stocktake_uploads", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_stocktake_uploads_session_upload", columnNames = {"sessionId", "uploadId"})
+})
+@Data
+public class StocktakeUpload {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private Long sessionId; // 盘点ID
+    
+    @Column(nullable = false, length = 100)
+    private String uploadId; // 客户端生成的批次ID
+    
+    @Column(nullable = false)
+    private Long countedScans; // 本批次计入的扫码数
+    
+    @Column(nullable = false, length = 100)
+    private String creatorEmail;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
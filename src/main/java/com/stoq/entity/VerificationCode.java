@@ -24,6 +24,9 @@ public class VerificationCode {
     @Column(nullable = false)
     private Boolean verified = false; // 是否已验证
     
+    @Column(nullable = false)
+    private Integer attempts = 0; // 已校验次数(达到上限后删除)
+    
     @Column(nullable = false)
     private LocalDateTime createdAt;
     
@@ -0,0 +1,10 @@
+package com.stoq.enums;
+/**
+ * 邮件发件箱状态枚举
+ */
+public enum EmailOutboxStatus {
+    
+    PENDING, // 待发送(含等待重试)
+    SENT,    // 已发送
+    FAILED   // 超过最大尝试次数,不再发送
+}
@@ -0,0 +1,37 @@
+package com.stoq.enums;
+/**
+ * 导出格式枚举
+ */
+public enum ExportFormat {
+    
+    NDJSON("ndjson", "application/x-ndjson"),
+    CSV("csv", "text/csv");
+    
+    private final String code;
+    private final String contentType;
+    
+    ExportFormat(String code, String contentType) {
+        this.code = code;
+        this.contentType = contentType;
+    }
+    
+    public String getCode() {
+        return code;
+    }
+    
+    public String getContentType() {
+        return contentType;
+    }
+    
+    /**
+     * 根据code获取枚举(不区分大小写)
+     */
+    public static ExportFormat fromCode(String code) {
+        for (ExportFormat format : ExportFormat.values()) {
+            if (format.code.equalsIgnoreCase(code)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported export format: " + code);
+    }
+}
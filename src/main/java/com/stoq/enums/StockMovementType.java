@@ -0,0 +1,14 @@
+package com.stoq.enums;
+/**
+ * 库存流水类型枚举
+ */
+public enum StockMovementType {
+    
+    OPENING,      // 期初数量(流水表启用前已有的库存)
+    RECEIVE,      // 入库
+    PICK,         // 拣货出库
+    ADJUST,       // 盘点或手工调整(可正可负)
+    TRANSFER_OUT, // 调拨转出
+    TRANSFER_IN,  // 调拨转入
+    CLOSING       // 期末清零(删除模板时冲销剩余库存)
+}
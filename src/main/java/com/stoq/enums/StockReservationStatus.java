@@ -0,0 +1,11 @@
+package com.stoq.enums;
+/**
+ * 库存预留状态枚举
+ */
+public enum StockReservationStatus {
+    
+    ACTIVE,    // 已预留,等待确认或释放
+    CONFIRMED, // 已确认(预留数量从库存中扣除)
+    RELEASED,  // 已释放
+    EXPIRED    // 超时未确认,由后台任务释放
+}
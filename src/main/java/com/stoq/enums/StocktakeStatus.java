@@ -0,0 +1,10 @@
+package com.stoq.enums;
+/**
+ * 盘点状态枚举
+ */
+public enum StocktakeStatus {
+    
+    OPEN,      // 盘点中,可以上传扫码
+    COMPLETED, // 已完成(差异已调整到库存)
+    CANCELLED  // 已取消,库存不变
+}
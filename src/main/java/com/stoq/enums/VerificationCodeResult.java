@@ -0,0 +1,10 @@
+package com.stoq.enums;
+/**
+ * 验证码校验结果枚举(Redis和数据库备份含义相同)
+ */
+public enum VerificationCodeResult {
+    
+    MATCH,    // 验证码正确,已删除
+    MISMATCH, // 验证码错误(错误次数达到上限时验证码被删除)
+    ABSENT    // 验证码不存在或已过期
+}
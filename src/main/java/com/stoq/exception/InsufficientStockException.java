@@ -0,0 +1,6 @@
+package com.stoq.exception;
+public class InsufficientStockException extends RuntimeException {
+    public InsufficientStockException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,6 @@
+package com.stoq.exception;
+public class ReservationStateException extends RuntimeException {
+    public ReservationStateException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,6 @@
+package com.stoq.exception;
+public class StocktakeStateException extends RuntimeException {
+    public StocktakeStateException(String message) {
+        super(message);
+    }
+}
@@ -1,5 +1,7 @@
 package com.stoq.repository;
 import com.stoq.entity.ClusterMember;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -21,6 +23,9 @@ public interface ClusterMemberRepository extends JpaRepository<ClusterMember, Lo
     // 根据集群ID和角色查找成员
     List<ClusterMember> findByClusterIdAndRole(Long clusterId, String role);
     
+    // 游标分页: 根据集群ID查找成员
+    Slice<ClusterMember> findByClusterIdAndIdGreaterThanOrderByIdAsc(Long clusterId, Long id, Pageable pageable);
+    
     // 根据集群ID删除所有成员
     void deleteByClusterId(Long clusterId);
 }
@@ -1,6 +1,11 @@
 package com.stoq.repository;
+import com.stoq.dto.ClusterResponseDTO;
 import com.stoq.entity.Cluster;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -20,4 +25,20 @@ public interface ClusterRepository extends JpaRepository<Cluster, Long> {
     
     // 根据类型查找
     List<Cluster> findByType(String type);
+    
+    // 列表响应的构造器投影
+    String RESPONSE_SELECT = "SELECT new com.stoq.dto.ClusterResponseDTO(c.id, c.name, c.logo, c.address, c.countryId, "
+            + "c.city, c.field, c.employeeCount, c.type, c.registrationNumber, c.ownerEmail, c.createdAt, c.updatedAt) "
+            + "FROM Cluster c ";
+    
+    // 游标分页投影: 根据创建者邮箱查找集群响应(不加载实体)
+    @Query(RESPONSE_SELECT + "WHERE c.ownerEmail = :ownerEmail AND c.id > :id ORDER BY c.id")
+    Slice<ClusterResponseDTO> findResponsesByOwnerEmail(@Param("ownerEmail") String ownerEmail, @Param("id") Long id, Pageable pageable);
+    
+    // 游标分页投影: 查找所有集群响应
+    @Query(RESPONSE_SELECT + "WHERE c.id > :id ORDER BY c.id")
+    Slice<ClusterResponseDTO> findResponses(@Param("id") Long id, Pageable pageable);
+    
+    // 根据ID和创建者邮箱检查集群是否存在
+    boolean existsByIdAndOwnerEmail(Long id, String ownerEmail);
 }
@@ -0,0 +1,52 @@
+package com.stoq.repository;
+
+import com.stoq.entity.EmailOutbox;
+import com.stoq.enums.EmailOutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+    
+    // 到期待发送的行ID(按下次发送时间排序)
+    @Query("SELECT o.id FROM EmailOutbox o WHERE o.status = :status AND o.nextAttemptAt <= :now ORDER BY o.nextAttemptAt")
+    List<Long> findDueIds(@Param("status") EmailOutboxStatus status, @Param("now") LocalDateTime now, Pageable pageable);
+    
+    // 领取: 仅当行仍然到期未被其它实例领取时才会更新,返回实际领取的行数
+    @Modifying
+    @Query("UPDATE EmailOutbox o SET o.leaseToken = :token, o.nextAttemptAt = :leaseUntil "
+            + "WHERE o.id IN :ids AND o.status = com.stoq.enums.EmailOutboxStatus.PENDING AND o.nextAttemptAt <= :now")
+    int claim(@Param("ids") Collection<Long> ids, @Param("token") String token,
+              @Param("leaseUntil") LocalDateTime leaseUntil, @Param("now") LocalDateTime now);
+    
+    // 根据领取批次查找
+    List<EmailOutbox> findByLeaseToken(String leaseToken);
+    
+    // 续租: 延长仍在发送队列中的领取批次的租约
+    @Modifying
+    @Query("UPDATE EmailOutbox o SET o.nextAttemptAt = :leaseUntil "
+            + "WHERE o.leaseToken IN :tokens AND o.status = com.stoq.enums.EmailOutboxStatus.PENDING")
+    int renewLease(@Param("tokens") Collection<String> tokens, @Param("leaseUntil") LocalDateTime leaseUntil);
+    
+    // 批量标记为已发送(仅限租约token仍匹配的行)
+    @Modifying
+    @Query("UPDATE EmailOutbox o SET o.status = com.stoq.enums.EmailOutboxStatus.SENT, o.sentAt = :now, "
+            + "o.leaseToken = NULL WHERE o.id IN :ids AND o.leaseToken = :token")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("token") String token, @Param("now") LocalDateTime now);
+    
+    // 统计指定状态的行数
+    long countByStatus(EmailOutboxStatus status);
+    
+    // 删除早于指定时间发送的行
+    @Modifying
+    @Query("DELETE FROM EmailOutbox o WHERE o.status = com.stoq.enums.EmailOutboxStatus.SENT AND o.sentAt < :cutoff")
+    int deleteSentBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,37 @@
+package com.stoq.repository;
+import com.stoq.entity.LowStockAlert;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface LowStockAlertRepository extends JpaRepository<LowStockAlert, Long> {
+    
+    // 最早的待发送提醒已等待超过合并窗口的仓库
+    @Query("SELECT a.stoqId FROM LowStockAlert a WHERE a.notifiedAt IS NULL GROUP BY a.stoqId HAVING MIN(a.createdAt) <= :cutoff")
+    List<Long> findStoqIdsDue(@Param("cutoff") LocalDateTime cutoff);
+    
+    // 仓库的待发送提醒
+    List<LowStockAlert> findByStoqIdAndNotifiedAtIsNullOrderById(Long stoqId);
+    
+    // 标记为已发送,返回实际更新的行数(与查询时不一致说明已被其它实例发送)
+    @Modifying
+    @Query("UPDATE LowStockAlert a SET a.notifiedAt = :now WHERE a.id IN :ids AND a.notifiedAt IS NULL")
+    int markNotified(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+    
+    // 删除早于指定时间发送的提醒
+    @Modifying
+    @Query("DELETE FROM LowStockAlert a WHERE a.notifiedAt < :cutoff")
+    int deleteNotifiedBefore(@Param("cutoff") LocalDateTime cutoff);
+    
+    // 删除仓库的所有提醒
+    @Modifying
+    @Query("DELETE FROM LowStockAlert a WHERE a.stoqId = :stoqId")
+    int deleteByStoqId(@Param("stoqId") Long stoqId);
+}
@@ -1,6 +1,11 @@
 package com.stoq.repository;
+import com.stoq.dto.ProductCategoryResponseDTO;
 import com.stoq.entity.ProductCategory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -20,4 +25,17 @@ public interface ProductCategoryRepository extends JpaRepository<ProductCategory
     
     // 根据集群ID和分类名称查找
     Optional<ProductCategory> findByClusterIdAndName(Long clusterId, String name);
+    
+    // 列表响应的构造器投影
+    String RESPONSE_SELECT = "SELECT new com.stoq.dto.ProductCategoryResponseDTO(pc.id, pc.name, pc.description, "
+            + "pc.image, pc.clusterId, COALESCE(c.name, 'Unknown'), pc.creatorEmail, pc.createdAt, pc.updatedAt) "
+            + "FROM ProductCategory pc LEFT JOIN pc.cluster c ";
+    
+    // 游标分页投影: 根据集群ID查找分类响应(连接集群名称,不加载实体)
+    @Query(RESPONSE_SELECT + "WHERE pc.clusterId = :clusterId AND pc.id > :id ORDER BY pc.id")
+    Slice<ProductCategoryResponseDTO> findResponsesByClusterId(@Param("clusterId") Long clusterId, @Param("id") Long id, Pageable pageable);
+    
+    // 游标分页投影: 根据创建者邮箱查找分类响应
+    @Query(RESPONSE_SELECT + "WHERE pc.creatorEmail = :creatorEmail AND pc.id > :id ORDER BY pc.id")
+    Slice<ProductCategoryResponseDTO> findResponsesByCreatorEmail(@Param("creatorEmail") String creatorEmail, @Param("id") Long id, Pageable pageable);
 }
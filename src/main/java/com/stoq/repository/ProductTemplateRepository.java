@@ -1,8 +1,15 @@
 package com.stoq.repository;
+import com.stoq.dto.ProductTemplateSummaryDTO;
 import com.stoq.entity.ProductTemplate;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,4 +27,47 @@ public interface ProductTemplateRepository extends JpaRepository<ProductTemplate
     
     // 根据分类ID和模板名称查找
     Optional<ProductTemplate> findByCategoryIdAndName(Long categoryId, String name);
+    
+    // 列表摘要的构造器投影(连接分类名称,不加载实体和图片)
+    String SUMMARY_SELECT = "SELECT new com.stoq.dto.ProductTemplateSummaryDTO(t.id, t.name, t.unit, t.price, "
+            + "t.currency, t.supplier, t.supplierCountry, t.barCode, t.qrCode, t.categoryId, c.name, t.clusterId, "
+            + "t.creatorEmail, t.createdAt, t.updatedAt) "
+            + "FROM ProductTemplate t LEFT JOIN t.category c ";
+    
+    // 游标分页投影: 根据分类ID查找模板摘要
+    @Query(SUMMARY_SELECT + "WHERE t.categoryId = :categoryId AND t.id > :id ORDER BY t.id")
+    Slice<ProductTemplateSummaryDTO> findSummariesByCategoryId(@Param("categoryId") Long categoryId, @Param("id") Long id, Pageable pageable);
+    
+    // 游标分页投影: 根据创建者邮箱查找模板摘要
+    @Query(SUMMARY_SELECT + "WHERE t.creatorEmail = :creatorEmail AND t.id > :id ORDER BY t.id")
+    Slice<ProductTemplateSummaryDTO> findSummariesByCreatorEmail(@Param("creatorEmail") String creatorEmail, @Param("id") Long id, Pageable pageable);
+    
+    // 批量查询已存在的(分类ID, 模板名称),返回[categoryId, name]
+    @Query("SELECT t.categoryId, t.name FROM ProductTemplate t WHERE t.categoryId IN :categoryIds AND t.name IN :names")
+    List<Object[]> findExistingNames(@Param("categoryIds") Collection<Long> categoryIds,
+                                     @Param("names") Collection<String> names);
+    
+    // 扫码: 按集群和条形码批量查找(走唯一索引),同时加载分类
+    @EntityGraph(attributePaths = "category")
+    List<ProductTemplate> findByClusterIdAndBarCodeIn(Long clusterId, Collection<String> barCodes);
+    
+    // 扫码: 按集群和二维码批量查找(走唯一索引),同时加载分类
+    @EntityGraph(attributePaths = "category")
+    List<ProductTemplate> findByClusterIdAndQrCodeIn(Long clusterId, Collection<String> qrCodes);
+    
+    // 检查条形码在集群内是否已被使用
+    boolean existsByClusterIdAndBarCodeAndIdNot(Long clusterId, String barCode, Long id);
+    
+    // 检查二维码在集群内是否已被使用
+    boolean existsByClusterIdAndQrCodeAndIdNot(Long clusterId, String qrCode, Long id);
+    
+    // 批量查询集群内已使用的条形码,返回[clusterId, barCode]
+    @Query("SELECT t.clusterId, t.barCode FROM ProductTemplate t WHERE t.clusterId IN :clusterIds AND t.barCode IN :codes")
+    List<Object[]> findExistingBarCodes(@Param("clusterIds") Collection<Long> clusterIds,
+                                        @Param("codes") Collection<String> codes);
+    
+    // 批量查询集群内已使用的二维码,返回[clusterId, qrCode]
+    @Query("SELECT t.clusterId, t.qrCode FROM ProductTemplate t WHERE t.clusterId IN :clusterIds AND t.qrCode IN :codes")
+    List<Object[]> findExistingQrCodes(@Param("clusterIds") Collection<Long> clusterIds,
+                                       @Param("codes") Collection<String> codes);
 }
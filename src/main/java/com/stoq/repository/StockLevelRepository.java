@@ -0,0 +1,122 @@
+package com.stoq.repository;
+import com.stoq.dto.StockLevelResponseDTO;
+import com.stoq.entity.StockLevel;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StockLevelRepository extends JpaRepository<StockLevel, Long> {
+    
+    // 根据仓库和模板查找库存
+    Optional<StockLevel> findByStoqIdAndProductTemplateId(Long stoqId, Long productTemplateId);
+    
+    // 原子增减数量: 在同一条UPDATE中判断结果不小于已预留的数量,只锁定这一行且不需要先读出数量;返回0表示行不存在或库存不足
+    @Modifying
+    @Query("UPDATE StockLevel s SET s.quantity = s.quantity + :delta, s.updatedAt = :now "
+            + "WHERE s.stoqId = :stoqId AND s.productTemplateId = :productTemplateId AND s.quantity + :delta >= s.reserved")
+    int adjustQuantity(@Param("stoqId") Long stoqId, @Param("productTemplateId") Long productTemplateId,
+                       @Param("delta") long delta, @Param("now") LocalDateTime now);
+    
+    // 首次入库: 行不存在时插入,并发插入同一行时累加到已有的行
+    @Modifying
+    @Query(value = "INSERT INTO stock_levels (stoq_id, product_template_id, quantity, reserved, updated_at) "
+            + "VALUES (:stoqId, :productTemplateId, :quantity, 0, :now) "
+            + "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity), updated_at = VALUES(updated_at)",
+            nativeQuery = true)
+    int insertOrAdd(@Param("stoqId") Long stoqId, @Param("productTemplateId") Long productTemplateId,
+                    @Param("quantity") long quantity, @Param("now") LocalDateTime now);
+    
+    // 预留: 可用数量(quantity - reserved)足够时增加reserved;返回0表示行不存在或可用数量不足
+    @Modifying
+    @Query("UPDATE StockLevel s SET s.reserved = s.reserved + :quantity, s.updatedAt = :now "
+            + "WHERE s.stoqId = :stoqId AND s.productTemplateId = :productTemplateId AND s.quantity - s.reserved >= :quantity")
+    int reserve(@Param("stoqId") Long stoqId, @Param("productTemplateId") Long productTemplateId,
+                @Param("quantity") long quantity, @Param("now") LocalDateTime now);
+    
+    // 释放预留
+    @Modifying
+    @Query("UPDATE StockLevel s SET s.reserved = s.reserved - :quantity, s.updatedAt = :now "
+            + "WHERE s.stoqId = :stoqId AND s.productTemplateId = :productTemplateId AND s.reserved >= :quantity")
+    int release(@Param("stoqId") Long stoqId, @Param("productTemplateId") Long productTemplateId,
+                @Param("quantity") long quantity, @Param("now") LocalDateTime now);
+    
+    // 确认预留: 从数量和预留数量中同时扣除
+    @Modifying
+    @Query("UPDATE StockLevel s SET s.quantity = s.quantity - :quantity, s.reserved = s.reserved - :quantity, s.updatedAt = :now "
+            + "WHERE s.stoqId = :stoqId AND s.productTemplateId = :productTemplateId AND s.reserved >= :quantity")
+    int consumeReserved(@Param("stoqId") Long stoqId, @Param("productTemplateId") Long productTemplateId,
+                        @Param("quantity") long quantity, @Param("now") LocalDateTime now);
+    
+    // 设置低库存阈值: 行不存在时插入数量为0的行
+    @Modifying
+    @Query(value = "INSERT INTO stock_levels (stoq_id, product_template_id, quantity, reserved, low_stock_threshold, updated_at) "
+            + "VALUES (:stoqId, :productTemplateId, 0, 0, :threshold, :now) "
+            + "ON DUPLICATE KEY UPDATE low_stock_threshold = VALUES(low_stock_threshold)",
+            nativeQuery = true)
+    int upsertLowStockThreshold(@Param("stoqId") Long stoqId, @Param("productTemplateId") Long productTemplateId,
+                                @Param("threshold") Long threshold, @Param("now") LocalDateTime now);
+    
+    // 需要检查低库存的行: 指定商品中设置了阈值或已提醒过的
+    @Query("SELECT s FROM StockLevel s WHERE s.stoqId = :stoqId AND s.productTemplateId IN :productTemplateIds "
+            + "AND (s.lowStockThreshold IS NOT NULL OR s.lowStockAlertedAt IS NOT NULL)")
+    List<StockLevel> findLowStockCandidates(@Param("stoqId") Long stoqId,
+                                            @Param("productTemplateIds") Collection<Long> productTemplateIds);
+    
+    // 标记已提醒: 条件与判断低库存相同,并发检查同一行时只有一个成功
+    @Modifying
+    @Query("UPDATE StockLevel s SET s.lowStockAlertedAt = :now WHERE s.id = :id AND s.lowStockAlertedAt IS NULL "
+            + "AND s.lowStockThreshold IS NOT NULL AND s.quantity - s.reserved <= s.lowStockThreshold")
+    int markLowStockAlerted(@Param("id") Long id, @Param("now") LocalDateTime now);
+    
+    // 可用数量回到阈值以上(或取消阈值)时清除提醒标记,下次低于阈值时再次提醒
+    @Modifying
+    @Query("UPDATE StockLevel s SET s.lowStockAlertedAt = NULL WHERE s.id = :id AND s.lowStockAlertedAt IS NOT NULL "
+            + "AND (s.lowStockThreshold IS NULL OR s.quantity - s.reserved > s.lowStockThreshold)")
+    int clearLowStockAlerted(@Param("id") Long id);
+    
+    // 列表响应的构造器投影
+    String RESPONSE_SELECT = "SELECT new com.stoq.dto.StockLevelResponseDTO(s.stoqId, s.productTemplateId, t.name, t.unit, "
+            + "s.quantity, s.reserved, s.lowStockThreshold, s.updatedAt) "
+            + "FROM StockLevel s LEFT JOIN s.productTemplate t ";
+    
+    // 游标分页投影: 仓库的库存,按模板ID排序(由唯一约束(stoq_id, product_template_id)覆盖)
+    @Query(RESPONSE_SELECT + "WHERE s.stoqId = :stoqId AND s.productTemplateId > :productTemplateId ORDER BY s.productTemplateId")
+    Slice<StockLevelResponseDTO> findResponsesByStoqId(@Param("stoqId") Long stoqId,
+                                                       @Param("productTemplateId") Long productTemplateId, Pageable pageable);
+    
+    // 投影: 仓库中指定模板的库存(一次查询读取批量调整后的结果)
+    @Query(RESPONSE_SELECT + "WHERE s.stoqId = :stoqId AND s.productTemplateId IN :productTemplateIds ORDER BY s.productTemplateId")
+    List<StockLevelResponseDTO> findResponsesByStoqIdAndProductTemplateIds(@Param("stoqId") Long stoqId,
+                                                                          @Param("productTemplateIds") Collection<Long> productTemplateIds);
+    
+    // 指定时间之后有库存变动的仓库(快照压缩时使用,stock_levels每个商品一行,远小于流水表)
+    @Query("SELECT DISTINCT s.stoqId FROM StockLevel s WHERE s.updatedAt > :since ORDER BY s.stoqId")
+    List<Long> findStoqIdsUpdatedAfter(@Param("since") LocalDateTime since);
+    
+    // 删除仓库的所有库存
+    @Modifying
+    @Query("DELETE FROM StockLevel s WHERE s.stoqId = :stoqId")
+    int deleteByStoqId(@Param("stoqId") Long stoqId);
+    
+    // 模板在各仓库的非零库存(加行锁,删除模板时据此写入清零流水,期间其它调整等待)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM StockLevel s WHERE s.productTemplateId = :productTemplateId AND s.quantity <> 0")
+    List<StockLevel> findNonZeroByProductTemplateIdForUpdate(@Param("productTemplateId") Long productTemplateId);
+    
+    // 删除模板在所有仓库的库存
+    @Modifying
+    @Query("DELETE FROM StockLevel s WHERE s.productTemplateId = :productTemplateId")
+    int deleteByProductTemplateId(@Param("productTemplateId") Long productTemplateId);
+}
@@ -0,0 +1,41 @@
+package com.stoq.repository;
+import com.stoq.dto.StockMovementResponseDTO;
+import com.stoq.dto.StockQuantityDTO;
+import com.stoq.entity.StockMovement;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 库存流水(只读查询,写入见StockMovementJournal)
+ */
+@Repository
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+    
+    // 列表响应的构造器投影
+    String RESPONSE_SELECT = "SELECT new com.stoq.dto.StockMovementResponseDTO(m.id, m.stoqId, m.productTemplateId, m.type, "
+            + "m.delta, m.reference, m.creatorEmail, m.createdAt) FROM StockMovement m ";
+    
+    // 游标分页投影: 仓库的流水,最新的在前(由(stoq_id, id)索引覆盖排序)
+    @Query(RESPONSE_SELECT + "WHERE m.stoqId = :stoqId AND m.id < :id ORDER BY m.id DESC")
+    Slice<StockMovementResponseDTO> findResponsesByStoqId(@Param("stoqId") Long stoqId, @Param("id") Long id, Pageable pageable);
+    
+    // 时间段内各商品的流水合计(from不含,to含),只扫描(stoq_id, created_at, product_template_id, delta)覆盖索引
+    @Query("SELECT new com.stoq.dto.StockQuantityDTO(m.productTemplateId, SUM(m.delta)) FROM StockMovement m "
+            + "WHERE m.stoqId = :stoqId AND m.createdAt > :from AND m.createdAt <= :to GROUP BY m.productTemplateId")
+    List<StockQuantityDTO> sumDeltas(@Param("stoqId") Long stoqId,
+                                     @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    // 同上,只统计一个商品
+    @Query("SELECT new com.stoq.dto.StockQuantityDTO(m.productTemplateId, SUM(m.delta)) FROM StockMovement m "
+            + "WHERE m.stoqId = :stoqId AND m.createdAt > :from AND m.createdAt <= :to "
+            + "AND m.productTemplateId = :productTemplateId GROUP BY m.productTemplateId")
+    List<StockQuantityDTO> sumDeltas(@Param("stoqId") Long stoqId, @Param("productTemplateId") Long productTemplateId,
+                                     @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
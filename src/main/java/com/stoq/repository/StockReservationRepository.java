@@ -0,0 +1,49 @@
+package com.stoq.repository;
+import com.stoq.entity.StockReservation;
+import com.stoq.enums.StockReservationStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+    
+    // 根据ID和仓库查找预留
+    Optional<StockReservation> findByIdAndStoqId(Long id, Long stoqId);
+    
+    // 确认: 仅当预留仍为ACTIVE且未过期时更新,返回0表示已确认、释放或过期
+    // (清空持久化上下文,之后读取的是更新后的状态;open-in-view下同一请求中先前加载的实体也会被清除)
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE StockReservation r SET r.status = com.stoq.enums.StockReservationStatus.CONFIRMED, r.updatedAt = :now "
+            + "WHERE r.id = :id AND r.status = com.stoq.enums.StockReservationStatus.ACTIVE AND r.expiresAt > :now")
+    int confirm(@Param("id") Long id, @Param("now") LocalDateTime now);
+    
+    // 释放或过期: 仅当预留仍为ACTIVE时更新
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE StockReservation r SET r.status = :status, r.updatedAt = :now "
+            + "WHERE r.id = :id AND r.status = com.stoq.enums.StockReservationStatus.ACTIVE")
+    int finish(@Param("id") Long id, @Param("status") StockReservationStatus status, @Param("now") LocalDateTime now);
+    
+    // 已过期但尚未释放的预留ID(按过期时间排序)
+    @Query("SELECT r.id FROM StockReservation r WHERE r.status = com.stoq.enums.StockReservationStatus.ACTIVE "
+            + "AND r.expiresAt <= :now ORDER BY r.expiresAt")
+    List<Long> findExpiredIds(@Param("now") LocalDateTime now, Pageable pageable);
+    
+    // 删除仓库所有预留的商品行(批量删除不会级联到@ElementCollection)
+    @Modifying
+    @Query(value = "DELETE FROM stock_reservation_items WHERE reservation_id IN "
+            + "(SELECT id FROM stock_reservations WHERE stoq_id = :stoqId)", nativeQuery = true)
+    int deleteItemsByStoqId(@Param("stoqId") Long stoqId);
+    
+    // 删除仓库的所有预留
+    @Modifying
+    @Query("DELETE FROM StockReservation r WHERE r.stoqId = :stoqId")
+    int deleteByStoqId(@Param("stoqId") Long stoqId);
+}
@@ -0,0 +1,29 @@
+package com.stoq.repository;
+import com.stoq.dto.StockQuantityDTO;
+import com.stoq.entity.StockSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, Long> {
+    
+    // 仓库在指定时刻之前(含)最近一次快照的时刻,没有快照时为null
+    @Query("SELECT MAX(s.snapshotAt) FROM StockSnapshot s WHERE s.stoqId = :stoqId AND s.snapshotAt <= :at")
+    LocalDateTime findLatestSnapshotAt(@Param("stoqId") Long stoqId, @Param("at") LocalDateTime at);
+    
+    // 仓库在某次快照中的各商品数量
+    @Query("SELECT new com.stoq.dto.StockQuantityDTO(s.productTemplateId, s.quantity) FROM StockSnapshot s "
+            + "WHERE s.stoqId = :stoqId AND s.snapshotAt = :snapshotAt")
+    List<StockQuantityDTO> findQuantities(@Param("stoqId") Long stoqId, @Param("snapshotAt") LocalDateTime snapshotAt);
+    
+    // 同上,只查一个商品
+    @Query("SELECT new com.stoq.dto.StockQuantityDTO(s.productTemplateId, s.quantity) FROM StockSnapshot s "
+            + "WHERE s.stoqId = :stoqId AND s.snapshotAt = :snapshotAt AND s.productTemplateId = :productTemplateId")
+    List<StockQuantityDTO> findQuantities(@Param("stoqId") Long stoqId, @Param("productTemplateId") Long productTemplateId,
+                                          @Param("snapshotAt") LocalDateTime snapshotAt);
+}
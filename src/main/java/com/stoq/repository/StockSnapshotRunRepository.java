@@ -0,0 +1,13 @@
+package com.stoq.repository;
+import com.stoq.entity.StockSnapshotRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface StockSnapshotRunRepository extends JpaRepository<StockSnapshotRun, Long> {
+    
+    // 最近一次完成的快照批次
+    Optional<StockSnapshotRun> findFirstByCompletedAtIsNotNullOrderBySnapshotAtDesc();
+}
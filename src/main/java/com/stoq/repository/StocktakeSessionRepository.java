@@ -0,0 +1,43 @@
+package com.stoq.repository;
+import com.stoq.entity.StocktakeSession;
+import com.stoq.enums.StocktakeStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface StocktakeSessionRepository extends JpaRepository<StocktakeSession, Long> {
+    
+    // 根据ID和仓库查找盘点
+    Optional<StocktakeSession> findByIdAndStoqId(Long id, Long stoqId);
+    
+    // 计入一批扫码: 仅当盘点仍为OPEN时更新,返回0表示已完成或取消(同时锁住盘点行,与完成、取消互斥)
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE StocktakeSession s SET s.countedScans = s.countedScans + :counted, "
+            + "s.unknownScans = s.unknownScans + :unknown, s.updatedAt = :now "
+            + "WHERE s.id = :id AND s.status = com.stoq.enums.StocktakeStatus.OPEN")
+    int addScans(@Param("id") Long id, @Param("counted") long counted, @Param("unknown") long unknown,
+                 @Param("now") LocalDateTime now);
+    
+    // 完成或取消: 仅当盘点仍为OPEN时更新
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE StocktakeSession s SET s.status = :status, s.completedAt = :now, s.updatedAt = :now "
+            + "WHERE s.id = :id AND s.status = com.stoq.enums.StocktakeStatus.OPEN")
+    int finish(@Param("id") Long id, @Param("status") StocktakeStatus status, @Param("now") LocalDateTime now);
+    
+    // 删除仓库所有盘点的计数
+    @Modifying
+    @Query(value = "DELETE FROM stocktake_counts WHERE session_id IN "
+            + "(SELECT id FROM stocktake_sessions WHERE stoq_id = :stoqId)", nativeQuery = true)
+    int deleteCountsByStoqId(@Param("stoqId") Long stoqId);
+    
+    // 删除仓库的所有盘点
+    @Modifying
+    @Query("DELETE FROM StocktakeSession s WHERE s.stoqId = :stoqId")
+    int deleteByStoqId(@Param("stoqId") Long stoqId);
+}
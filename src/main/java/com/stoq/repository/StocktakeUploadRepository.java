@@ -0,0 +1,20 @@
+package com.stoq.repository;
+import com.stoq.entity.StocktakeUpload;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StocktakeUploadRepository extends JpaRepository<StocktakeUpload, Long> {
+    
+    // 检查批次是否已计入(走(sessionId, uploadId)唯一索引)
+    boolean existsBySessionIdAndUploadId(Long sessionId, String uploadId);
+    
+    // 删除仓库所有盘点的上传记录
+    @Modifying
+    @Query(value = "DELETE FROM stocktake_uploads WHERE session_id IN "
+            + "(SELECT id FROM stocktake_sessions WHERE stoq_id = :stoqId)", nativeQuery = true)
+    int deleteByStoqId(@Param("stoqId") Long stoqId);
+}
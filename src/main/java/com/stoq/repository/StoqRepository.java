@@ -1,6 +1,11 @@
 package com.stoq.repository;
+import com.stoq.dto.StoqResponseDTO;
 import com.stoq.entity.Stoq;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -20,4 +25,17 @@ public interface StoqRepository extends JpaRepository<Stoq, Long> {
     
     // 根据管理员查找仓库
     List<Stoq> findByAdministrator(String administrator);
+    
+    // 列表响应的构造器投影
+    String RESPONSE_SELECT = "SELECT new com.stoq.dto.StoqResponseDTO(s.id, s.name, s.description, s.administrator, "
+            + "s.clusterId, COALESCE(c.name, 'Unknown'), s.creatorEmail, s.createdAt, s.updatedAt) "
+            + "FROM Stoq s LEFT JOIN s.cluster c ";
+    
+    // 游标分页投影: 根据集群ID查找仓库响应(连接集群名称,不加载实体)
+    @Query(RESPONSE_SELECT + "WHERE s.clusterId = :clusterId AND s.id > :id ORDER BY s.id")
+    Slice<StoqResponseDTO> findResponsesByClusterId(@Param("clusterId") Long clusterId, @Param("id") Long id, Pageable pageable);
+    
+    // 游标分页投影: 根据创建者邮箱查找仓库响应
+    @Query(RESPONSE_SELECT + "WHERE s.creatorEmail = :creatorEmail AND s.id > :id ORDER BY s.id")
+    Slice<StoqResponseDTO> findResponsesByCreatorEmail(@Param("creatorEmail") String creatorEmail, @Param("id") Long id, Pageable pageable);
 }
@@ -1,7 +1,12 @@
 package com.stoq.repository;
 
+import com.stoq.dto.TeamMemberResponseDTO;
 import com.stoq.entity.TeamMember;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -27,4 +32,18 @@ public interface TeamMemberRepository extends JpaRepository<TeamMember, Long> {
     
     // 根据关联的用户邮箱查找成员
     List<TeamMember> findByLinkedUserEmail(String linkedUserEmail);
+    
+    // 列表响应的构造器投影
+    String RESPONSE_SELECT = "SELECT new com.stoq.dto.TeamMemberResponseDTO(m.id, m.avatar, m.name, m.surname, "
+            + "m.description, m.countryId, m.city, m.stoq, m.email, m.phone, m.role, m.linkedUserEmail, "
+            + "m.teamId, COALESCE(t.name, 'Unknown'), m.creatorEmail, m.createdAt, m.updatedAt) "
+            + "FROM TeamMember m LEFT JOIN m.team t ";
+    
+    // 游标分页投影: 根据团队ID查找成员响应(连接团队名称,不加载实体)
+    @Query(RESPONSE_SELECT + "WHERE m.teamId = :teamId AND m.id > :id ORDER BY m.id")
+    Slice<TeamMemberResponseDTO> findResponsesByTeamId(@Param("teamId") Long teamId, @Param("id") Long id, Pageable pageable);
+    
+    // 游标分页投影: 根据创建者邮箱查找成员响应
+    @Query(RESPONSE_SELECT + "WHERE m.creatorEmail = :creatorEmail AND m.id > :id ORDER BY m.id")
+    Slice<TeamMemberResponseDTO> findResponsesByCreatorEmail(@Param("creatorEmail") String creatorEmail, @Param("id") Long id, Pageable pageable);
 }
@@ -1,6 +1,11 @@
 package com.stoq.repository;
+import com.stoq.dto.TeamResponseDTO;
 import com.stoq.entity.Team;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -17,4 +22,17 @@ public interface TeamRepository extends JpaRepository<Team, Long> {
     
     // 根据创建者邮箱查找所有团队
     List<Team> findByCreatorEmail(String creatorEmail);
+    
+    // 列表响应的构造器投影
+    String RESPONSE_SELECT = "SELECT new com.stoq.dto.TeamResponseDTO(t.id, t.name, t.logo, t.description, "
+            + "t.clusterId, COALESCE(c.name, 'Unknown'), t.creatorEmail, t.createdAt, t.updatedAt) "
+            + "FROM Team t LEFT JOIN t.cluster c ";
+    
+    // 游标分页投影: 根据集群ID查找团队响应(连接集群名称,不加载实体)
+    @Query(RESPONSE_SELECT + "WHERE t.clusterId = :clusterId AND t.id > :id ORDER BY t.id")
+    Slice<TeamResponseDTO> findResponsesByClusterId(@Param("clusterId") Long clusterId, @Param("id") Long id, Pageable pageable);
+    
+    // 游标分页投影: 根据创建者邮箱查找团队响应
+    @Query(RESPONSE_SELECT + "WHERE t.creatorEmail = :creatorEmail AND t.id > :id ORDER BY t.id")
+    Slice<TeamResponseDTO> findResponsesByCreatorEmail(@Param("creatorEmail") String creatorEmail, @Param("id") Long id, Pageable pageable);
 }
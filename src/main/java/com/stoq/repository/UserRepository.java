@@ -1,5 +1,7 @@
 package com.stoq.repository;
 import com.stoq.entity.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -17,4 +19,7 @@ public interface UserRepository extends JpaRepository<User, String> {
     
     // 根据手机号查找
     Optional<User> findByPhone(String phone);
+    
+    // 游标分页: 按邮箱顺序查找用户
+    Slice<User> findByEmailGreaterThanOrderByEmailAsc(String email, Pageable pageable);
 }
@@ -2,8 +2,12 @@ package com.stoq.repository;
 
 import com.stoq.entity.VerificationCode;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
@@ -12,6 +16,13 @@ public interface VerificationCodeRepository extends JpaRepository<VerificationCo
     // 根据邮箱、验证码和场景查找
     Optional<VerificationCode> findByEmailAndCodeAndScenario(String email, String code, String scenario);
     
+    // 占用一次校验机会: 仅当验证码未过期且次数未达上限时累加,返回0表示不存在、已过期或已用完
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE VerificationCode v SET v.attempts = v.attempts + 1 WHERE v.email = :email AND v.scenario = :scenario "
+            + "AND v.expiresAt > :now AND v.attempts < :maxAttempts")
+    int incrementAttempts(@Param("email") String email, @Param("scenario") String scenario,
+                          @Param("maxAttempts") int maxAttempts, @Param("now") LocalDateTime now);
+    
     // 根据邮箱和场景查找最新的验证码
     Optional<VerificationCode> findFirstByEmailAndScenarioOrderByCreatedAtDesc(String email, String scenario);
     
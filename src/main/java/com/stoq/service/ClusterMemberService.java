@@ -1,18 +1,19 @@
 package com.stoq.service;
 import com.stoq.dto.ClusterMemberDTO;
+import com.stoq.dto.SliceResponseDTO;
 import com.stoq.entity.Cluster;
 import com.stoq.entity.ClusterMember;
 import com.stoq.exception.ResourceNotFoundException;
 import com.stoq.repository.ClusterMemberRepository;
 import com.stoq.repository.ClusterRepository;
+import com.stoq.util.ClusterMembershipCache;
+import com.stoq.util.CursorUtil;
 import com.stoq.util.PermissionUtil;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
 @Service
 @RequiredArgsConstructor
 public class ClusterMemberService {
@@ -20,6 +21,7 @@ public class ClusterMemberService {
     private final ClusterMemberRepository clusterMemberRepository;
     private final ClusterRepository clusterRepository;
     private final PermissionUtil permissionUtil;
+    private final ClusterMembershipCache clusterMembershipCache;
     
     /**
      * 添加集群成员(需要ADMIN权限)
@@ -45,13 +47,15 @@ public class ClusterMemberService {
         member.setRole(dto.getRole());
         
         ClusterMember savedMember = clusterMemberRepository.save(member);
+        clusterMembershipCache.evict(savedMember.getClusterId(), savedMember.getUserEmail());
         return toDTO(savedMember);
     }
     
     /**
-     * 获取集群的所有成员
+     * 获取集群的成员(游标分页)
      */
-    public List<ClusterMemberDTO> getClusterMembers(Long clusterId, String userEmail) {
+    @Transactional(readOnly = true)
+    public SliceResponseDTO<ClusterMemberDTO> getClusterMembers(Long clusterId, String userEmail, String cursor, Integer limit) {
         // 验证集群是否存在
         clusterRepository.findById(clusterId)
                 .orElseThrow(() -> new ResourceNotFoundException("Cluster not found: " + clusterId));
@@ -59,10 +63,9 @@ public class ClusterMemberService {
         // 验证用户是否是集群成员
         permissionUtil.verifyClusterMember(clusterId, userEmail);
         
-        List<ClusterMember> members = clusterMemberRepository.findByClusterId(clusterId);
-        return members.stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        Slice<ClusterMember> members = clusterMemberRepository.findByClusterIdAndIdGreaterThanOrderByIdAsc(
+                clusterId, CursorUtil.decodeId(cursor), CursorUtil.pageRequest(limit));
+        return CursorUtil.toResponse(members, this::toDTO, ClusterMember::getId);
     }
     
     /**
@@ -86,6 +89,7 @@ public class ClusterMemberService {
         
         member.setRole(newRole);
         ClusterMember updatedMember = clusterMemberRepository.save(member);
+        clusterMembershipCache.evict(updatedMember.getClusterId(), updatedMember.getUserEmail());
         return toDTO(updatedMember);
     }
     
@@ -109,6 +113,7 @@ public class ClusterMemberService {
         }
         
         clusterMemberRepository.delete(member);
+        clusterMembershipCache.evict(member.getClusterId(), member.getUserEmail());
     }
     
     /**
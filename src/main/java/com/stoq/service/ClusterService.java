@@ -1,18 +1,21 @@
 package com.stoq.service;
 import com.stoq.dto.ClusterResponseDTO;
 import com.stoq.dto.CreateClusterDTO;
+import com.stoq.dto.SliceResponseDTO;
 import com.stoq.entity.Cluster;
 import com.stoq.entity.ClusterMember;
 import com.stoq.enums.ClusterType;
 import com.stoq.exception.ResourceNotFoundException;
 import com.stoq.repository.ClusterMemberRepository;
 import com.stoq.repository.ClusterRepository;
+import com.stoq.util.ClusterMembershipCache;
+import com.stoq.util.CursorUtil;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
@@ -20,6 +23,7 @@ public class ClusterService {
     
     private final ClusterRepository clusterRepository;
     private final ClusterMemberRepository clusterMemberRepository;
+    private final ClusterMembershipCache clusterMembershipCache;
     
     /**
      * 创建集群
@@ -58,19 +62,21 @@ public class ClusterService {
         adminMember.setUserEmail(ownerEmail);
         adminMember.setRole("ADMIN");
         clusterMemberRepository.save(adminMember);
+        clusterMembershipCache.evict(savedCluster.getId(), ownerEmail);
         
         return toResponseDTO(savedCluster);
     }
     
-    // 获取当前用户的所有集群
-    public List<ClusterResponseDTO> getMyClusters(String ownerEmail) {
-        List<Cluster> clusters = clusterRepository.findByOwnerEmail(ownerEmail);
-        return clusters.stream()
-                .map(this::toResponseDTO)
-                .collect(Collectors.toList());
+    // 获取当前用户的集群(游标分页)
+    @Transactional(readOnly = true)
+    public SliceResponseDTO<ClusterResponseDTO> getMyClusters(String ownerEmail, String cursor, Integer limit) {
+        Slice<ClusterResponseDTO> clusters = clusterRepository.findResponsesByOwnerEmail(
+                ownerEmail, CursorUtil.decodeId(cursor), CursorUtil.pageRequest(limit));
+        return CursorUtil.toResponse(clusters, Function.identity(), ClusterResponseDTO::getId);
     }
     
     // 根据ID获取集群(仅限创建者)
+    @Transactional(readOnly = true)
     public ClusterResponseDTO getClusterById(Long id, String ownerEmail) {
         Cluster cluster = clusterRepository.findByIdAndOwnerEmail(id, ownerEmail)
                 .orElseThrow(() -> new ResourceNotFoundException("Cluster not found or you don't have permission: " + id));
@@ -116,17 +122,18 @@ public class ClusterService {
         
         // 先删除集群成员
         clusterMemberRepository.deleteByClusterId(id);
+        clusterMembershipCache.evictCluster(id);
         
         // 再删除集群
         clusterRepository.delete(cluster);
     }
     
-    // 获取所有集群(管理员功能)
-    public List<ClusterResponseDTO> getAllClusters() {
-        List<Cluster> clusters = clusterRepository.findAll();
-        return clusters.stream()
-                .map(this::toResponseDTO)
-                .collect(Collectors.toList());
+    // 获取所有集群(管理员功能,游标分页)
+    @Transactional(readOnly = true)
+    public SliceResponseDTO<ClusterResponseDTO> getAllClusters(String cursor, Integer limit) {
+        Slice<ClusterResponseDTO> clusters = clusterRepository.findResponses(
+                CursorUtil.decodeId(cursor), CursorUtil.pageRequest(limit));
+        return CursorUtil.toResponse(clusters, Function.identity(), ClusterResponseDTO::getId);
     }
     
     /**
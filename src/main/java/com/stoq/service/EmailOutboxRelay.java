@@ -0,0 +1,286 @@
+package com.stoq.service;
+
+import com.stoq.entity.EmailOutbox;
+import com.stoq.enums.EmailOutboxStatus;
+import com.stoq.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 发件箱中继: 定时领取到期的email_outbox行交给MailDispatchService批量发送,并回写发送结果
+ * 领取时把next_attempt_at延后到租约到期,多实例不会重复领取;仍在发送队列中的行定期续租,
+ * 队列排空慢于租约时也不会被重新领取。回写结果时校验租约token,租约已失效的结果不再覆盖其它领取。
+ * 进程在发送后、回写前退出时,租约到期后会重新发送(至少一次)。
+ * 失败的行按指数退避重试,超过最大次数标记为FAILED。
+ */
+@Service
+@Slf4j
+public class EmailOutboxRelay {
+    
+    private static final String ROWS_METRIC = "stoq.mail.outbox.rows";
+    private static final int MAX_ERROR_LENGTH = 500;
+    
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final MailDispatchService mailDispatchService;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration retention;
+    
+    // 已入队、尚未回写结果的行 -> 当前租约token
+    private final Map<Long, String> inFlight = new ConcurrentHashMap<>();
+    // 发送线程回调的结果,下一次轮询时批量写回
+    private final Queue<DeliveryResult> deliveries = new ConcurrentLinkedQueue<>();
+    private final Queue<DeliveryResult> failures = new ConcurrentLinkedQueue<>();
+    private long leasesRenewedAt = System.nanoTime();
+    private final AtomicLong pending = new AtomicLong();
+    
+    private final Counter deliveredCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+    
+    public EmailOutboxRelay(EmailOutboxRepository emailOutboxRepository,
+                            MailDispatchService mailDispatchService,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${stoq.mail.outbox.batch-size:100}") int batchSize,
+                            @Value("${stoq.mail.outbox.lease:2m}") Duration lease,
+                            @Value("${stoq.mail.outbox.max-attempts:8}") int maxAttempts,
+                            @Value("${stoq.mail.outbox.initial-backoff:10s}") Duration initialBackoff,
+                            @Value("${stoq.mail.outbox.max-backoff:10m}") Duration maxBackoff,
+                            @Value("${stoq.mail.outbox.retention:7d}") Duration retention) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.mailDispatchService = mailDispatchService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.lease = lease;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.retention = retention;
+        
+        Gauge.builder("stoq.mail.outbox.pending", pending, AtomicLong::get)
+                .description("Outbox rows not yet sent, including rows waiting for a retry")
+                .register(meterRegistry);
+        this.deliveredCounter = rowCounter(meterRegistry, "delivered");
+        this.retriedCounter = rowCounter(meterRegistry, "retried");
+        this.failedCounter = rowCounter(meterRegistry, "failed");
+    }
+    
+    private static Counter rowCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder(ROWS_METRIC)
+                .description("Outbox rows by delivery result")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+    
+    /**
+     * 写回上一轮的发送结果并为队列中的行续租,再按发送队列的剩余容量领取新的一批
+     */
+    @Scheduled(fixedDelayString = "${stoq.mail.outbox.poll-interval-ms:1000}")
+    public void relay() {
+        if (!mailDispatchService.isEnabled()) {
+            return;
+        }
+        recordResults();
+        renewLeases();
+        
+        int limit = Math.min(batchSize, mailDispatchService.remainingCapacity());
+        if (limit > 0) {
+            for (EmailOutbox row : claim(limit)) {
+                // 续租不及时被重新领取的行仍在队列中: 只换成新token,不重复入队
+                if (inFlight.replace(row.getId(), row.getLeaseToken()) != null) {
+                    continue;
+                }
+                inFlight.put(row.getId(), row.getLeaseToken());
+                if (!mailDispatchService.offer(toMessage(row), new OutboxCallback(row.getId()))) {
+                    inFlight.remove(row.getId());
+                    break; // 未入队的行在租约到期后重新领取
+                }
+            }
+        }
+        pending.set(emailOutboxRepository.countByStatus(EmailOutboxStatus.PENDING));
+    }
+    
+    /**
+     * 清理保留期之前已发送的行
+     */
+    @Scheduled(fixedDelayString = "${stoq.mail.outbox.cleanup-interval-ms:3600000}")
+    public void purgeSent() {
+        Integer deleted = transactionTemplate.execute(status ->
+                emailOutboxRepository.deleteSentBefore(LocalDateTime.now().minus(retention)));
+        if (deleted != null && deleted > 0) {
+            log.info("✅ 已清理{}条已发送的发件箱记录", deleted);
+        }
+    }
+    
+    /**
+     * 领取到期的行: 先查候选ID,再以条件更新写入租约,只返回本次真正领取到的行
+     * 整个过程在读写事务中执行(启用读写分离时也走主库)
+     */
+    private List<EmailOutbox> claim(int limit) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> ids = emailOutboxRepository.findDueIds(EmailOutboxStatus.PENDING, now, PageRequest.of(0, limit));
+            if (ids.isEmpty()) {
+                return Collections.<EmailOutbox>emptyList();
+            }
+            String token = UUID.randomUUID().toString();
+            emailOutboxRepository.claim(ids, token, now.plus(lease), now);
+            return emailOutboxRepository.findByLeaseToken(token);
+        });
+    }
+    
+    /**
+     * 队列中的行每半个租约续租一次(按领取批次的token),保证租约在发送前不会到期
+     */
+    private void renewLeases() {
+        if (System.nanoTime() - leasesRenewedAt < lease.toNanos() / 2) {
+            return;
+        }
+        leasesRenewedAt = System.nanoTime();
+        Set<String> tokens = new HashSet<>(inFlight.values());
+        if (tokens.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status ->
+                emailOutboxRepository.renewLease(tokens, LocalDateTime.now().plus(lease)));
+    }
+    
+    /**
+     * 已发送的行按领取批次批量更新;失败的行累加次数并推迟下次发送时间
+     * 只更新租约token仍然匹配的行,租约已失效(已被其它实例领取)的结果丢弃
+     */
+    private void recordResults() {
+        Map<String, List<Long>> delivered = new HashMap<>();
+        int deliveredCount = 0;
+        for (DeliveryResult result = deliveries.poll(); result != null; result = deliveries.poll()) {
+            delivered.computeIfAbsent(result.token, token -> new ArrayList<>()).add(result.id);
+            deliveredCount++;
+        }
+        List<DeliveryResult> failed = new ArrayList<>();
+        for (DeliveryResult failure = failures.poll(); failure != null; failure = failures.poll()) {
+            failed.add(failure);
+        }
+        if (deliveredCount == 0 && failed.isEmpty()) {
+            return;
+        }
+        
+        int sent = deliveredCount;
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            int marked = 0;
+            for (Map.Entry<String, List<Long>> batch : delivered.entrySet()) {
+                marked += emailOutboxRepository.markSent(batch.getValue(), batch.getKey(), now);
+            }
+            deliveredCounter.increment(sent);
+            if (marked < sent) {
+                log.warn("⚠️ {}封已发送邮件的租约已失效,未标记为已发送", sent - marked);
+            }
+            for (DeliveryResult failure : failed) {
+                emailOutboxRepository.findById(failure.id)
+                        .filter(row -> row.getLeaseToken() != null && row.getLeaseToken().equals(failure.token))
+                        .ifPresent(row -> reschedule(row, failure.error, now));
+            }
+        });
+    }
+    
+    private void reschedule(EmailOutbox row, String error, LocalDateTime now) {
+        int attempts = row.getAttempts() + 1;
+        row.setAttempts(attempts);
+        row.setLeaseToken(null);
+        row.setLastError(error);
+        if (attempts >= maxAttempts) {
+            row.setStatus(EmailOutboxStatus.FAILED);
+            failedCounter.increment();
+            log.error("❌ 邮件发送失败,已放弃: {} (尝试{}次): {}", row.getRecipient(), attempts, error);
+            return;
+        }
+        long delay = Math.min(initialBackoff.toMillis() << Math.min(attempts - 1, 20), maxBackoff.toMillis());
+        row.setNextAttemptAt(now.plus(Duration.ofMillis(delay)));
+        retriedCounter.increment();
+    }
+    
+    private static SimpleMailMessage toMessage(EmailOutbox row) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        if (row.getSender() != null) {
+            message.setFrom(row.getSender());
+        }
+        message.setTo(row.getRecipient());
+        message.setSubject(row.getSubject());
+        message.setText(row.getBody());
+        return message;
+    }
+    
+    /**
+     * 停止时先等发送队列发完,再写回结果,减少重启后的重复发送
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        mailDispatchService.shutdown();
+        recordResults();
+    }
+    
+    private final class OutboxCallback implements MailDispatchService.DeliveryCallback {
+        private final long id;
+        
+        private OutboxCallback(long id) {
+            this.id = id;
+        }
+        
+        @Override
+        public void delivered() {
+            deliveries.add(new DeliveryResult(id, inFlight.remove(id), null));
+        }
+        
+        @Override
+        public void failed(Exception cause) {
+            String error = String.valueOf(cause.getMessage());
+            failures.add(new DeliveryResult(id, inFlight.remove(id),
+                    error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error));
+        }
+    }
+    
+    /**
+     * 发送结果,token为发送时该行的租约token
+     */
+    private static final class DeliveryResult {
+        private final long id;
+        private final String token;
+        private final String error;
+        
+        private DeliveryResult(long id, String token, String error) {
+            this.id = id;
+            this.token = token;
+            this.error = error;
+        }
+    }
+}
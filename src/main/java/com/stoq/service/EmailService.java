@@ -1,15 +1,17 @@
 package com.stoq.service;
 
+import com.stoq.entity.EmailOutbox;
+import com.stoq.entity.LowStockAlert;
+import com.stoq.repository.EmailOutboxRepository;
+import com.stoq.util.DevVerificationCodeStore;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 import org.springframework.context.i18n.LocaleContextHolder;
 
-import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
@@ -17,72 +19,128 @@ import java.util.Map;
 @Slf4j
 public class EmailService {
     
-    @Autowired(required = false)
-    private JavaMailSender mailSender;
-
+    // 发件箱subject、body列的长度(email_outbox表)
+    private static final int MAX_SUBJECT_LENGTH = 200;
+    private static final int MAX_BODY_LENGTH = 4000;
+    // 摘要邮件中单个商品名称的最大长度
+    private static final int MAX_DIGEST_NAME_LENGTH = 80;
+    
+    @Autowired
+    private MailDispatchService mailDispatchService;
+    
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+    
     @Value("${stoq.mail.from-address:${spring.mail.username:}}")
     private String fromAddress;
-
+    
     @Autowired
     private MessageSource messageSource;
-
-    // 验证码存储(用于测试和备份)
-    private static final Map<String, String> verificationCodeStorage = new HashMap<>();
+    
+    // 验证码副本(用于开发测试,prod profile下为null)
+    @Autowired(required = false)
+    private DevVerificationCodeStore devVerificationCodeStore;
     
     /**
      * 发送验证码邮件(支持国际化)
      */
-    public void sendVerificationCode(String email, String code, Locale locale) {
-        // 总是存储验证码到内存(用于测试)
-        verificationCodeStorage.put(email, code);
+    public void sendVerificationCode(String email, String code, String scenario, Locale locale) {
+        if (devVerificationCodeStore != null) {
+            devVerificationCodeStore.put(email, scenario, code);
+        }
         
-        // 尝试发送真实邮件
-        if (mailSender != null) {
-            try {
-                sendRealEmail(email, code, locale);
-            } catch (Exception e) {
-                log.warn("⚠️ 真实邮件发送失败,但验证码已保存。错误: {}", e.getMessage());
-                log.info("💡 开发提示: 验证码已存储在内存中,可以通过 /api/users/get-verification-code 接口获取");
-            }
+        // 写入发件箱,与调用方的事务一起提交,由EmailOutboxRelay在后台发送
+        if (mailDispatchService.isEnabled()) {
+            emailOutboxRepository.save(buildVerificationMail(email, code, locale));
         } else {
             log.info("📧 [模拟模式] 验证码已发送到: {} (验证码: {})", email, code);
             log.info("💡 提示: 邮件服务未配置,验证码已存储在内存中。可以通过 /api/users/get-verification-code 接口获取");
         }
     }
-
+    
     /**
      * 兼容旧调用,默认使用系统Locale
      */
-    public void sendVerificationCode(String email, String code) {
-        sendVerificationCode(email, code, LocaleContextHolder.getLocale());
+    public void sendVerificationCode(String email, String code, String scenario) {
+        sendVerificationCode(email, code, scenario, LocaleContextHolder.getLocale());
     }
-
+    
     /**
-     * 真实发送邮件
+     * 发送低库存摘要(一封邮件列出仓库中所有待提醒的商品),在调用方的事务中写入发件箱
+     * 主题和正文截断到发件箱列的长度内: 商品按正文剩余长度列出,放不下的合并为"以及其它N个商品"
      */
-    private void sendRealEmail(String email, String code, Locale locale) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            if (fromAddress != null && !fromAddress.isBlank()) {
-                message.setFrom(fromAddress);
+    public void sendLowStockDigest(String email, String stoqName, List<LowStockAlert> alerts, Map<Long, String> templateNames) {
+        Locale locale = LocaleContextHolder.getLocale();
+        // 仓库名称同时出现在主题和正文中,按主题的剩余长度截断
+        int subjectOverhead = messageSource.getMessage("email.subject.low-stock",
+                new Object[]{"", alerts.size()}, locale).length();
+        String name = truncate(stoqName, MAX_SUBJECT_LENGTH - subjectOverhead);
+        
+        // 正文预留"以及其它N个商品"一行的长度(N取最大值)
+        int budget = MAX_BODY_LENGTH
+                - messageSource.getMessage("email.body.low-stock", new Object[]{name, ""}, locale).length()
+                - messageSource.getMessage("email.body.low-stock.more", new Object[]{alerts.size()}, locale).length() - 1;
+        StringBuilder items = new StringBuilder();
+        int listed = 0;
+        for (LowStockAlert alert : alerts) {
+            String templateName = templateNames.getOrDefault(alert.getProductTemplateId(), "#" + alert.getProductTemplateId());
+            String item = messageSource.getMessage("email.body.low-stock.item",
+                    new Object[]{truncate(templateName, MAX_DIGEST_NAME_LENGTH), alert.getQuantity(), alert.getThreshold()},
+                    locale);
+            if (items.length() + item.length() + 1 > budget) {
+                break;
             }
-            message.setTo(email);
-            message.setSubject(messageSource.getMessage("email.subject.verification", null, locale));
-            message.setText(messageSource.getMessage("email.body.verification", new Object[]{code}, locale));
-
-            mailSender.send(message);
-            log.info("✅ 验证码邮件已发送到: {}", email);
-        } catch (Exception e) {
-            log.error("❌ 发送验证码邮件失败: {}", email, e);
-            throw e;
+            items.append(item).append('\n');
+            listed++;
+        }
+        if (listed < alerts.size()) {
+            items.append(messageSource.getMessage("email.body.low-stock.more",
+                    new Object[]{alerts.size() - listed}, locale)).append('\n');
+        }
+        
+        if (!mailDispatchService.isEnabled()) {
+            log.info("📧 [模拟模式] 低库存提醒已发送到: {} (仓库: {}, {}个商品)\n{}", email, name, alerts.size(), items);
+            return;
+        }
+        EmailOutbox mail = new EmailOutbox();
+        if (fromAddress != null && !fromAddress.isBlank()) {
+            mail.setSender(fromAddress);
+        }
+        mail.setRecipient(email);
+        mail.setSubject(messageSource.getMessage("email.subject.low-stock", new Object[]{name, alerts.size()}, locale));
+        mail.setBody(messageSource.getMessage("email.body.low-stock", new Object[]{name, items.toString()}, locale));
+        emailOutboxRepository.save(mail);
+    }
+    
+    /**
+     * 超过最大长度时截断并以"…"结尾
+     */
+    private static String truncate(String value, int maxLength) {
+        if (value.length() <= maxLength) {
+            return value;
+        }
+        return value.substring(0, Math.max(maxLength - 1, 0)) + "…";
+    }
+    
+    /**
+     * 构建验证码邮件(发件箱记录)
+     */
+    private EmailOutbox buildVerificationMail(String email, String code, Locale locale) {
+        EmailOutbox mail = new EmailOutbox();
+        if (fromAddress != null && !fromAddress.isBlank()) {
+            mail.setSender(fromAddress);
         }
+        mail.setRecipient(email);
+        mail.setSubject(messageSource.getMessage("email.subject.verification", null, locale));
+        mail.setBody(messageSource.getMessage("email.body.verification", new Object[]{code}, locale));
+        return mail;
     }
     
     /**
-     * 获取验证码(仅用于开发测试)
+     * 获取验证码(仅用于开发测试,prod profile下始终返回null)
      */
-    public String getVerificationCode(String email) {
-        return verificationCodeStorage.get(email);
+    public String getVerificationCode(String email, String scenario) {
+        return devVerificationCodeStore == null ? null : devVerificationCodeStore.get(email, scenario);
     }
     
     /**
@@ -0,0 +1,241 @@
+package com.stoq.service;
+
+import com.stoq.entity.Cluster;
+import com.stoq.entity.LowStockAlert;
+import com.stoq.entity.ProductTemplate;
+import com.stoq.entity.StockLevel;
+import com.stoq.entity.Stoq;
+import com.stoq.repository.ClusterRepository;
+import com.stoq.repository.LowStockAlertRepository;
+import com.stoq.repository.ProductTemplateRepository;
+import com.stoq.repository.StockLevelRepository;
+import com.stoq.repository.StoqRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 低库存提醒
+ * 只检查发生过变动的商品: 库存变动的事务提交后记下(仓库, 商品),定时任务按仓库批量读取这些行,
+ * 可用数量刚降到阈值以下的写入low_stock_alerts;同一商品在回到阈值以上之前只提醒一次。
+ * 提醒按仓库合并: 最早的一条等待超过digest-window后,整批写成一封摘要邮件(经发件箱发送)。
+ * 待检查的商品只保存在内存中,进程退出时未检查的变动会在该商品下次变动时再检查。
+ */
+@Service
+@Slf4j
+public class LowStockAlertService {
+    
+    private static final int EVALUATE_CHUNK_SIZE = 500;
+    
+    private final StockLevelRepository stockLevelRepository;
+    private final LowStockAlertRepository lowStockAlertRepository;
+    private final StoqRepository stoqRepository;
+    private final ClusterRepository clusterRepository;
+    private final ProductTemplateRepository productTemplateRepository;
+    private final EmailService emailService;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration digestWindow;
+    private final Duration retention;
+    
+    // 待检查的商品模板ID,按仓库分组;只在ConcurrentHashMap的compute/remove中修改
+    private final Map<Long, Set<Long>> touched = new ConcurrentHashMap<>();
+    
+    private final Counter raisedCounter;
+    private final Counter digestCounter;
+    
+    public LowStockAlertService(StockLevelRepository stockLevelRepository,
+                                LowStockAlertRepository lowStockAlertRepository,
+                                StoqRepository stoqRepository,
+                                ClusterRepository clusterRepository,
+                                ProductTemplateRepository productTemplateRepository,
+                                EmailService emailService,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${stoq.stock.low-stock.digest-window:5m}") Duration digestWindow,
+                                @Value("${stoq.stock.low-stock.retention:30d}") Duration retention) {
+        this.stockLevelRepository = stockLevelRepository;
+        this.lowStockAlertRepository = lowStockAlertRepository;
+        this.stoqRepository = stoqRepository;
+        this.clusterRepository = clusterRepository;
+        this.productTemplateRepository = productTemplateRepository;
+        this.emailService = emailService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.digestWindow = digestWindow;
+        this.retention = retention;
+        this.raisedCounter = Counter.builder("stoq.stock.alerts.raised")
+                .description("Low-stock crossings recorded")
+                .register(meterRegistry);
+        this.digestCounter = Counter.builder("stoq.stock.alerts.digests")
+                .description("Low-stock digest mails queued")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * 记下库存发生变动的商品,在当前事务提交后生效(回滚的变动不检查)
+     */
+    public void markTouched(Long stoqId, Collection<Long> productTemplateIds) {
+        if (productTemplateIds.isEmpty()) {
+            return;
+        }
+        Set<Long> ids = new HashSet<>(productTemplateIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addTouched(stoqId, ids);
+                }
+            });
+        } else {
+            addTouched(stoqId, ids);
+        }
+    }
+    
+    private void addTouched(Long stoqId, Set<Long> ids) {
+        touched.compute(stoqId, (key, pending) -> {
+            Set<Long> merged = pending == null ? new HashSet<>() : pending;
+            merged.addAll(ids);
+            return merged;
+        });
+    }
+    
+    /**
+     * 检查记下的商品: 同一商品在两次检查之间的多次变动只检查一次
+     */
+    @Scheduled(fixedDelayString = "${stoq.stock.low-stock.evaluate-interval-ms:2000}")
+    public void evaluateTouched() {
+        for (Long stoqId : new ArrayList<>(touched.keySet())) {
+            Set<Long> ids = touched.remove(stoqId);
+            if (ids == null) {
+                continue;
+            }
+            List<Long> idList = new ArrayList<>(ids);
+            for (int from = 0; from < idList.size(); from += EVALUATE_CHUNK_SIZE) {
+                List<Long> chunk = idList.subList(from, Math.min(from + EVALUATE_CHUNK_SIZE, idList.size()));
+                try {
+                    transactionTemplate.executeWithoutResult(status -> evaluate(stoqId, chunk));
+                } catch (RuntimeException e) {
+                    log.error("❌ 低库存检查失败: 仓库{}", stoqId, e);
+                    addTouched(stoqId, new HashSet<>(chunk));
+                }
+            }
+        }
+    }
+    
+    private void evaluate(Long stoqId, List<Long> productTemplateIds) {
+        LocalDateTime now = LocalDateTime.now();
+        for (StockLevel level : stockLevelRepository.findLowStockCandidates(stoqId, productTemplateIds)) {
+            long available = level.getQuantity() - level.getReserved();
+            boolean low = level.getLowStockThreshold() != null && available <= level.getLowStockThreshold();
+            if (low && level.getLowStockAlertedAt() == null) {
+                // 条件更新失败说明已被其它实例提醒,或读取后数量又发生了变化(那次变动会再检查)
+                if (stockLevelRepository.markLowStockAlerted(level.getId(), now) == 1) {
+                    LowStockAlert alert = new LowStockAlert();
+                    alert.setStoqId(stoqId);
+                    alert.setProductTemplateId(level.getProductTemplateId());
+                    alert.setQuantity(available);
+                    alert.setThreshold(level.getLowStockThreshold());
+                    alert.setCreatedAt(now);
+                    lowStockAlertRepository.save(alert);
+                    raisedCounter.increment();
+                }
+            } else if (!low && level.getLowStockAlertedAt() != null) {
+                stockLevelRepository.clearLowStockAlerted(level.getId());
+            }
+        }
+    }
+    
+    /**
+     * 发送摘要: 每个到期的仓库一封邮件,标记提醒和写入发件箱在同一事务中完成
+     */
+    @Scheduled(fixedDelayString = "${stoq.stock.low-stock.digest-interval-ms:30000}")
+    public void sendDigests() {
+        List<Long> stoqIds = transactionTemplate.execute(status ->
+                lowStockAlertRepository.findStoqIdsDue(LocalDateTime.now().minus(digestWindow)));
+        for (Long stoqId : stoqIds) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (!sendDigest(stoqId)) {
+                        status.setRollbackOnly();
+                    }
+                });
+            } catch (RuntimeException e) {
+                log.error("❌ 低库存摘要发送失败: 仓库{}", stoqId, e);
+            }
+        }
+    }
+    
+    /**
+     * 返回false表示提醒已被其它实例发送
+     */
+    private boolean sendDigest(Long stoqId) {
+        List<LowStockAlert> alerts = lowStockAlertRepository.findByStoqIdAndNotifiedAtIsNullOrderById(stoqId);
+        if (alerts.isEmpty()) {
+            return true;
+        }
+        List<Long> ids = alerts.stream().map(LowStockAlert::getId).collect(Collectors.toList());
+        if (lowStockAlertRepository.markNotified(ids, LocalDateTime.now()) != ids.size()) {
+            return false;
+        }
+        Stoq stoq = stoqRepository.findById(stoqId).orElse(null);
+        if (stoq == null) {
+            return true;
+        }
+        
+        // 同一商品在窗口内多次触发时只保留最新的一条
+        Map<Long, LowStockAlert> latest = new LinkedHashMap<>();
+        for (LowStockAlert alert : alerts) {
+            latest.remove(alert.getProductTemplateId());
+            latest.put(alert.getProductTemplateId(), alert);
+        }
+        Map<Long, String> names = productTemplateRepository.findAllById(latest.keySet()).stream()
+                .collect(Collectors.toMap(ProductTemplate::getId, ProductTemplate::getName));
+        
+        emailService.sendLowStockDigest(recipientOf(stoq), stoq.getName(), new ArrayList<>(latest.values()), names);
+        digestCounter.increment();
+        return true;
+    }
+    
+    /**
+     * 仓库管理员字段是邮箱时发给管理员,否则发给集群所有者
+     */
+    private String recipientOf(Stoq stoq) {
+        String administrator = stoq.getAdministrator();
+        if (administrator != null && administrator.contains("@")) {
+            return administrator;
+        }
+        return clusterRepository.findById(stoq.getClusterId())
+                .map(Cluster::getOwnerEmail)
+                .orElse(stoq.getCreatorEmail());
+    }
+    
+    /**
+     * 清理保留期之前已发送的提醒
+     */
+    @Scheduled(fixedDelayString = "${stoq.stock.low-stock.cleanup-interval-ms:3600000}")
+    public void purgeNotified() {
+        Integer deleted = transactionTemplate.execute(status ->
+                lowStockAlertRepository.deleteNotifiedBefore(LocalDateTime.now().minus(retention)));
+        if (deleted != null && deleted > 0) {
+            log.info("✅ 已清理{}条低库存提醒", deleted);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.stoq.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步邮件发送队列
+ * 邮件放入有界队列,由专用线程批量取出,每批通过同一个SMTP连接发送,结果通过DeliveryCallback回调。
+ * 本类不做重试: 邮件来自发件箱(EmailOutboxRelay),失败后由发件箱按退避时间重新投递。
+ */
+@Service
+@Slf4j
+public class MailDispatchService {
+    
+    private static final String MESSAGES_METRIC = "stoq.mail.messages";
+    
+    private final JavaMailSender mailSender;
+    private final BlockingQueue<PendingMail> queue;
+    private final int batchSize;
+    private final Duration shutdownTimeout;
+    private final ExecutorService dispatcher;
+    private volatile boolean running = true;
+    
+    // 邮件处理结果计数,按result打tag
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Timer batchTimer;
+    
+    public MailDispatchService(ObjectProvider<JavaMailSender> mailSender,
+                               MeterRegistry meterRegistry,
+                               @Value("${stoq.mail.queue-capacity:1000}") int queueCapacity,
+                               @Value("${stoq.mail.batch-size:20}") int batchSize,
+                               @Value("${stoq.mail.shutdown-timeout:10s}") Duration shutdownTimeout) {
+        this.mailSender = mailSender.getIfAvailable();
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.shutdownTimeout = shutdownTimeout;
+        
+        Gauge.builder("stoq.mail.queue.size", queue, BlockingQueue::size)
+                .description("Mails waiting to be sent")
+                .register(meterRegistry);
+        this.sentCounter = messageCounter(meterRegistry, "sent");
+        this.failedCounter = messageCounter(meterRegistry, "failed");
+        this.batchTimer = Timer.builder("stoq.mail.batches")
+                .description("Time to send one batch of mails over a single SMTP connection")
+                .register(meterRegistry);
+        
+        this.dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mail-dispatch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (this.mailSender != null) {
+            dispatcher.execute(this::dispatchLoop);
+        }
+    }
+    
+    private static Counter messageCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder(MESSAGES_METRIC)
+                .description("Outbound mails by dispatch result")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+    
+    /**
+     * 是否配置了邮件服务器(未配置时调用方使用模拟模式)
+     */
+    public boolean isEnabled() {
+        return mailSender != null;
+    }
+    
+    /**
+     * 队列剩余容量
+     */
+    public int remainingCapacity() {
+        return queue.remainingCapacity();
+    }
+    
+    /**
+     * 邮件入队,队列已满或已停止时返回false
+     */
+    public boolean offer(SimpleMailMessage message, DeliveryCallback callback) {
+        return running && queue.offer(new PendingMail(message, callback));
+    }
+    
+    /**
+     * 发送线程: 阻塞等待第一封邮件,再取出已排队的邮件凑成一批
+     */
+    private void dispatchLoop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingMail first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<PendingMail> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                sendBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                log.error("❌ 邮件发送线程异常", e);
+            }
+        }
+    }
+    
+    /**
+     * 一批邮件共用一个SMTP连接(JavaMailSenderImpl对数组只连接一次),逐封回调发送结果
+     */
+    private void sendBatch(List<PendingMail> batch) {
+        Map<SimpleMailMessage, PendingMail> byMessage = new IdentityHashMap<>();
+        for (PendingMail mail : batch) {
+            byMessage.put(mail.message, mail);
+        }
+        SimpleMailMessage[] messages = byMessage.keySet().toArray(new SimpleMailMessage[0]);
+        
+        long start = System.nanoTime();
+        try {
+            mailSender.send(messages);
+            batch.forEach(this::delivered);
+            log.info("✅ 已发送{}封邮件", messages.length);
+        } catch (MailSendException e) {
+            Map<Object, Exception> failed = e.getFailedMessages();
+            if (failed.isEmpty()) {
+                // 邮件已发出,只是关闭连接失败
+                batch.forEach(this::delivered);
+                log.warn("⚠️ 邮件已发送,关闭SMTP连接失败: {}", e.getMessage());
+            } else {
+                for (PendingMail mail : batch) {
+                    Exception cause = failed.get(mail.message);
+                    if (cause == null) {
+                        delivered(mail);
+                    } else {
+                        failed(mail, cause);
+                    }
+                }
+            }
+        } catch (MailException e) {
+            // 认证失败等: 整批都未发送
+            batch.forEach(mail -> failed(mail, e));
+        } finally {
+            batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    private void delivered(PendingMail mail) {
+        sentCounter.increment();
+        mail.callback.delivered();
+    }
+    
+    private void failed(PendingMail mail, Exception cause) {
+        failedCounter.increment();
+        log.warn("⚠️ 邮件发送失败: {}: {}", recipients(mail.message), cause.getMessage());
+        mail.callback.failed(cause);
+    }
+    
+    private static String recipients(SimpleMailMessage message) {
+        return message.getTo() == null ? "" : String.join(",", message.getTo());
+    }
+    
+    /**
+     * 停止时不再接收新邮件,已入队的邮件在超时前尽量发完
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        dispatcher.shutdown();
+        if (!dispatcher.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            dispatcher.shutdownNow();
+        }
+        if (!queue.isEmpty()) {
+            log.warn("⚠️ 应用停止,{}封邮件未发送", queue.size());
+        }
+    }
+    
+    /**
+     * 发送结果回调(在发送线程中调用,应尽快返回)
+     */
+    public interface DeliveryCallback {
+        void delivered();
+        
+        void failed(Exception cause);
+    }
+    
+    private static final class PendingMail {
+        private final SimpleMailMessage message;
+        private final DeliveryCallback callback;
+        
+        private PendingMail(SimpleMailMessage message, DeliveryCallback callback) {
+            this.message = message;
+            this.callback = callback;
+        }
+    }
+}
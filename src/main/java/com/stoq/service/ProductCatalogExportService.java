@@ -0,0 +1,331 @@
+package com.stoq.service;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stoq.enums.ExportFormat;
+import com.stoq.util.CsvWriter;
+import com.stoq.util.PermissionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 集群商品目录导出
+ * 通过只进JDBC结果集逐行读取分类和模板并直接写入响应流,内存占用与目录大小无关。
+ * MySQL使用驱动的流式结果集(fetchSize=Integer.MIN_VALUE),不依赖连接URL的useCursorFetch,
+ * 其它数据库使用配置的fetchSize。
+ */
+@Service
+@Slf4j
+public class ProductCatalogExportService {
+    
+    // 按分类、模板ID、图片位置排序,同一模板的图片行连续出现;没有模板的分类也会输出
+    private static final String CATALOG_SQL = "SELECT c.id AS category_id, c.name AS category_name, "
+            + "c.description AS category_description, c.image AS category_image, "
+            + "t.id AS template_id, t.name, t.description, t.unit, t.price, t.currency, t.supplier, "
+            + "t.supplier_country, t.bar_code, t.qr_code, t.creator_email, t.created_at, t.updated_at, "
+            + "i.url AS image_url "
+            + "FROM product_categories c "
+            + "LEFT JOIN product_templates t ON t.category_id = c.id "
+            + "LEFT JOIN product_template_images i ON i.template_id = t.id "
+            + "WHERE c.cluster_id = ? "
+            + "ORDER BY c.id, t.id, i.position";
+    
+    private static final String[] CSV_HEADER = {
+            "categoryId", "categoryName", "categoryDescription", "categoryImage",
+            "id", "name", "description", "images", "unit", "price", "currency", "supplier",
+            "supplierCountry", "barCode", "qrCode", "creatorEmail", "createdAt", "updatedAt"};
+    
+    private final PermissionUtil permissionUtil;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    
+    public ProductCatalogExportService(PermissionUtil permissionUtil,
+                                       ObjectMapper objectMapper,
+                                       DataSource dataSource,
+                                       @Value("${stoq.export.fetch-size:1000}") int fetchSize) {
+        this.permissionUtil = permissionUtil;
+        this.objectMapper = objectMapper;
+        // 独立的JdbcTemplate,fetchSize不影响其它查询
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(isMySql(dataSource) ? Integer.MIN_VALUE : fetchSize);
+    }
+    
+    /**
+     * MySQL驱动只有在fetchSize=Integer.MIN_VALUE时才逐行流式读取,否则一次性把结果集读入内存
+     */
+    private static boolean isMySql(DataSource dataSource) {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            return "MySQL".equalsIgnoreCase(product);
+        } catch (MetaDataAccessException e) {
+            log.warn("⚠️ 无法识别数据库类型,商品目录导出使用配置的fetchSize: {}", e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * 导出集群的商品目录(需要集群成员权限)
+     * 权限在调用时立即检查,数据在写入响应时才开始查询
+     */
+    public StreamingResponseBody exportCatalog(Long clusterId, String userEmail, ExportFormat format) {
+        permissionUtil.verifyClusterMember(clusterId, userEmail);
+        
+        return out -> {
+            long start = System.currentTimeMillis();
+            long rows = format == ExportFormat.CSV ? writeCsv(clusterId, out) : writeNdjson(clusterId, out);
+            log.info("✅ 商品目录导出完成: 集群 {} ({}, {}行, {}ms)",
+                    clusterId, format.getCode(), rows, System.currentTimeMillis() - start);
+        };
+    }
+    
+    /**
+     * NDJSON: 每个分类一行(type=category),其后是该分类的模板(type=template)
+     */
+    private long writeNdjson(Long clusterId, OutputStream out) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(out);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        json.setRootValueSeparator(null); // 行分隔由换行符负责
+        long[] rows = {0};
+        
+        query(clusterId, new CatalogWriter() {
+            @Override
+            public void category(CategoryRecord category) throws IOException {
+                json.writeStartObject();
+                json.writeStringField("type", "category");
+                json.writeNumberField("id", category.id);
+                json.writeStringField("name", category.name);
+                json.writeStringField("description", category.description);
+                json.writeStringField("image", category.image);
+                json.writeEndObject();
+                json.writeRaw('\n');
+                rows[0]++;
+            }
+            
+            @Override
+            public void template(CategoryRecord category, TemplateRecord template) throws IOException {
+                json.writeStartObject();
+                json.writeStringField("type", "template");
+                json.writeNumberField("id", template.id);
+                json.writeNumberField("categoryId", category.id);
+                json.writeStringField("name", template.name);
+                json.writeStringField("description", template.description);
+                json.writeArrayFieldStart("images");
+                for (String image : template.images) {
+                    json.writeString(image);
+                }
+                json.writeEndArray();
+                json.writeStringField("unit", template.unit);
+                json.writeNumberField("price", template.price);
+                json.writeStringField("currency", template.currency);
+                json.writeStringField("supplier", template.supplier);
+                json.writeStringField("supplierCountry", template.supplierCountry);
+                json.writeStringField("barCode", template.barCode);
+                json.writeStringField("qrCode", template.qrCode);
+                json.writeStringField("creatorEmail", template.creatorEmail);
+                json.writeStringField("createdAt", template.createdAt);
+                json.writeStringField("updatedAt", template.updatedAt);
+                json.writeEndObject();
+                json.writeRaw('\n');
+                rows[0]++;
+            }
+        });
+        json.flush();
+        return rows[0];
+    }
+    
+    /**
+     * CSV: 每个模板一行并带上分类信息,没有模板的分类输出一行空模板字段
+     * images列内多张图片用"|"分隔(与批量导入一致)
+     */
+    private long writeCsv(Long clusterId, OutputStream out) throws IOException {
+        CsvWriter csv = new CsvWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+        csv.writeRow(Arrays.asList(CSV_HEADER));
+        long[] rows = {0};
+        
+        query(clusterId, new CatalogWriter() {
+            @Override
+            public void template(CategoryRecord category, TemplateRecord template) throws IOException {
+                csv.writeRow(Arrays.asList(
+                        category.id, category.name, category.description, category.image,
+                        template.id, template.name, template.description, String.join("|", template.images),
+                        template.unit, template.price, template.currency, template.supplier,
+                        template.supplierCountry, template.barCode, template.qrCode, template.creatorEmail,
+                        template.createdAt, template.updatedAt));
+                rows[0]++;
+            }
+            
+            @Override
+            public void emptyCategory(CategoryRecord category) throws IOException {
+                Object[] row = new Object[CSV_HEADER.length];
+                row[0] = category.id;
+                row[1] = category.name;
+                row[2] = category.description;
+                row[3] = category.image;
+                csv.writeRow(Arrays.asList(row));
+                rows[0]++;
+            }
+        });
+        csv.flush();
+        return rows[0];
+    }
+    
+    /**
+     * 执行目录查询,逐行回调
+     */
+    private void query(Long clusterId, CatalogWriter writer) throws IOException {
+        CatalogAssembler assembler = new CatalogAssembler(writer);
+        try {
+            jdbcTemplate.query(CATALOG_SQL, assembler, clusterId);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        assembler.finishCategory();
+    }
+    
+    private static String timestamp(ResultSet rs, String column) throws SQLException {
+        Timestamp value = rs.getTimestamp(column);
+        return value == null ? null : value.toLocalDateTime().toString();
+    }
+    
+    /**
+     * 目录输出回调
+     */
+    private interface CatalogWriter {
+        default void category(CategoryRecord category) throws IOException {
+        }
+        
+        void template(CategoryRecord category, TemplateRecord template) throws IOException;
+        
+        default void emptyCategory(CategoryRecord category) throws IOException {
+        }
+    }
+    
+    /**
+     * 把连续的结果行组装成分类和模板(含图片),组装完成后交给CatalogWriter
+     */
+    private static final class CatalogAssembler implements RowCallbackHandler {
+        private final CatalogWriter writer;
+        private CategoryRecord category;
+        private TemplateRecord template;
+        private boolean hasTemplates;
+        
+        private CatalogAssembler(CatalogWriter writer) {
+            this.writer = writer;
+        }
+        
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            try {
+                long categoryId = rs.getLong("category_id");
+                if (category == null || category.id != categoryId) {
+                    finishCategory();
+                    category = new CategoryRecord(rs);
+                    writer.category(category);
+                }
+                
+                long templateId = rs.getLong("template_id");
+                if (rs.wasNull()) {
+                    return; // 没有模板的分类
+                }
+                if (template == null || template.id != templateId) {
+                    finishTemplate();
+                    template = new TemplateRecord(rs);
+                    hasTemplates = true;
+                }
+                String imageUrl = rs.getString("image_url");
+                if (imageUrl != null) {
+                    template.images.add(imageUrl);
+                }
+            } catch (IOException e) {
+                // 客户端断开等写入失败,终止查询
+                throw new UncheckedIOException(e);
+            }
+        }
+        
+        private void finishTemplate() throws IOException {
+            if (template != null) {
+                writer.template(category, template);
+                template = null;
+            }
+        }
+        
+        private void finishCategory() throws IOException {
+            if (category == null) {
+                return;
+            }
+            finishTemplate();
+            if (!hasTemplates) {
+                writer.emptyCategory(category);
+            }
+            hasTemplates = false;
+        }
+    }
+    
+    private static final class CategoryRecord {
+        private final long id;
+        private final String name;
+        private final String description;
+        private final String image;
+        
+        private CategoryRecord(ResultSet rs) throws SQLException {
+            this.id = rs.getLong("category_id");
+            this.name = rs.getString("category_name");
+            this.description = rs.getString("category_description");
+            this.image = rs.getString("category_image");
+        }
+    }
+    
+    private static final class TemplateRecord {
+        private final long id;
+        private final String name;
+        private final String description;
+        private final List<String> images = new ArrayList<>();
+        private final String unit;
+        private final BigDecimal price;
+        private final String currency;
+        private final String supplier;
+        private final String supplierCountry;
+        private final String barCode;
+        private final String qrCode;
+        private final String creatorEmail;
+        private final String createdAt;
+        private final String updatedAt;
+        
+        private TemplateRecord(ResultSet rs) throws SQLException {
+            this.id = rs.getLong("template_id");
+            this.name = rs.getString("name");
+            this.description = rs.getString("description");
+            this.unit = rs.getString("unit");
+            this.price = rs.getBigDecimal("price");
+            this.currency = rs.getString("currency");
+            this.supplier = rs.getString("supplier");
+            this.supplierCountry = rs.getString("supplier_country");
+            this.barCode = rs.getString("bar_code");
+            this.qrCode = rs.getString("qr_code");
+            this.creatorEmail = rs.getString("creator_email");
+            this.createdAt = timestamp(rs, "created_at");
+            this.updatedAt = timestamp(rs, "updated_at");
+        }
+    }
+}
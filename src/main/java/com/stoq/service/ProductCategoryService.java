@@ -1,18 +1,21 @@
 package com.stoq.service;
 import com.stoq.dto.CreateProductCategoryDTO;
 import com.stoq.dto.ProductCategoryResponseDTO;
+import com.stoq.dto.SliceResponseDTO;
 import com.stoq.entity.Cluster;
 import com.stoq.entity.ProductCategory;
 import com.stoq.exception.ResourceNotFoundException;
 import com.stoq.repository.ClusterRepository;
 import com.stoq.repository.ProductCategoryRepository;
+import com.stoq.util.CursorUtil;
 import com.stoq.util.PermissionUtil;
+import com.stoq.util.ProductTemplateScanCache;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
@@ -21,6 +24,7 @@ public class ProductCategoryService {
     private final ProductCategoryRepository productCategoryRepository;
     private final ClusterRepository clusterRepository;
     private final PermissionUtil permissionUtil;
+    private final ProductTemplateScanCache scanCache;
     
     /**
      * 创建商品分类(需要ADMIN权限)
@@ -52,25 +56,27 @@ public class ProductCategoryService {
     }
     
     /**
-     * 获取集群的所有商品分类
+     * 获取集群的商品分类(游标分页)
      */
-    public List<ProductCategoryResponseDTO> getProductCategoriesByCluster(Long clusterId, String userEmail) {
+    @Transactional(readOnly = true)
+    public SliceResponseDTO<ProductCategoryResponseDTO> getProductCategoriesByCluster(Long clusterId, String userEmail, String cursor, Integer limit) {
         // 验证集群是否存在
-        Cluster cluster = clusterRepository.findById(clusterId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cluster not found: " + clusterId));
+        if (!clusterRepository.existsById(clusterId)) {
+            throw new ResourceNotFoundException("Cluster not found: " + clusterId);
+        }
         
         // 验证用户是否是集群成员
         permissionUtil.verifyClusterMember(clusterId, userEmail);
         
-        List<ProductCategory> categories = productCategoryRepository.findByClusterId(clusterId);
-        return categories.stream()
-                .map(category -> toResponseDTO(category, cluster.getName()))
-                .collect(Collectors.toList());
+        Slice<ProductCategoryResponseDTO> categories = productCategoryRepository.findResponsesByClusterId(
+                clusterId, CursorUtil.decodeId(cursor), CursorUtil.pageRequest(limit));
+        return CursorUtil.toResponse(categories, Function.identity(), ProductCategoryResponseDTO::getId);
     }
     
     /**
      * 根据ID获取商品分类
      */
+    @Transactional(readOnly = true)
     public ProductCategoryResponseDTO getProductCategoryById(Long id, String userEmail) {
         ProductCategory category = productCategoryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product category not found: " + id));
@@ -111,6 +117,8 @@ public class ProductCategoryService {
         category.setImage(dto.getImage());
         
         ProductCategory updatedCategory = productCategoryRepository.save(category);
+        // 扫码缓存中的模板摘要带有分类名称
+        scanCache.evictCluster(category.getClusterId());
         return toResponseDTO(updatedCategory, cluster.getName());
     }
     
@@ -126,21 +134,17 @@ public class ProductCategoryService {
         permissionUtil.verifyClusterAdmin(category.getClusterId(), userEmail);
         
         productCategoryRepository.delete(category);
+        scanCache.evictCluster(category.getClusterId());
     }
     
     /**
-     * 获取当前用户创建的所有商品分类
+     * 获取当前用户创建的商品分类(游标分页)
      */
-    public List<ProductCategoryResponseDTO> getMyProductCategories(String creatorEmail) {
-        List<ProductCategory> categories = productCategoryRepository.findByCreatorEmail(creatorEmail);
-        return categories.stream()
-                .map(category -> {
-                    String clusterName = clusterRepository.findById(category.getClusterId())
-                            .map(Cluster::getName)
-                            .orElse("Unknown");
-                    return toResponseDTO(category, clusterName);
-                })
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public SliceResponseDTO<ProductCategoryResponseDTO> getMyProductCategories(String creatorEmail, String cursor, Integer limit) {
+        Slice<ProductCategoryResponseDTO> categories = productCategoryRepository.findResponsesByCreatorEmail(
+                creatorEmail, CursorUtil.decodeId(cursor), CursorUtil.pageRequest(limit));
+        return CursorUtil.toResponse(categories, Function.identity(), ProductCategoryResponseDTO::getId);
     }
     
     /**
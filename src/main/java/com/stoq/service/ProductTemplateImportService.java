@@ -0,0 +1,487 @@
+package com.stoq.service;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stoq.dto.BulkImportResultDTO;
+import com.stoq.dto.CreateProductTemplateDTO;
+import com.stoq.entity.ProductCategory;
+import com.stoq.repository.ProductCategoryRepository;
+import com.stoq.repository.ProductTemplateRepository;
+import com.stoq.util.CsvReader;
+import com.stoq.util.PermissionUtil;
+import com.stoq.util.ProductTemplateScanCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 商品模板批量导入
+ * 流式读取JSON数组或CSV,按块处理: 每个分类只做一次权限检查,名称和条码唯一性用集合查询完成,
+ * 插入通过JDBC批量执行。单行错误只记录到结果中,不影响其它行。
+ */
+@Service
+@Slf4j
+public class ProductTemplateImportService {
+    
+    private static final String INSERT_SQL = "INSERT INTO product_templates "
+            + "(category_id, cluster_id, name, description, unit, price, currency, supplier, supplier_country, "
+            + "bar_code, qr_code, creator_email, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String INSERT_IMAGE_SQL =
+            "INSERT INTO product_template_images (template_id, position, url) VALUES (?, ?, ?)";
+    
+    // CSV列名与CreateProductTemplateDTO字段一致,images列内多张图片用"|"分隔
+    private static final List<String> CSV_COLUMNS = Arrays.asList(
+            "categoryId", "name", "description", "images", "unit", "price", "currency",
+            "supplier", "supplierCountry", "barCode", "qrCode");
+    
+    private final ProductTemplateRepository productTemplateRepository;
+    private final ProductCategoryRepository productCategoryRepository;
+    private final PermissionUtil permissionUtil;
+    private final ProductTemplateScanCache scanCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int batchSize;
+    
+    public ProductTemplateImportService(ProductTemplateRepository productTemplateRepository,
+                                        ProductCategoryRepository productCategoryRepository,
+                                        PermissionUtil permissionUtil,
+                                        ProductTemplateScanCache scanCache,
+                                        JdbcTemplate jdbcTemplate,
+                                        TransactionTemplate transactionTemplate,
+                                        ObjectMapper objectMapper,
+                                        Validator validator,
+                                        @Value("${stoq.import.batch-size:500}") int batchSize) {
+        this.productTemplateRepository = productTemplateRepository;
+        this.productCategoryRepository = productCategoryRepository;
+        this.permissionUtil = permissionUtil;
+        this.scanCache = scanCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.batchSize = batchSize;
+    }
+    
+    /**
+     * 导入JSON数组(元素为CreateProductTemplateDTO)
+     */
+    public BulkImportResultDTO importJson(InputStream in, String creatorEmail) throws IOException {
+        ImportContext context = new ImportContext(creatorEmail);
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Request body must be a JSON array");
+            }
+            int row = 0;
+            try {
+                JsonToken token;
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    if (token == null) {
+                        throw new IllegalArgumentException("Unexpected end of JSON array");
+                    }
+                    row++;
+                    // 先读成树再转换,单行字段类型错误不会破坏解析器位置
+                    JsonNode node = objectMapper.readTree(parser);
+                    try {
+                        context.add(row, objectMapper.treeToValue(node, CreateProductTemplateDTO.class));
+                    } catch (JsonProcessingException e) {
+                        context.reject(row, "Invalid row: " + e.getOriginalMessage());
+                    }
+                }
+            } catch (JsonProcessingException e) {
+                // 语法错误后无法继续读取,已处理的行保留
+                context.reject(row + 1, "Malformed JSON, import stopped: " + e.getOriginalMessage());
+            }
+        }
+        return context.finish();
+    }
+    
+    /**
+     * 导入CSV(首行为表头)
+     */
+    public BulkImportResultDTO importCsv(InputStream in, String creatorEmail) throws IOException {
+        ImportContext context = new ImportContext(creatorEmail);
+        CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        
+        List<String> header = reader.readRow();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim(), i);
+        }
+        List<String> unknown = columns.keySet().stream()
+                .filter(column -> !CSV_COLUMNS.contains(column))
+                .collect(Collectors.toList());
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Unknown CSV columns: " + unknown);
+        }
+        
+        int row = 0;
+        List<String> fields;
+        while ((fields = reader.readRow()) != null) {
+            if (fields.size() == 1 && fields.get(0).isEmpty()) {
+                continue; // 跳过空行
+            }
+            row++;
+            try {
+                context.add(row, toDTO(fields, columns));
+            } catch (IllegalArgumentException e) {
+                context.reject(row, e.getMessage());
+            }
+        }
+        return context.finish();
+    }
+    
+    private CreateProductTemplateDTO toDTO(List<String> fields, Map<String, Integer> columns) {
+        CreateProductTemplateDTO dto = new CreateProductTemplateDTO();
+        String categoryId = field(fields, columns, "categoryId");
+        String price = field(fields, columns, "price");
+        try {
+            dto.setCategoryId(categoryId == null ? null : Long.valueOf(categoryId));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid categoryId: " + categoryId);
+        }
+        try {
+            dto.setPrice(price == null ? null : new BigDecimal(price));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid price: " + price);
+        }
+        dto.setName(field(fields, columns, "name"));
+        dto.setDescription(field(fields, columns, "description"));
+        String images = field(fields, columns, "images");
+        if (images != null) {
+            dto.setImages(Arrays.stream(images.split("\\|"))
+                    .map(String::trim)
+                    .filter(image -> !image.isEmpty())
+                    .collect(Collectors.toList()));
+        }
+        dto.setUnit(field(fields, columns, "unit"));
+        dto.setCurrency(field(fields, columns, "currency"));
+        dto.setSupplier(field(fields, columns, "supplier"));
+        dto.setSupplierCountry(field(fields, columns, "supplierCountry"));
+        dto.setBarCode(field(fields, columns, "barCode"));
+        dto.setQrCode(field(fields, columns, "qrCode"));
+        return dto;
+    }
+    
+    private static String field(List<String> fields, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+    
+    private static String nameKey(Long categoryId, String name) {
+        return categoryId + ":" + name;
+    }
+    
+    private static String codeKey(Long clusterId, String code) {
+        return clusterId + ":" + code;
+    }
+    
+    /**
+     * 单次导入的状态: 当前块、分类权限结果和已导入的名称
+     */
+    private class ImportContext {
+        private final String creatorEmail;
+        private final BulkImportResultDTO result = new BulkImportResultDTO();
+        private final List<ImportRow> chunk = new ArrayList<>();
+        // 分类ID -> 错误信息(空字符串表示允许导入)
+        private final Map<Long, String> categoryErrors = new HashMap<>();
+        // 分类ID -> 集群ID(仅允许导入的分类)
+        private final Map<Long, Long> categoryClusters = new HashMap<>();
+        // 本次导入中已出现的(分类ID, 名称)和(集群ID, 条码),用于文件内去重
+        private final Set<String> seenNames = new HashSet<>();
+        private final Set<String> seenBarCodes = new HashSet<>();
+        private final Set<String> seenQrCodes = new HashSet<>();
+        
+        private ImportContext(String creatorEmail) {
+            this.creatorEmail = creatorEmail;
+        }
+        
+        private void add(int row, CreateProductTemplateDTO dto) {
+            result.setTotalRows(result.getTotalRows() + 1);
+            Set<ConstraintViolation<CreateProductTemplateDTO>> violations = validator.validate(dto);
+            if (!violations.isEmpty()) {
+                fail(row, violations.stream()
+                        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                return;
+            }
+            dto.setBarCode(ProductTemplateService.normalizeCode(dto.getBarCode()));
+            dto.setQrCode(ProductTemplateService.normalizeCode(dto.getQrCode()));
+            chunk.add(new ImportRow(row, dto));
+            if (chunk.size() >= batchSize) {
+                flush();
+            }
+        }
+        
+        private void reject(int row, String message) {
+            result.setTotalRows(result.getTotalRows() + 1);
+            fail(row, message);
+        }
+        
+        private void fail(int row, String message) {
+            result.setFailedRows(result.getFailedRows() + 1);
+            result.getErrors().add(new BulkImportResultDTO.RowError(row, message));
+        }
+        
+        private BulkImportResultDTO finish() {
+            flush();
+            result.getErrors().sort((a, b) -> Integer.compare(a.getRow(), b.getRow()));
+            log.info("✅ 商品模板批量导入完成: {} (共{}行, 成功{}行, 失败{}行)",
+                    creatorEmail, result.getTotalRows(), result.getImportedRows(), result.getFailedRows());
+            return result;
+        }
+        
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            resolveCategories();
+            
+            // 分类不存在或无权限的行
+            List<ImportRow> permitted = new ArrayList<>();
+            for (ImportRow row : chunk) {
+                String error = categoryErrors.get(row.dto.getCategoryId());
+                if (error.isEmpty()) {
+                    row.clusterId = categoryClusters.get(row.dto.getCategoryId());
+                    permitted.add(row);
+                } else {
+                    fail(row.row, error);
+                }
+            }
+            chunk.clear();
+            
+            // 一次集合查询检查名称唯一性
+            Set<String> existing = new HashSet<>();
+            if (!permitted.isEmpty()) {
+                Set<Long> categoryIds = permitted.stream().map(row -> row.dto.getCategoryId()).collect(Collectors.toSet());
+                Set<String> names = permitted.stream().map(row -> row.dto.getName()).collect(Collectors.toSet());
+                for (Object[] pair : productTemplateRepository.findExistingNames(categoryIds, names)) {
+                    existing.add(nameKey((Long) pair[0], (String) pair[1]));
+                }
+            }
+            
+            // 条形码/二维码在集群内唯一,同样各用一次集合查询
+            Set<String> existingBarCodes = existingCodes(permitted, ImportRow::barCode,
+                    productTemplateRepository::findExistingBarCodes);
+            Set<String> existingQrCodes = existingCodes(permitted, ImportRow::qrCode,
+                    productTemplateRepository::findExistingQrCodes);
+            
+            List<ImportRow> inserts = new ArrayList<>();
+            for (ImportRow row : permitted) {
+                String key = nameKey(row.dto.getCategoryId(), row.dto.getName());
+                String barCodeKey = row.barCode() == null ? null : codeKey(row.clusterId, row.barCode());
+                String qrCodeKey = row.qrCode() == null ? null : codeKey(row.clusterId, row.qrCode());
+                if (existing.contains(key)) {
+                    fail(row.row, "Template name already exists in this category");
+                } else if (existingBarCodes.contains(barCodeKey)) {
+                    fail(row.row, "Bar code already exists in this cluster");
+                } else if (existingQrCodes.contains(qrCodeKey)) {
+                    fail(row.row, "QR code already exists in this cluster");
+                } else if (seenNames.contains(key)) {
+                    fail(row.row, "Duplicate template name in import");
+                } else if (barCodeKey != null && seenBarCodes.contains(barCodeKey)) {
+                    fail(row.row, "Duplicate bar code in import");
+                } else if (qrCodeKey != null && seenQrCodes.contains(qrCodeKey)) {
+                    fail(row.row, "Duplicate QR code in import");
+                } else {
+                    seenNames.add(key);
+                    if (barCodeKey != null) {
+                        seenBarCodes.add(barCodeKey);
+                    }
+                    if (qrCodeKey != null) {
+                        seenQrCodes.add(qrCodeKey);
+                    }
+                    inserts.add(row);
+                }
+            }
+            insert(inserts);
+        }
+        
+        /**
+         * 查询本块中已被占用的条码,返回codeKey集合
+         */
+        private Set<String> existingCodes(List<ImportRow> rows, Function<ImportRow, String> code,
+                                          BiFunction<Set<Long>, Set<String>, List<Object[]>> query) {
+            Set<String> codes = rows.stream().map(code).filter(Objects::nonNull).collect(Collectors.toSet());
+            if (codes.isEmpty()) {
+                return new HashSet<>();
+            }
+            Set<Long> clusterIds = rows.stream().map(row -> row.clusterId).collect(Collectors.toSet());
+            return query.apply(clusterIds, codes).stream()
+                    .map(pair -> codeKey((Long) pair[0], (String) pair[1]))
+                    .collect(Collectors.toSet());
+        }
+        
+        /**
+         * 查询本块中新出现的分类,每个分类只检查一次ADMIN权限
+         */
+        private void resolveCategories() {
+            Set<Long> unresolved = chunk.stream()
+                    .map(row -> row.dto.getCategoryId())
+                    .filter(categoryId -> !categoryErrors.containsKey(categoryId))
+                    .collect(Collectors.toSet());
+            if (unresolved.isEmpty()) {
+                return;
+            }
+            for (ProductCategory category : productCategoryRepository.findAllById(unresolved)) {
+                boolean admin = permissionUtil.isClusterAdmin(category.getClusterId(), creatorEmail);
+                categoryErrors.put(category.getId(), admin ? "" : "You don't have permission to access this cluster");
+                categoryClusters.put(category.getId(), category.getClusterId());
+            }
+            for (Long categoryId : unresolved) {
+                categoryErrors.putIfAbsent(categoryId, "Product category not found: " + categoryId);
+            }
+        }
+        
+        private void insert(List<ImportRow> rows) {
+            if (rows.isEmpty()) {
+                return;
+            }
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    List<Long> ids = insertTemplates(rows, now);
+                    insertImages(rows, ids);
+                });
+                result.setImportedRows(result.getImportedRows() + rows.size());
+                // 之前扫描过的未知条码可能已缓存为"未找到"
+                for (ImportRow row : rows) {
+                    scanCache.evict(row.clusterId, row.barCode(), row.qrCode());
+                }
+            } catch (DataAccessException e) {
+                // 整块回滚,块内各行记为失败
+                log.error("❌ 商品模板批量插入失败: {}", e.getMostSpecificCause().getMessage());
+                for (ImportRow row : rows) {
+                    seenNames.remove(nameKey(row.dto.getCategoryId(), row.dto.getName()));
+                    seenBarCodes.remove(codeKey(row.clusterId, row.barCode()));
+                    seenQrCodes.remove(codeKey(row.clusterId, row.qrCode()));
+                    fail(row.row, "Batch insert failed: " + e.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+        
+        /**
+         * 批量插入模板,返回按行顺序的自增ID
+         */
+        private List<Long> insertTemplates(List<ImportRow> rows, Timestamp now) {
+            return jdbcTemplate.execute((Connection connection) -> {
+                try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                    for (ImportRow row : rows) {
+                        CreateProductTemplateDTO dto = row.dto;
+                        ps.setLong(1, dto.getCategoryId());
+                        ps.setLong(2, row.clusterId);
+                        ps.setString(3, dto.getName());
+                        ps.setString(4, dto.getDescription());
+                        ps.setString(5, dto.getUnit());
+                        ps.setBigDecimal(6, dto.getPrice());
+                        ps.setString(7, dto.getCurrency());
+                        ps.setString(8, dto.getSupplier());
+                        ps.setString(9, dto.getSupplierCountry());
+                        ps.setString(10, dto.getBarCode());
+                        ps.setString(11, dto.getQrCode());
+                        ps.setString(12, creatorEmail);
+                        ps.setTimestamp(13, now);
+                        ps.setTimestamp(14, now);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                    
+                    List<Long> ids = new ArrayList<>(rows.size());
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        while (keys.next()) {
+                            ids.add(keys.getLong(1));
+                        }
+                    }
+                    if (ids.size() != rows.size()) {
+                        throw new IncorrectResultSizeDataAccessException("Unexpected number of generated keys", rows.size(), ids.size());
+                    }
+                    return ids;
+                }
+            });
+        }
+        
+        /**
+         * 批量插入图片(position从0开始,与@OrderColumn一致)
+         */
+        private void insertImages(List<ImportRow> rows, List<Long> ids) {
+            List<Object[]> images = new ArrayList<>();
+            for (int i = 0; i < rows.size(); i++) {
+                List<String> urls = rows.get(i).dto.getImages();
+                if (urls == null) {
+                    continue;
+                }
+                for (int position = 0; position < urls.size(); position++) {
+                    images.add(new Object[]{ids.get(i), position, urls.get(position)});
+                }
+            }
+            if (!images.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_IMAGE_SQL, images);
+            }
+        }
+    }
+    
+    /**
+     * 已通过校验的待导入行
+     */
+    private static final class ImportRow {
+        private final int row;
+        private final CreateProductTemplateDTO dto;
+        private Long clusterId; // 分类权限检查通过后设置
+        
+        private ImportRow(int row, CreateProductTemplateDTO dto) {
+            this.row = row;
+            this.dto = dto;
+        }
+        
+        private String barCode() {
+            return dto.getBarCode();
+        }
+        
+        private String qrCode() {
+            return dto.getQrCode();
+        }
+    }
+}
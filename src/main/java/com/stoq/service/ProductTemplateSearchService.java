@@ -0,0 +1,163 @@
+package com.stoq.service;
+import com.stoq.config.SchemaIndexVerifier;
+import com.stoq.dto.ProductTemplateSummaryDTO;
+import com.stoq.dto.SliceResponseDTO;
+import com.stoq.util.CursorUtil;
+import com.stoq.util.PermissionUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * 商品模板搜索(按名称、供应商、条形码、二维码)
+ * MySQL下名称和供应商使用FULLTEXT(ngram)布尔模式前缀匹配并按相关度排序,条形码和二维码走(clusterId, code)索引前缀匹配;
+ * 其它数据库退化为LIKE查询。分页游标为结果偏移量。
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductTemplateSearchService {
+    
+    public static final int MAX_QUERY_LENGTH = 100;
+    
+    // 条形码/二维码前缀命中排在全文匹配之前
+    private static final int CODE_MATCH_SCORE = 1000;
+    
+    private static final String SELECT_COLUMNS = "SELECT t.id, t.name, t.unit, t.price, t.currency, t.supplier, "
+            + "t.supplier_country, t.bar_code, t.qr_code, t.category_id, c.name AS category_name, c.cluster_id, "
+            + "t.creator_email, t.created_at, t.updated_at ";
+    
+    private static final RowMapper<ProductTemplateSummaryDTO> SUMMARY_MAPPER = (rs, rowNum) -> {
+        ProductTemplateSummaryDTO dto = new ProductTemplateSummaryDTO();
+        dto.setId(rs.getLong("id"));
+        dto.setName(rs.getString("name"));
+        dto.setUnit(rs.getString("unit"));
+        dto.setPrice(rs.getBigDecimal("price"));
+        dto.setCurrency(rs.getString("currency"));
+        dto.setSupplier(rs.getString("supplier"));
+        dto.setSupplierCountry(rs.getString("supplier_country"));
+        dto.setBarCode(rs.getString("bar_code"));
+        dto.setQrCode(rs.getString("qr_code"));
+        dto.setCategoryId(rs.getLong("category_id"));
+        dto.setCategoryName(rs.getString("category_name"));
+        dto.setClusterId(rs.getLong("cluster_id"));
+        dto.setCreatorEmail(rs.getString("creator_email"));
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        dto.setCreatedAt(createdAt == null ? null : createdAt.toLocalDateTime());
+        Timestamp updatedAt = rs.getTimestamp("updated_at");
+        dto.setUpdatedAt(updatedAt == null ? null : updatedAt.toLocalDateTime());
+        return dto;
+    };
+    
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final PermissionUtil permissionUtil;
+    private final SchemaIndexVerifier schemaIndexVerifier;
+    
+    /**
+     * 在集群内搜索商品模板(需要集群成员权限)
+     */
+    @Transactional(readOnly = true)
+    public SliceResponseDTO<ProductTemplateSummaryDTO> search(Long clusterId, String query, String userEmail,
+                                                             String cursor, Integer limit) {
+        String keyword = query == null ? "" : query.trim();
+        if (keyword.isEmpty()) {
+            throw new IllegalArgumentException("Search query cannot be empty");
+        }
+        if (keyword.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Search query cannot exceed " + MAX_QUERY_LENGTH + " characters");
+        }
+        
+        permissionUtil.verifyClusterMember(clusterId, userEmail);
+        
+        long offset = CursorUtil.decodeId(cursor);
+        int size = CursorUtil.pageRequest(limit).getPageSize();
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("clusterId", clusterId)
+                .addValue("prefix", escapeLike(keyword) + "%")
+                .addValue("limit", size + 1)
+                .addValue("offset", offset);
+        
+        String booleanQuery = toBooleanQuery(keyword);
+        String sql;
+        if (schemaIndexVerifier.isFullTextAvailable()) {
+            params.addValue("terms", booleanQuery);
+            sql = fullTextSql(!booleanQuery.isEmpty());
+        } else {
+            params.addValue("contains", "%" + escapeLike(keyword.toLowerCase(Locale.ROOT)) + "%");
+            sql = likeSql();
+        }
+        
+        List<ProductTemplateSummaryDTO> rows = jdbcTemplate.query(sql, params, SUMMARY_MAPPER);
+        SliceResponseDTO<ProductTemplateSummaryDTO> response = new SliceResponseDTO<>();
+        boolean hasNext = rows.size() > size;
+        response.setItems(hasNext ? rows.subList(0, size) : rows);
+        response.setHasNext(hasNext);
+        if (hasNext) {
+            response.setNextCursor(CursorUtil.encode(offset + size));
+        }
+        return response;
+    }
+    
+    /**
+     * 全文检索: 各分支分别走自己的索引并按集群过滤,合并后按最高得分排序
+     */
+    private static String fullTextSql(boolean withFullText) {
+        StringBuilder matches = new StringBuilder();
+        if (withFullText) {
+            matches.append("SELECT id, MATCH(name, supplier) AGAINST (:terms IN BOOLEAN MODE) AS score ")
+                    .append("FROM product_templates WHERE MATCH(name, supplier) AGAINST (:terms IN BOOLEAN MODE) ")
+                    .append("AND cluster_id = :clusterId ")
+                    .append("UNION ALL ");
+        }
+        matches.append("SELECT id, ").append(CODE_MATCH_SCORE).append(" AS score FROM product_templates ")
+                .append("WHERE cluster_id = :clusterId AND bar_code LIKE :prefix ")
+                .append("UNION ALL ")
+                .append("SELECT id, ").append(CODE_MATCH_SCORE).append(" AS score FROM product_templates ")
+                .append("WHERE cluster_id = :clusterId AND qr_code LIKE :prefix");
+        
+        return SELECT_COLUMNS
+                + "FROM (SELECT id, MAX(score) AS score FROM (" + matches + ") u GROUP BY id) m "
+                + "JOIN product_templates t ON t.id = m.id "
+                + "JOIN product_categories c ON c.id = t.category_id "
+                + "WHERE t.cluster_id = :clusterId "
+                + "ORDER BY m.score DESC, t.id "
+                + "LIMIT :limit OFFSET :offset";
+    }
+    
+    /**
+     * 无全文索引时的LIKE查询,条形码/二维码命中优先
+     */
+    private static String likeSql() {
+        return SELECT_COLUMNS
+                + "FROM product_templates t "
+                + "JOIN product_categories c ON c.id = t.category_id "
+                + "WHERE t.cluster_id = :clusterId "
+                + "AND (LOWER(t.name) LIKE :contains OR LOWER(t.supplier) LIKE :contains "
+                + "OR t.bar_code LIKE :prefix OR t.qr_code LIKE :prefix) "
+                + "ORDER BY CASE WHEN t.bar_code LIKE :prefix OR t.qr_code LIKE :prefix THEN 0 ELSE 1 END, t.name, t.id "
+                + "LIMIT :limit OFFSET :offset";
+    }
+    
+    /**
+     * 转换为布尔模式查询: 每个词都必须出现(+),并做前缀匹配(*)
+     */
+    private static String toBooleanQuery(String keyword) {
+        return Arrays.stream(keyword.split("\\s+"))
+                .map(term -> term.replaceAll("[+\\-<>()~*\"@]", ""))
+                .filter(term -> !term.isEmpty())
+                .map(term -> "+" + term + "*")
+                .collect(Collectors.joining(" "));
+    }
+    
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -1,19 +1,36 @@
 package com.stoq.service;
 import com.stoq.dto.CreateProductTemplateDTO;
 import com.stoq.dto.ProductTemplateResponseDTO;
+import com.stoq.dto.ProductTemplateSummaryDTO;
+import com.stoq.dto.ScanResultDTO;
+import com.stoq.dto.SliceResponseDTO;
 import com.stoq.entity.ProductCategory;
 import com.stoq.entity.ProductTemplate;
+import com.stoq.entity.StockLevel;
+import com.stoq.entity.StockMovement;
+import com.stoq.enums.StockMovementType;
 import com.stoq.exception.ResourceNotFoundException;
 import com.stoq.repository.ProductCategoryRepository;
 import com.stoq.repository.ProductTemplateRepository;
+import com.stoq.repository.StockLevelRepository;
+import com.stoq.util.CursorUtil;
 import com.stoq.util.PermissionUtil;
+import com.stoq.util.PrimaryReadTemplate;
+import com.stoq.util.ProductTemplateScanCache;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Arrays;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
@@ -22,6 +39,10 @@ public class ProductTemplateService {
     private final ProductTemplateRepository productTemplateRepository;
     private final ProductCategoryRepository productCategoryRepository;
     private final PermissionUtil permissionUtil;
+    private final ProductTemplateScanCache scanCache;
+    private final PrimaryReadTemplate primaryReadTemplate;
+    private final StockLevelRepository stockLevelRepository;
+    private final StockMovementJournal stockMovementJournal;
     
     /**
      * 创建商品模板(需要ADMIN权限)
@@ -40,15 +61,20 @@ public class ProductTemplateService {
             throw new IllegalArgumentException("Template name already exists in this category");
         }
         
+        // 检查条形码/二维码是否已存在(在集群内唯一)
+        String barCode = normalizeCode(dto.getBarCode());
+        String qrCode = normalizeCode(dto.getQrCode());
+        verifyCodesAvailable(category.getClusterId(), barCode, qrCode, null);
+        
         // 创建模板
         ProductTemplate template = new ProductTemplate();
         template.setCategoryId(dto.getCategoryId());
+        template.setClusterId(category.getClusterId());
         template.setName(dto.getName());
         template.setDescription(dto.getDescription());
         
-        // 将图片列表转换为逗号分隔的字符串
         if (dto.getImages() != null && !dto.getImages().isEmpty()) {
-            template.setImages(String.join(",", dto.getImages()));
+            template.setImages(new ArrayList<>(dto.getImages()));
         }
         
         template.setUnit(dto.getUnit());
@@ -56,18 +82,21 @@ public class ProductTemplateService {
         template.setCurrency(dto.getCurrency());
         template.setSupplier(dto.getSupplier());
         template.setSupplierCountry(dto.getSupplierCountry());
-        template.setBarCode(dto.getBarCode());
-        template.setQrCode(dto.getQrCode());
+        template.setBarCode(barCode);
+        template.setQrCode(qrCode);
         template.setCreatorEmail(creatorEmail);
         
         ProductTemplate savedTemplate = productTemplateRepository.save(template);
+        // 之前扫描过的未知条码可能已缓存为"未找到"
+        scanCache.evict(category.getClusterId(), barCode, qrCode);
         return toResponseDTO(savedTemplate, category);
     }
     
     /**
-     * 获取分类的所有商品模板
+     * 获取分类的商品模板(游标分页)
      */
-    public List<ProductTemplateResponseDTO> getProductTemplatesByCategory(Long categoryId, String userEmail) {
+    @Transactional(readOnly = true)
+    public SliceResponseDTO<ProductTemplateSummaryDTO> getProductTemplatesByCategory(Long categoryId, String userEmail, String cursor, Integer limit) {
         // 验证分类是否存在
         ProductCategory category = productCategoryRepository.findById(categoryId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product category not found: " + categoryId));
@@ -75,15 +104,15 @@ public class ProductTemplateService {
         // 验证用户是否是集群成员
         permissionUtil.verifyClusterMember(category.getClusterId(), userEmail);
         
-        List<ProductTemplate> templates = productTemplateRepository.findByCategoryId(categoryId);
-        return templates.stream()
-                .map(template -> toResponseDTO(template, category))
-                .collect(Collectors.toList());
+        Slice<ProductTemplateSummaryDTO> templates = productTemplateRepository.findSummariesByCategoryId(
+                categoryId, CursorUtil.decodeId(cursor), CursorUtil.pageRequest(limit));
+        return CursorUtil.toResponse(templates, Function.identity(), ProductTemplateSummaryDTO::getId);
     }
     
     /**
      * 根据ID获取商品模板
      */
+    @Transactional(readOnly = true)
     public ProductTemplateResponseDTO getProductTemplateById(Long id, String userEmail) {
         ProductTemplate template = productTemplateRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product template not found: " + id));
@@ -118,13 +147,20 @@ public class ProductTemplateService {
             }
         }
         
+        // 检查条形码/二维码是否被其他模板使用
+        String barCode = normalizeCode(dto.getBarCode());
+        String qrCode = normalizeCode(dto.getQrCode());
+        verifyCodesAvailable(category.getClusterId(), barCode, qrCode, template.getId());
+        scanCache.evict(category.getClusterId(), template.getBarCode(), template.getQrCode(), barCode, qrCode);
+        
         // 更新模板信息
         template.setName(dto.getName());
         template.setDescription(dto.getDescription());
         
-        // 将图片列表转换为逗号分隔的字符串
+        // 替换图片列表(保持原集合实例,由Hibernate计算差异)
         if (dto.getImages() != null && !dto.getImages().isEmpty()) {
-            template.setImages(String.join(",", dto.getImages()));
+            template.getImages().clear();
+            template.getImages().addAll(dto.getImages());
         }
         
         template.setUnit(dto.getUnit());
@@ -132,8 +168,8 @@ public class ProductTemplateService {
         template.setCurrency(dto.getCurrency());
         template.setSupplier(dto.getSupplier());
         template.setSupplierCountry(dto.getSupplierCountry());
-        template.setBarCode(dto.getBarCode());
-        template.setQrCode(dto.getQrCode());
+        template.setBarCode(barCode);
+        template.setQrCode(qrCode);
         
         ProductTemplate updatedTemplate = productTemplateRepository.save(template);
         return toResponseDTO(updatedTemplate, category);
@@ -153,21 +189,110 @@ public class ProductTemplateService {
         // 验证用户是否有权限(仅ADMIN)
         permissionUtil.verifyClusterAdmin(category.getClusterId(), userEmail);
         
+        closeStockLevels(id, userEmail);
+        stockLevelRepository.deleteByProductTemplateId(id);
         productTemplateRepository.delete(template);
+        scanCache.evict(category.getClusterId(), template.getBarCode(), template.getQrCode());
+    }
+    
+    /**
+     * 删除库存行之前为每个仓库的剩余数量写入一条CLOSING流水(-quantity),
+     * 保持"流水合计等于当前数量",删除后的快照和历史查询不再带出该模板
+     */
+    private void closeStockLevels(Long productTemplateId, String userEmail) {
+        LocalDateTime now = LocalDateTime.now();
+        List<StockMovement> movements = new ArrayList<>();
+        for (StockLevel level : stockLevelRepository.findNonZeroByProductTemplateIdForUpdate(productTemplateId)) {
+            StockMovement movement = new StockMovement();
+            movement.setStoqId(level.getStoqId());
+            movement.setProductTemplateId(productTemplateId);
+            movement.setType(StockMovementType.CLOSING);
+            movement.setDelta(-level.getQuantity());
+            movement.setCreatorEmail(userEmail);
+            movement.setCreatedAt(now);
+            movements.add(movement);
+        }
+        stockMovementJournal.append(movements);
+    }
+    
+    /**
+     * 扫码查询: 按条形码或二维码批量解析集群内的模板(需要集群成员权限)
+     * 结果顺序与请求一致,未找到的条码template为null;同一条码同时匹配时条形码优先
+     */
+    @Transactional(readOnly = true)
+    public List<ScanResultDTO> scan(Long clusterId, List<String> codes, String userEmail) {
+        permissionUtil.verifyClusterMember(clusterId, userEmail);
+        
+        Set<String> distinctCodes = new LinkedHashSet<>();
+        codes.forEach(code -> distinctCodes.add(code.trim()));
+        Map<String, Optional<ProductTemplateSummaryDTO>> templates = scanCache.getAll(clusterId, distinctCodes,
+                missing -> resolveCodes(clusterId, missing));
+        
+        List<ScanResultDTO> results = new ArrayList<>(codes.size());
+        for (String code : codes) {
+            results.add(new ScanResultDTO(code, templates.get(code.trim()).orElse(null)));
+        }
+        return results;
+    }
+    
+    /**
+     * 按条码批量解析模板ID(不检查权限,由调用方验证集群成员),未找到的条码不在结果中
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Long> resolveTemplateIds(Long clusterId, Set<String> codes) {
+        Map<String, Long> ids = new HashMap<>();
+        scanCache.getAll(clusterId, codes, missing -> resolveCodes(clusterId, missing))
+                .forEach((code, template) -> template.ifPresent(summary -> ids.put(code, summary.getId())));
+        return ids;
+    }
+    
+    /**
+     * 未缓存的条码: 条形码、二维码各一次IN查询(均走(clusterId, code)唯一索引)
+     * 结果(包括未找到)会进入扫码缓存,因此从主库读取
+     */
+    private Map<String, ProductTemplateSummaryDTO> resolveCodes(Long clusterId, Set<String> codes) {
+        return primaryReadTemplate.execute(() -> findByCodes(clusterId, codes));
+    }
+    
+    private Map<String, ProductTemplateSummaryDTO> findByCodes(Long clusterId, Set<String> codes) {
+        Map<String, ProductTemplateSummaryDTO> found = new HashMap<>();
+        for (ProductTemplate template : productTemplateRepository.findByClusterIdAndQrCodeIn(clusterId, codes)) {
+            found.put(template.getQrCode(), toSummaryDTO(template, template.getCategory()));
+        }
+        for (ProductTemplate template : productTemplateRepository.findByClusterIdAndBarCodeIn(clusterId, codes)) {
+            found.put(template.getBarCode(), toSummaryDTO(template, template.getCategory()));
+        }
+        return found;
+    }
+    
+    /**
+     * 获取当前用户创建的商品模板(游标分页)
+     */
+    @Transactional(readOnly = true)
+    public SliceResponseDTO<ProductTemplateSummaryDTO> getMyProductTemplates(String creatorEmail, String cursor, Integer limit) {
+        Slice<ProductTemplateSummaryDTO> templates = productTemplateRepository.findSummariesByCreatorEmail(
+                creatorEmail, CursorUtil.decodeId(cursor), CursorUtil.pageRequest(limit));
+        return CursorUtil.toResponse(templates, Function.identity(), ProductTemplateSummaryDTO::getId);
     }
     
     /**
-     * 获取当前用户创建的所有商品模板
+     * 空白条码视为未设置,避免空字符串占用唯一索引
      */
-    public List<ProductTemplateResponseDTO> getMyProductTemplates(String creatorEmail) {
-        List<ProductTemplate> templates = productTemplateRepository.findByCreatorEmail(creatorEmail);
-        return templates.stream()
-                .map(template -> {
-                    ProductCategory category = productCategoryRepository.findById(template.getCategoryId())
-                            .orElse(null);
-                    return toResponseDTO(template, category);
-                })
-                .collect(Collectors.toList());
+    static String normalizeCode(String code) {
+        return code == null || code.trim().isEmpty() ? null : code.trim();
+    }
+    
+    /**
+     * 验证条形码/二维码在集群内未被其他模板使用(excludeId为正在更新的模板)
+     */
+    private void verifyCodesAvailable(Long clusterId, String barCode, String qrCode, Long excludeId) {
+        long id = excludeId == null ? 0L : excludeId;
+        if (barCode != null && productTemplateRepository.existsByClusterIdAndBarCodeAndIdNot(clusterId, barCode, id)) {
+            throw new IllegalArgumentException("Bar code already exists in this cluster");
+        }
+        if (qrCode != null && productTemplateRepository.existsByClusterIdAndQrCodeAndIdNot(clusterId, qrCode, id)) {
+            throw new IllegalArgumentException("QR code already exists in this cluster");
+        }
     }
     
     /**
@@ -179,11 +304,35 @@ public class ProductTemplateService {
         dto.setName(template.getName());
         dto.setDescription(template.getDescription());
         
-        // 将逗号分隔的字符串转换为列表
-        if (template.getImages() != null && !template.getImages().isEmpty()) {
-            dto.setImages(Arrays.asList(template.getImages().split(",")));
+        dto.setImages(new ArrayList<>(template.getImages()));
+        
+        dto.setUnit(template.getUnit());
+        dto.setPrice(template.getPrice());
+        dto.setCurrency(template.getCurrency());
+        dto.setSupplier(template.getSupplier());
+        dto.setSupplierCountry(template.getSupplierCountry());
+        dto.setBarCode(template.getBarCode());
+        dto.setQrCode(template.getQrCode());
+        dto.setCategoryId(template.getCategoryId());
+        
+        if (category != null) {
+            dto.setCategoryName(category.getName());
+            dto.setClusterId(category.getClusterId());
         }
         
+        dto.setCreatorEmail(template.getCreatorEmail());
+        dto.setCreatedAt(template.getCreatedAt());
+        dto.setUpdatedAt(template.getUpdatedAt());
+        return dto;
+    }
+    
+    /**
+     * 转换为摘要DTO(不访问图片集合,不会触发图片加载)
+     */
+    private ProductTemplateSummaryDTO toSummaryDTO(ProductTemplate template, ProductCategory category) {
+        ProductTemplateSummaryDTO dto = new ProductTemplateSummaryDTO();
+        dto.setId(template.getId());
+        dto.setName(template.getName());
         dto.setUnit(template.getUnit());
         dto.setPrice(template.getPrice());
         dto.setCurrency(template.getCurrency());
@@ -1,28 +1,76 @@
 package com.stoq.service;
 
-import lombok.RequiredArgsConstructor;
+import com.stoq.enums.VerificationCodeResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Redis验证码存储
+ * 每个验证码是一个hash(code、attempts),保存和校验各由一个Lua脚本完成,一次往返且原子执行。
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class RedisVerificationCodeService {
     
     private final RedisTemplate<String, String> redisTemplate;
+    private final int maxAttempts;
+    
+    // Redis命令耗时,按操作类型打tag
+    private final Timer saveTimer;
+    private final Timer getTimer;
+    private final Timer verifyTimer;
+    private final Timer deleteTimer;
+    private final Timer existsTimer;
     
     private static final String VERIFICATION_CODE_PREFIX = "verification_code:";
     private static final long EXPIRATION_MINUTES = 5; // 5分钟有效期
+    private static final String COMMAND_METRIC = "stoq.redis.commands";
+    private static final RedisScript<Long> SAVE_SCRIPT = script("redis/verification_code_save.lua");
+    private static final RedisScript<Long> VERIFY_SCRIPT = script("redis/verification_code_verify.lua");
+    
+    public RedisVerificationCodeService(RedisTemplate<String, String> redisTemplate, MeterRegistry meterRegistry,
+                                        @Value("${stoq.verification.max-attempts:5}") int maxAttempts) {
+        this.redisTemplate = redisTemplate;
+        this.maxAttempts = maxAttempts;
+        this.saveTimer = commandTimer(meterRegistry, "save");
+        this.getTimer = commandTimer(meterRegistry, "get");
+        this.verifyTimer = commandTimer(meterRegistry, "verify");
+        this.deleteTimer = commandTimer(meterRegistry, "delete");
+        this.existsTimer = commandTimer(meterRegistry, "exists");
+    }
+    
+    private static Timer commandTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder(COMMAND_METRIC)
+                .description("Redis command latency for verification codes")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+    
+    private static RedisScript<Long> script(String path) {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource(path)));
+        script.setResultType(Long.class);
+        return script;
+    }
     
     /**
      * 保存验证码到Redis(支持场景)
      */
     public void saveVerificationCode(String email, String code, String scenario) {
         String key = VERIFICATION_CODE_PREFIX + scenario + ":" + email;
-        redisTemplate.opsForValue().set(key, code, EXPIRATION_MINUTES, TimeUnit.MINUTES);
+        saveTimer.record(() -> redisTemplate.execute(SAVE_SCRIPT, Collections.singletonList(key),
+                code, String.valueOf(TimeUnit.MINUTES.toMillis(EXPIRATION_MINUTES))));
         log.info("✅ 验证码已保存到Redis: {} (场景: {}, 有效期: {}分钟)", email, scenario, EXPIRATION_MINUTES);
     }
     
@@ -31,28 +79,27 @@ public class RedisVerificationCodeService {
      */
     public String getVerificationCode(String email, String scenario) {
         String key = VERIFICATION_CODE_PREFIX + scenario + ":" + email;
-        return redisTemplate.opsForValue().get(key);
+        return getTimer.record(() -> (String) redisTemplate.opsForHash().get(key, "code"));
     }
     
     /**
-     * 验证验证码(支持场景)
+     * 验证验证码(支持场景): 比较和删除在同一个脚本中完成,并发校验同一验证码时只有一个成功
+     * 连续输错maxAttempts次后验证码被删除,需要重新发送
      */
-    public boolean verifyCode(String email, String code, String scenario) {
-        String storedCode = getVerificationCode(email, scenario);
-        if (storedCode == null) {
+    public VerificationCodeResult verifyCode(String email, String code, String scenario) {
+        String key = VERIFICATION_CODE_PREFIX + scenario + ":" + email;
+        Long result = verifyTimer.record(() -> redisTemplate.execute(VERIFY_SCRIPT, Collections.singletonList(key),
+                code, String.valueOf(maxAttempts)));
+        if (result == null || result == 0) {
             log.warn("❌ 验证码不存在或已过期: {} (场景: {})", email, scenario);
-            return false;
+            return VerificationCodeResult.ABSENT;
         }
-        
-        boolean isValid = storedCode.equals(code);
-        if (isValid) {
+        if (result == 1) {
             log.info("✅ 验证码验证成功: {} (场景: {})", email, scenario);
-            // 验证成功后立即删除验证码
-            deleteVerificationCode(email, scenario);
-        } else {
-            log.warn("❌ 验证码不正确: {} (场景: {})", email, scenario);
+            return VerificationCodeResult.MATCH;
         }
-        return isValid;
+        log.warn("❌ 验证码不正确: {} (场景: {})", email, scenario);
+        return VerificationCodeResult.MISMATCH;
     }
     
     /**
@@ -60,7 +107,7 @@ public class RedisVerificationCodeService {
      */
     public void deleteVerificationCode(String email, String scenario) {
         String key = VERIFICATION_CODE_PREFIX + scenario + ":" + email;
-        redisTemplate.delete(key);
+        deleteTimer.record(() -> redisTemplate.delete(key));
         log.info("✅ 验证码已删除: {} (场景: {})", email, scenario);
     }
     
@@ -69,6 +116,6 @@ public class RedisVerificationCodeService {
      */
     public boolean exists(String email, String scenario) {
         String key = VERIFICATION_CODE_PREFIX + scenario + ":" + email;
-        return Boolean.TRUE.equals(redisTemplate.hasKey(key));
+        return Boolean.TRUE.equals(existsTimer.record(() -> redisTemplate.hasKey(key)));
     }
 }
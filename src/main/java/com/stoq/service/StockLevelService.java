@@ -0,0 +1,254 @@
+package com.stoq.service;
+import com.stoq.dto.SliceResponseDTO;
+import com.stoq.dto.StockAdjustmentDTO;
+import com.stoq.dto.LowStockThresholdDTO;
+import com.stoq.dto.StockAdjustmentRequestDTO;
+import com.stoq.dto.StockLevelResponseDTO;
+import com.stoq.dto.StockMovementResponseDTO;
+import com.stoq.dto.StockQuantityDTO;
+import com.stoq.dto.StockTransferRequestDTO;
+import com.stoq.entity.ProductTemplate;
+import com.stoq.entity.StockMovement;
+import com.stoq.entity.Stoq;
+import com.stoq.enums.StockMovementType;
+import com.stoq.exception.InsufficientStockException;
+import com.stoq.exception.ResourceNotFoundException;
+import com.stoq.repository.ProductTemplateRepository;
+import com.stoq.repository.StockLevelRepository;
+import com.stoq.repository.StockMovementRepository;
+import com.stoq.repository.StoqRepository;
+import com.stoq.util.CursorUtil;
+import com.stoq.util.PermissionUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * 仓库库存
+ * 数量由单条条件UPDATE原子增减(quantity = quantity + delta,且结果不小于已预留的数量reserved),
+ * 调整和调拨出库不能占用已预留的库存;不先读后写,同一商品的并发调整只在这一行上短暂排队。
+ * 每次变动在同一事务中追加库存流水(StockMovementJournal),历史数量由StockSnapshotService查询。
+ */
+@Service
+@RequiredArgsConstructor
+public class StockLevelService {
+    
+    private final StockLevelRepository stockLevelRepository;
+    private final StockMovementRepository stockMovementRepository;
+    private final StockMovementJournal stockMovementJournal;
+    private final StockSnapshotService stockSnapshotService;
+    private final LowStockAlertService lowStockAlertService;
+    private final StoqRepository stoqRepository;
+    private final ProductTemplateRepository productTemplateRepository;
+    private final PermissionUtil permissionUtil;
+    
+    /**
+     * 批量调整库存(需要集群成员权限)
+     * 同一请求中同一模板的调整先合并,再按模板ID顺序更新,并发请求的加锁顺序一致,不会互相死锁;
+     * 任一商品库存不足时整批回滚
+     */
+    @Transactional
+    public List<StockLevelResponseDTO> adjustStock(Long stoqId, StockAdjustmentRequestDTO dto, String userEmail) {
+        Stoq stoq = findAccessibleStoq(stoqId, userEmail);
+        StockMovementType type = dto.getType() == null ? StockMovementType.ADJUST : dto.getType();
+        if (type != StockMovementType.RECEIVE && type != StockMovementType.PICK && type != StockMovementType.ADJUST) {
+            throw new IllegalArgumentException("Unsupported movement type for adjustments: " + type);
+        }
+        Map<Long, Long> deltas = mergeDeltas(dto.getAdjustments(), type);
+        
+        LocalDateTime now = LocalDateTime.now();
+        List<StockMovement> movements = new ArrayList<>(deltas.size());
+        applyDeltas(stoq, deltas, type, dto.getReference(), userEmail, now, movements);
+        stockMovementJournal.append(movements);
+        lowStockAlertService.markTouched(stoqId, deltas.keySet());
+        
+        return stockLevelRepository.findResponsesByStoqIdAndProductTemplateIds(stoqId, deltas.keySet());
+    }
+    
+    /**
+     * 调拨: 从一个仓库转出、转入同一集群的另一个仓库(需要集群成员权限),返回转出仓库调整后的库存
+     * 两个仓库按仓库ID顺序更新,与其它调整、调拨的加锁顺序((仓库, 模板)升序)一致;
+     * 转出库存不足时整批回滚
+     */
+    @Transactional
+    public List<StockLevelResponseDTO> transferStock(Long stoqId, StockTransferRequestDTO dto, String userEmail) {
+        Stoq source = findAccessibleStoq(stoqId, userEmail);
+        Stoq target = findAccessibleStoq(dto.getTargetStoqId(), userEmail);
+        if (source.getId().equals(target.getId())) {
+            throw new IllegalArgumentException("Cannot transfer stock to the same stoq");
+        }
+        if (!source.getClusterId().equals(target.getClusterId())) {
+            throw new IllegalArgumentException("Stock can only be transferred between stoqs of the same cluster");
+        }
+        Map<Long, Long> incoming = mergeDeltas(dto.getItems(), StockMovementType.TRANSFER_IN);
+        Map<Long, Long> outgoing = new TreeMap<>();
+        incoming.forEach((productTemplateId, quantity) -> outgoing.put(productTemplateId, -quantity));
+        // 未指定单号时生成一个,用来关联转出和转入的流水
+        String reference = dto.getReference() != null ? dto.getReference() : "TRANSFER-" + UUID.randomUUID();
+        
+        LocalDateTime now = LocalDateTime.now();
+        List<StockMovement> movements = new ArrayList<>(incoming.size() * 2);
+        if (source.getId() < target.getId()) {
+            applyDeltas(source, outgoing, StockMovementType.TRANSFER_OUT, reference, userEmail, now, movements);
+            applyDeltas(target, incoming, StockMovementType.TRANSFER_IN, reference, userEmail, now, movements);
+        } else {
+            applyDeltas(target, incoming, StockMovementType.TRANSFER_IN, reference, userEmail, now, movements);
+            applyDeltas(source, outgoing, StockMovementType.TRANSFER_OUT, reference, userEmail, now, movements);
+        }
+        stockMovementJournal.append(movements);
+        lowStockAlertService.markTouched(source.getId(), incoming.keySet());
+        lowStockAlertService.markTouched(target.getId(), incoming.keySet());
+        
+        return stockLevelRepository.findResponsesByStoqIdAndProductTemplateIds(stoqId, incoming.keySet());
+    }
+    
+    /**
+     * 设置商品的低库存阈值(需要集群管理员权限),设置后立即按当前数量检查一次
+     */
+    @Transactional
+    public StockLevelResponseDTO setLowStockThreshold(Long stoqId, Long productTemplateId, LowStockThresholdDTO dto, String userEmail) {
+        Stoq stoq = stoqRepository.findById(stoqId)
+                .orElseThrow(() -> new ResourceNotFoundException("Stoq not found: " + stoqId));
+        permissionUtil.verifyClusterAdmin(stoq.getClusterId(), userEmail);
+        findTemplateInCluster(productTemplateId, stoq.getClusterId());
+        
+        stockLevelRepository.upsertLowStockThreshold(stoqId, productTemplateId, dto.getThreshold(), LocalDateTime.now());
+        lowStockAlertService.markTouched(stoqId, Collections.singleton(productTemplateId));
+        return stockLevelRepository.findResponsesByStoqIdAndProductTemplateIds(stoqId, Collections.singleton(productTemplateId)).get(0);
+    }
+    
+    /**
+     * 获取仓库的库存流水(游标分页,最新的在前)
+     */
+    @Transactional(readOnly = true)
+    public SliceResponseDTO<StockMovementResponseDTO> getStockMovements(Long stoqId, String userEmail, String cursor, Integer limit) {
+        findAccessibleStoq(stoqId, userEmail);
+        
+        Long beforeId = CursorUtil.decodeId(cursor);
+        Slice<StockMovementResponseDTO> movements = stockMovementRepository.findResponsesByStoqId(
+                stoqId, beforeId == 0 ? Long.MAX_VALUE : beforeId, CursorUtil.pageRequest(limit));
+        return CursorUtil.toResponse(movements, Function.identity(), StockMovementResponseDTO::getId);
+    }
+    
+    /**
+     * 获取仓库的库存(游标分页,游标为商品模板ID)
+     */
+    @Transactional(readOnly = true)
+    public SliceResponseDTO<StockLevelResponseDTO> getStockLevels(Long stoqId, String userEmail, String cursor, Integer limit) {
+        findAccessibleStoq(stoqId, userEmail);
+        
+        Slice<StockLevelResponseDTO> stockLevels = stockLevelRepository.findResponsesByStoqId(
+                stoqId, CursorUtil.decodeId(cursor), CursorUtil.pageRequest(limit));
+        return CursorUtil.toResponse(stockLevels, Function.identity(), StockLevelResponseDTO::getProductTemplateId);
+    }
+    
+    /**
+     * 获取单个商品的库存,没有库存记录时数量为0
+     */
+    @Transactional(readOnly = true)
+    public StockLevelResponseDTO getStockLevel(Long stoqId, Long productTemplateId, String userEmail) {
+        Stoq stoq = findAccessibleStoq(stoqId, userEmail);
+        
+        List<StockLevelResponseDTO> found = stockLevelRepository.findResponsesByStoqIdAndProductTemplateIds(
+                stoqId, Collections.singleton(productTemplateId));
+        if (!found.isEmpty()) {
+            return found.get(0);
+        }
+        ProductTemplate template = findTemplateInCluster(productTemplateId, stoq.getClusterId());
+        return new StockLevelResponseDTO(stoqId, productTemplateId, template.getName(), template.getUnit(), 0L, 0L, null, null);
+    }
+    
+    /**
+     * 仓库在历史时刻的库存(最近的快照加上之后的流水),productTemplateId不为空时只查该商品
+     */
+    @Transactional(readOnly = true)
+    public List<StockQuantityDTO> getStockAt(Long stoqId, Long productTemplateId, LocalDateTime at, String userEmail) {
+        findAccessibleStoq(stoqId, userEmail);
+        return stockSnapshotService.getQuantitiesAt(stoqId, productTemplateId, at);
+    }
+    
+    /**
+     * 按模板合并同一请求中的数量变化,并检查方向是否与流水类型一致
+     * (入库和调拨数量须为正数,拣货须为负数)
+     */
+    private static Map<Long, Long> mergeDeltas(List<StockAdjustmentDTO> adjustments, StockMovementType type) {
+        Map<Long, Long> deltas = new TreeMap<>();
+        for (StockAdjustmentDTO adjustment : adjustments) {
+            long delta = adjustment.getDelta();
+            if ((type == StockMovementType.PICK && delta >= 0) || (type != StockMovementType.PICK
+                    && type != StockMovementType.ADJUST && delta <= 0)) {
+                throw new IllegalArgumentException("Invalid delta " + delta + " for movement type " + type
+                        + " (product template " + adjustment.getProductTemplateId() + ")");
+            }
+            deltas.merge(adjustment.getProductTemplateId(), delta, Long::sum);
+        }
+        return deltas;
+    }
+    
+    /**
+     * 按模板ID顺序更新一个仓库的库存,并为每个非零变化生成一条流水
+     */
+    private void applyDeltas(Stoq stoq, Map<Long, Long> deltas, StockMovementType type, String reference,
+                             String userEmail, LocalDateTime now, List<StockMovement> movements) {
+        for (Map.Entry<Long, Long> entry : deltas.entrySet()) {
+            long delta = entry.getValue();
+            if (delta == 0) {
+                continue;
+            }
+            if (stockLevelRepository.adjustQuantity(stoq.getId(), entry.getKey(), delta, now) == 0) {
+                insertOrReject(stoq, entry.getKey(), delta, now);
+            }
+            StockMovement movement = new StockMovement();
+            movement.setStoqId(stoq.getId());
+            movement.setProductTemplateId(entry.getKey());
+            movement.setType(type);
+            movement.setDelta(delta);
+            movement.setReference(reference);
+            movement.setCreatorEmail(userEmail);
+            movement.setCreatedAt(now);
+            movements.add(movement);
+        }
+    }
+    
+    /**
+     * 条件更新未命中: 行不存在时入库插入新行,否则为库存不足(已预留的数量不能被调整或调拨出库)
+     */
+    private void insertOrReject(Stoq stoq, Long productTemplateId, long delta, LocalDateTime now) {
+        if (delta < 0) {
+            long available = stockLevelRepository.findByStoqIdAndProductTemplateId(stoq.getId(), productTemplateId)
+                    .map(level -> level.getQuantity() - level.getReserved())
+                    .orElse(0L);
+            throw new InsufficientStockException("Insufficient stock for product template " + productTemplateId
+                    + ": available " + available + ", requested " + (-delta));
+        }
+        // 首次入库时校验模板属于仓库所在的集群,之后的调整直接命中已有的行
+        findTemplateInCluster(productTemplateId, stoq.getClusterId());
+        stockLevelRepository.insertOrAdd(stoq.getId(), productTemplateId, delta, now);
+    }
+    
+    private ProductTemplate findTemplateInCluster(Long productTemplateId, Long clusterId) {
+        return productTemplateRepository.findById(productTemplateId)
+                .filter(template -> template.getClusterId().equals(clusterId))
+                .orElseThrow(() -> new ResourceNotFoundException("Product template not found: " + productTemplateId));
+    }
+    
+    /**
+     * 查找仓库并验证用户是否是仓库所在集群的成员
+     */
+    private Stoq findAccessibleStoq(Long stoqId, String userEmail) {
+        Stoq stoq = stoqRepository.findById(stoqId)
+                .orElseThrow(() -> new ResourceNotFoundException("Stoq not found: " + stoqId));
+        permissionUtil.verifyClusterMember(stoq.getClusterId(), userEmail);
+        return stoq;
+    }
+}
@@ -0,0 +1,52 @@
+package com.stoq.service;
+
+import com.stoq.entity.StockMovement;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * 库存流水写入
+ * 流水只追加,不经过Hibernate(IDENTITY主键会让Hibernate逐行插入),
+ * 通过JDBC批量插入并加入调用方的事务,与库存数量的更新一起提交或回滚。
+ */
+@Service
+public class StockMovementJournal {
+    
+    private static final String INSERT_SQL = "INSERT INTO stock_movements "
+            + "(stoq_id, product_template_id, type, delta, reference, creator_email, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    
+    public StockMovementJournal(JdbcTemplate jdbcTemplate,
+                                @Value("${stoq.stock.journal.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+    
+    /**
+     * 批量追加流水(必须在调用方的事务中)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(List<StockMovement> movements) {
+        if (movements.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, movements, batchSize, (ps, movement) -> {
+            ps.setLong(1, movement.getStoqId());
+            ps.setLong(2, movement.getProductTemplateId());
+            ps.setString(3, movement.getType().name());
+            ps.setLong(4, movement.getDelta());
+            ps.setString(5, movement.getReference());
+            ps.setString(6, movement.getCreatorEmail());
+            ps.setTimestamp(7, Timestamp.valueOf(movement.getCreatedAt()));
+        });
+    }
+}
@@ -0,0 +1,323 @@
+package com.stoq.service;
+
+import com.stoq.dto.StockReservationItemDTO;
+import com.stoq.dto.StockReservationRequestDTO;
+import com.stoq.dto.StockReservationResponseDTO;
+import com.stoq.entity.StockMovement;
+import com.stoq.entity.StockReservation;
+import com.stoq.entity.StockReservationItem;
+import com.stoq.entity.Stoq;
+import com.stoq.enums.StockMovementType;
+import com.stoq.enums.StockReservationStatus;
+import com.stoq.exception.InsufficientStockException;
+import com.stoq.exception.ReservationStateException;
+import com.stoq.exception.ResourceNotFoundException;
+import com.stoq.repository.StockLevelRepository;
+import com.stoq.repository.StockReservationRepository;
+import com.stoq.repository.StoqRepository;
+import com.stoq.util.PermissionUtil;
+import com.stoq.util.StripedLocks;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * 库存预留
+ * 可用数量 = quantity - reserved,预留、确认、释放都是stock_levels上的单条条件UPDATE,多实例下也不会超卖。
+ * 事务开始前先按(仓库, 模板)取进程内分段锁: 同一商品的请求在JVM内排队,不必各自占着数据库连接等待行锁;
+ * 不同商品落在不同的锁上互不影响,吞吐随商品数增长。
+ * 超时未确认的预留由后台任务释放;状态只能从ACTIVE转出一次,确认、释放和过期不会重复生效。
+ */
+@Service
+@Slf4j
+public class StockReservationService {
+    
+    private static final String RESERVATIONS_METRIC = "stoq.stock.reservations";
+    
+    private final StockReservationRepository stockReservationRepository;
+    private final StockLevelRepository stockLevelRepository;
+    private final StoqRepository stoqRepository;
+    private final PermissionUtil permissionUtil;
+    private final StockMovementJournal stockMovementJournal;
+    private final LowStockAlertService lowStockAlertService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final StripedLocks locks;
+    private final Duration defaultTtl;
+    private final int sweepBatchSize;
+    
+    public StockReservationService(StockReservationRepository stockReservationRepository,
+                                   StockLevelRepository stockLevelRepository,
+                                   StoqRepository stoqRepository,
+                                   PermissionUtil permissionUtil,
+                                   StockMovementJournal stockMovementJournal,
+                                   LowStockAlertService lowStockAlertService,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${stoq.stock.reservation.lock-stripes:1024}") int lockStripes,
+                                   @Value("${stoq.stock.reservation.default-ttl:15m}") Duration defaultTtl,
+                                   @Value("${stoq.stock.reservation.sweep-batch-size:100}") int sweepBatchSize) {
+        this.stockReservationRepository = stockReservationRepository;
+        this.stockLevelRepository = stockLevelRepository;
+        this.stoqRepository = stoqRepository;
+        this.permissionUtil = permissionUtil;
+        this.stockMovementJournal = stockMovementJournal;
+        this.lowStockAlertService = lowStockAlertService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.locks = new StripedLocks(lockStripes);
+        this.defaultTtl = defaultTtl;
+        this.sweepBatchSize = sweepBatchSize;
+    }
+    
+    /**
+     * 预留库存(需要集群成员权限),任一商品可用数量不足时整批回滚
+     */
+    public StockReservationResponseDTO reserve(Long stoqId, StockReservationRequestDTO dto, String userEmail) {
+        findAccessibleStoq(stoqId, userEmail);
+        
+        Map<Long, Long> quantities = new TreeMap<>();
+        for (StockReservationItemDTO item : dto.getItems()) {
+            quantities.merge(item.getProductTemplateId(), item.getQuantity(), Long::sum);
+        }
+        Duration ttl = dto.getTtlSeconds() == null ? defaultTtl : Duration.ofSeconds(dto.getTtlSeconds());
+        
+        StockReservationResponseDTO response;
+        try (StripedLocks.Held held = locks.lockAll(templateLockKeys(stoqId, quantities.keySet()))) {
+            response = transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                for (Map.Entry<Long, Long> entry : quantities.entrySet()) {
+                    if (stockLevelRepository.reserve(stoqId, entry.getKey(), entry.getValue(), now) == 0) {
+                        throw insufficientStock(stoqId, entry.getKey(), entry.getValue());
+                    }
+                }
+                
+                StockReservation reservation = new StockReservation();
+                reservation.setStoqId(stoqId);
+                reservation.setReference(dto.getReference());
+                quantities.forEach((productTemplateId, quantity) ->
+                        reservation.getItems().add(new StockReservationItem(productTemplateId, quantity)));
+                reservation.setCreatorEmail(userEmail);
+                reservation.setCreatedAt(now);
+                reservation.setExpiresAt(now.plus(ttl));
+                reservation.setUpdatedAt(now);
+                lowStockAlertService.markTouched(stoqId, quantities.keySet());
+                return toResponseDTO(stockReservationRepository.save(reservation));
+            });
+        } catch (InsufficientStockException e) {
+            count("rejected");
+            throw e;
+        }
+        count("reserved");
+        return response;
+    }
+    
+    /**
+     * 获取预留
+     */
+    public StockReservationResponseDTO getReservation(Long stoqId, Long reservationId, String userEmail) {
+        findAccessibleStoq(stoqId, userEmail);
+        return transactionTemplate.execute(status -> toResponseDTO(findReservation(stoqId, reservationId)));
+    }
+    
+    /**
+     * 确认预留: 预留数量从库存中扣除,并记为拣货流水;已过期的预留不能确认
+     */
+    public StockReservationResponseDTO confirm(Long stoqId, Long reservationId, String userEmail) {
+        findAccessibleStoq(stoqId, userEmail);
+        List<StockReservationItem> items = loadItems(stoqId, reservationId);
+        
+        StockReservationResponseDTO response;
+        try (StripedLocks.Held held = locks.lockAll(lockKeys(stoqId, items))) {
+            response = transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                if (stockReservationRepository.confirm(reservationId, now) == 0) {
+                    throw stateConflict(stoqId, reservationId, now);
+                }
+                StockReservation reservation = findReservation(stoqId, reservationId);
+                String reference = reservation.getReference() != null
+                        ? reservation.getReference() : "RESERVATION-" + reservationId;
+                
+                List<StockMovement> movements = new ArrayList<>(items.size());
+                for (StockReservationItem item : items) {
+                    if (stockLevelRepository.consumeReserved(stoqId, item.getProductTemplateId(), item.getQuantity(), now) == 0) {
+                        // 预留期间商品模板被删除,库存行已不存在
+                        log.warn("⚠️ 确认预留{}时商品模板{}的库存已不存在", reservationId, item.getProductTemplateId());
+                        continue;
+                    }
+                    StockMovement movement = new StockMovement();
+                    movement.setStoqId(stoqId);
+                    movement.setProductTemplateId(item.getProductTemplateId());
+                    movement.setType(StockMovementType.PICK);
+                    movement.setDelta(-item.getQuantity());
+                    movement.setReference(reference);
+                    movement.setCreatorEmail(userEmail);
+                    movement.setCreatedAt(now);
+                    movements.add(movement);
+                }
+                stockMovementJournal.append(movements);
+                lowStockAlertService.markTouched(stoqId, productTemplateIds(items));
+                return toResponseDTO(reservation);
+            });
+        }
+        count("confirmed");
+        return response;
+    }
+    
+    /**
+     * 释放预留: 预留数量重新变为可用
+     */
+    public StockReservationResponseDTO release(Long stoqId, Long reservationId, String userEmail) {
+        findAccessibleStoq(stoqId, userEmail);
+        List<StockReservationItem> items = loadItems(stoqId, reservationId);
+        
+        StockReservationResponseDTO response = finish(stoqId, reservationId, items, StockReservationStatus.RELEASED);
+        if (response == null) {
+            ReservationStateException conflict = transactionTemplate.execute(status ->
+                    stateConflict(stoqId, reservationId, LocalDateTime.now()));
+            throw conflict;
+        }
+        count("released");
+        return response;
+    }
+    
+    /**
+     * 释放已过期的预留,每次处理一批直到没有过期的预留
+     */
+    @Scheduled(fixedDelayString = "${stoq.stock.reservation.sweep-interval-ms:10000}")
+    public void sweepExpired() {
+        int expired = 0;
+        List<Long> ids;
+        do {
+            ids = transactionTemplate.execute(status -> stockReservationRepository.findExpiredIds(
+                    LocalDateTime.now(), PageRequest.of(0, sweepBatchSize)));
+            for (Long id : ids) {
+                StockReservation reservation = transactionTemplate.execute(status -> {
+                    StockReservation found = stockReservationRepository.findById(id).orElse(null);
+                    if (found != null) {
+                        Hibernate.initialize(found.getItems());
+                    }
+                    return found;
+                });
+                // 已被其它实例或用户处理的预留返回null
+                if (reservation != null && finish(reservation.getStoqId(), id, reservation.getItems(),
+                        StockReservationStatus.EXPIRED) != null) {
+                    expired++;
+                    count("expired");
+                }
+            }
+        } while (ids.size() == sweepBatchSize);
+        if (expired > 0) {
+            log.info("✅ 已释放{}个过期的库存预留", expired);
+        }
+    }
+    
+    /**
+     * 把ACTIVE的预留转为RELEASED或EXPIRED并归还预留数量,预留已不是ACTIVE时返回null
+     */
+    private StockReservationResponseDTO finish(Long stoqId, Long reservationId, List<StockReservationItem> items,
+                                               StockReservationStatus target) {
+        try (StripedLocks.Held held = locks.lockAll(lockKeys(stoqId, items))) {
+            return transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                if (stockReservationRepository.finish(reservationId, target, now) == 0) {
+                    return null;
+                }
+                for (StockReservationItem item : items) {
+                    stockLevelRepository.release(stoqId, item.getProductTemplateId(), item.getQuantity(), now);
+                }
+                lowStockAlertService.markTouched(stoqId, productTemplateIds(items));
+                return toResponseDTO(findReservation(stoqId, reservationId));
+            });
+        }
+    }
+    
+    /**
+     * 读取预留的商品(创建后不再修改,可以在加锁前读取)
+     */
+    private List<StockReservationItem> loadItems(Long stoqId, Long reservationId) {
+        return transactionTemplate.execute(status -> new ArrayList<>(findReservation(stoqId, reservationId).getItems()));
+    }
+    
+    private StockReservation findReservation(Long stoqId, Long reservationId) {
+        return stockReservationRepository.findByIdAndStoqId(reservationId, stoqId)
+                .orElseThrow(() -> new ResourceNotFoundException("Reservation not found: " + reservationId));
+    }
+    
+    private InsufficientStockException insufficientStock(Long stoqId, Long productTemplateId, long requested) {
+        long available = stockLevelRepository.findByStoqIdAndProductTemplateId(stoqId, productTemplateId)
+                .map(level -> level.getQuantity() - level.getReserved())
+                .orElse(0L);
+        return new InsufficientStockException("Insufficient stock for product template " + productTemplateId
+                + ": available " + available + ", requested " + requested);
+    }
+    
+    private ReservationStateException stateConflict(Long stoqId, Long reservationId, LocalDateTime now) {
+        StockReservation reservation = findReservation(stoqId, reservationId);
+        if (reservation.getStatus() == StockReservationStatus.ACTIVE && !reservation.getExpiresAt().isAfter(now)) {
+            return new ReservationStateException("Reservation " + reservationId + " has expired");
+        }
+        return new ReservationStateException("Reservation " + reservationId + " is already " + reservation.getStatus());
+    }
+    
+    private static List<Long> productTemplateIds(List<StockReservationItem> items) {
+        return items.stream().map(StockReservationItem::getProductTemplateId).collect(Collectors.toList());
+    }
+    
+    private static List<List<Long>> lockKeys(Long stoqId, List<StockReservationItem> items) {
+        return items.stream()
+                .map(item -> Arrays.asList(stoqId, item.getProductTemplateId()))
+                .collect(Collectors.toList());
+    }
+    
+    private static List<List<Long>> templateLockKeys(Long stoqId, Collection<Long> productTemplateIds) {
+        return productTemplateIds.stream()
+                .map(productTemplateId -> Arrays.asList(stoqId, productTemplateId))
+                .collect(Collectors.toList());
+    }
+    
+    private void count(String result) {
+        meterRegistry.counter(RESERVATIONS_METRIC, "result", result).increment();
+    }
+    
+    /**
+     * 查找仓库并验证用户是否是仓库所在集群的成员
+     */
+    private Stoq findAccessibleStoq(Long stoqId, String userEmail) {
+        Stoq stoq = stoqRepository.findById(stoqId)
+                .orElseThrow(() -> new ResourceNotFoundException("Stoq not found: " + stoqId));
+        permissionUtil.verifyClusterMember(stoq.getClusterId(), userEmail);
+        return stoq;
+    }
+    
+    private StockReservationResponseDTO toResponseDTO(StockReservation reservation) {
+        StockReservationResponseDTO dto = new StockReservationResponseDTO();
+        dto.setId(reservation.getId());
+        dto.setStoqId(reservation.getStoqId());
+        dto.setStatus(reservation.getStatus());
+        dto.setReference(reservation.getReference());
+        dto.setItems(reservation.getItems().stream()
+                .map(item -> new StockReservationItemDTO(item.getProductTemplateId(), item.getQuantity()))
+                .collect(Collectors.toList()));
+        dto.setCreatorEmail(reservation.getCreatorEmail());
+        dto.setCreatedAt(reservation.getCreatedAt());
+        dto.setExpiresAt(reservation.getExpiresAt());
+        return dto;
+    }
+}
@@ -0,0 +1,158 @@
+package com.stoq.service;
+
+import com.stoq.dto.StockQuantityDTO;
+import com.stoq.entity.StockSnapshotRun;
+import com.stoq.repository.StockLevelRepository;
+import com.stoq.repository.StockMovementRepository;
+import com.stoq.repository.StockSnapshotRepository;
+import com.stoq.repository.StockSnapshotRunRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 库存快照
+ * 定时把每个有变动的仓库压缩为一份快照(该仓库上一份快照 + 之后到快照时刻的流水),
+ * 历史时刻的数量 = 该时刻之前最近的快照 + 快照之后到该时刻的流水,只需扫描一个快照周期内的流水,
+ * 与流水表的总行数无关。
+ * 快照时刻比执行时间提前settle-delay,此前开始的事务应已提交;执行时间超过该值的事务写入的流水不会进入快照。
+ */
+@Service
+@Slf4j
+public class StockSnapshotService {
+    
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+    
+    // 基准快照与(基准快照, 快照时刻]之间的流水按商品合计,数量为0的商品不保存
+    private static final String COMPACT_SQL = "INSERT INTO stock_snapshots (snapshot_at, stoq_id, product_template_id, quantity) "
+            + "SELECT ?, ?, t.product_template_id, SUM(t.quantity) FROM ("
+            + "SELECT product_template_id, quantity FROM stock_snapshots WHERE stoq_id = ? AND snapshot_at = ? "
+            + "UNION ALL "
+            + "SELECT product_template_id, delta FROM stock_movements WHERE stoq_id = ? AND created_at > ? AND created_at <= ?"
+            + ") t GROUP BY t.product_template_id HAVING SUM(t.quantity) <> 0";
+    
+    private final StockSnapshotRepository stockSnapshotRepository;
+    private final StockSnapshotRunRepository stockSnapshotRunRepository;
+    private final StockMovementRepository stockMovementRepository;
+    private final StockLevelRepository stockLevelRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration settleDelay;
+    
+    public StockSnapshotService(StockSnapshotRepository stockSnapshotRepository,
+                                StockSnapshotRunRepository stockSnapshotRunRepository,
+                                StockMovementRepository stockMovementRepository,
+                                StockLevelRepository stockLevelRepository,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${stoq.stock.snapshot.settle-delay:10m}") Duration settleDelay) {
+        this.stockSnapshotRepository = stockSnapshotRepository;
+        this.stockSnapshotRunRepository = stockSnapshotRunRepository;
+        this.stockMovementRepository = stockMovementRepository;
+        this.stockLevelRepository = stockLevelRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.settleDelay = settleDelay;
+    }
+    
+    /**
+     * 生成快照: 快照时刻取整到小时,多个实例同时执行时由stock_snapshot_runs的唯一约束保证只执行一次
+     */
+    @Scheduled(cron = "${stoq.stock.snapshot.cron:0 30 3 * * *}")
+    public void compactSnapshots() {
+        LocalDateTime snapshotAt = LocalDateTime.now().minus(settleDelay).truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime since = stockSnapshotRunRepository.findFirstByCompletedAtIsNotNullOrderBySnapshotAtDesc()
+                .map(StockSnapshotRun::getSnapshotAt)
+                .orElse(EPOCH);
+        if (!since.isBefore(snapshotAt)) {
+            return;
+        }
+        StockSnapshotRun run = claim(snapshotAt);
+        if (run == null) {
+            log.info("ℹ️ 库存快照{}已由其它实例执行", snapshotAt);
+            return;
+        }
+        
+        // 上次完成的快照之后有变动的仓库;中断的批次已写入的仓库快照仍然有效,这里会再压缩一次
+        List<Long> stoqIds = transactionTemplate.execute(status -> stockLevelRepository.findStoqIdsUpdatedAfter(since));
+        long rows = 0;
+        for (Long stoqId : stoqIds) {
+            Integer inserted = transactionTemplate.execute(status -> compactStoq(stoqId, snapshotAt));
+            rows += inserted == null ? 0 : inserted;
+        }
+        
+        run.setRowCount(rows);
+        run.setCompletedAt(LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(status -> stockSnapshotRunRepository.save(run));
+        log.info("✅ 库存快照{}完成: {}个仓库, {}行", snapshotAt, stoqIds.size(), rows);
+    }
+    
+    private StockSnapshotRun claim(LocalDateTime snapshotAt) {
+        try {
+            return transactionTemplate.execute(status -> {
+                StockSnapshotRun run = new StockSnapshotRun();
+                run.setSnapshotAt(snapshotAt);
+                run.setStartedAt(LocalDateTime.now());
+                return stockSnapshotRunRepository.saveAndFlush(run);
+            });
+        } catch (DataIntegrityViolationException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * 以仓库最近的快照为基准压缩一个仓库,返回写入的行数
+     */
+    private int compactStoq(Long stoqId, LocalDateTime snapshotAt) {
+        LocalDateTime base = stockSnapshotRepository.findLatestSnapshotAt(stoqId, snapshotAt);
+        if (snapshotAt.equals(base)) {
+            return 0;
+        }
+        Timestamp from = Timestamp.valueOf(base == null ? EPOCH : base);
+        Timestamp to = Timestamp.valueOf(snapshotAt);
+        return jdbcTemplate.update(COMPACT_SQL, to, stoqId, stoqId, from, stoqId, from, to);
+    }
+    
+    /**
+     * 仓库在某一时刻的各商品数量(不含数量为0的商品),productTemplateId不为空时只查该商品
+     * 权限由调用方检查
+     */
+    public List<StockQuantityDTO> getQuantitiesAt(Long stoqId, Long productTemplateId, LocalDateTime at) {
+        LocalDateTime base = stockSnapshotRepository.findLatestSnapshotAt(stoqId, at);
+        
+        Map<Long, Long> quantities = new TreeMap<>();
+        if (base != null) {
+            List<StockQuantityDTO> snapshot = productTemplateId == null
+                    ? stockSnapshotRepository.findQuantities(stoqId, base)
+                    : stockSnapshotRepository.findQuantities(stoqId, productTemplateId, base);
+            snapshot.forEach(row -> quantities.merge(row.getProductTemplateId(), row.getQuantity(), Long::sum));
+        }
+        LocalDateTime from = base == null ? EPOCH : base;
+        List<StockQuantityDTO> tail = productTemplateId == null
+                ? stockMovementRepository.sumDeltas(stoqId, from, at)
+                : stockMovementRepository.sumDeltas(stoqId, productTemplateId, from, at);
+        tail.forEach(row -> quantities.merge(row.getProductTemplateId(), row.getQuantity(), Long::sum));
+        
+        List<StockQuantityDTO> result = new ArrayList<>(quantities.size());
+        quantities.forEach((id, quantity) -> {
+            if (quantity != 0) {
+                result.add(new StockQuantityDTO(id, quantity));
+            }
+        });
+        return result;
+    }
+}
@@ -0,0 +1,414 @@
+package com.stoq.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stoq.dto.CreateStocktakeDTO;
+import com.stoq.dto.StockAdjustmentDTO;
+import com.stoq.dto.StockAdjustmentRequestDTO;
+import com.stoq.dto.StocktakeResponseDTO;
+import com.stoq.dto.StocktakeScanDTO;
+import com.stoq.dto.StocktakeUploadResultDTO;
+import com.stoq.dto.StocktakeVarianceDTO;
+import com.stoq.entity.StocktakeSession;
+import com.stoq.entity.Stoq;
+import com.stoq.enums.StockMovementType;
+import com.stoq.enums.StocktakeStatus;
+import com.stoq.exception.ResourceNotFoundException;
+import com.stoq.exception.StocktakeStateException;
+import com.stoq.repository.StocktakeSessionRepository;
+import com.stoq.repository.StocktakeUploadRepository;
+import com.stoq.repository.StoqRepository;
+import com.stoq.util.PermissionUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 盘点
+ * 扫码枪离线后一次上传的大量扫码按块流式处理: 块内同一条码先合并,再通过扫码缓存一次集合查询解析为模板ID,
+ * 整个上传按模板累加后在一个事务中批量写入stocktake_counts;同一uploadId只计入一次,重传不会重复计数。
+ * 差异由一条聚合查询同时读取账面数量和盘点数量得出,完成盘点时作为ADJUST流水调整到库存。
+ */
+@Service
+@Slf4j
+public class StocktakeService {
+    
+    private static final int MAX_UNKNOWN_CODES = 100;
+    
+    private static final String INSERT_UPLOAD_SQL = "INSERT IGNORE INTO stocktake_uploads "
+            + "(session_id, upload_id, counted_scans, creator_email, created_at) VALUES (?, ?, ?, ?, ?)";
+    
+    private static final String UPSERT_COUNT_SQL = "INSERT INTO stocktake_counts (session_id, product_template_id, counted) "
+            + "VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE counted = counted + VALUES(counted)";
+    
+    // 账面数量与盘点数量按商品合计,只返回不一致的商品;参数为(仓库ID, 盘点ID)
+    private static final String FULL_VARIANCE_SQL = "SELECT t.product_template_id, p.name, p.unit, "
+            + "SUM(t.expected), SUM(t.counted) FROM ("
+            + "SELECT product_template_id, quantity AS expected, 0 AS counted FROM stock_levels WHERE stoq_id = ? "
+            + "UNION ALL "
+            + "SELECT product_template_id, 0, counted FROM stocktake_counts WHERE session_id = ?"
+            + ") t JOIN product_templates p ON p.id = t.product_template_id "
+            + "GROUP BY t.product_template_id, p.name, p.unit HAVING SUM(t.expected) <> SUM(t.counted) "
+            + "ORDER BY t.product_template_id";
+    
+    // 循环盘点: 账面数量只取扫到的商品;参数为(盘点ID, 仓库ID, 盘点ID)
+    private static final String CYCLE_VARIANCE_SQL = "SELECT t.product_template_id, p.name, p.unit, "
+            + "SUM(t.expected), SUM(t.counted) FROM ("
+            + "SELECT l.product_template_id, l.quantity AS expected, 0 AS counted FROM stock_levels l "
+            + "JOIN stocktake_counts c ON c.session_id = ? AND c.product_template_id = l.product_template_id "
+            + "WHERE l.stoq_id = ? "
+            + "UNION ALL "
+            + "SELECT product_template_id, 0, counted FROM stocktake_counts WHERE session_id = ?"
+            + ") t JOIN product_templates p ON p.id = t.product_template_id "
+            + "GROUP BY t.product_template_id, p.name, p.unit HAVING SUM(t.expected) <> SUM(t.counted) "
+            + "ORDER BY t.product_template_id";
+    
+    private final StocktakeSessionRepository stocktakeSessionRepository;
+    private final StocktakeUploadRepository stocktakeUploadRepository;
+    private final StoqRepository stoqRepository;
+    private final ProductTemplateService productTemplateService;
+    private final StockLevelService stockLevelService;
+    private final PermissionUtil permissionUtil;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final Timer uploadTimer;
+    private final int batchSize;
+    private final int maxScansPerUpload;
+    
+    public StocktakeService(StocktakeSessionRepository stocktakeSessionRepository,
+                            StocktakeUploadRepository stocktakeUploadRepository,
+                            StoqRepository stoqRepository,
+                            ProductTemplateService productTemplateService,
+                            StockLevelService stockLevelService,
+                            PermissionUtil permissionUtil,
+                            JdbcTemplate jdbcTemplate,
+                            TransactionTemplate transactionTemplate,
+                            ObjectMapper objectMapper,
+                            Validator validator,
+                            MeterRegistry meterRegistry,
+                            @Value("${stoq.stocktake.batch-size:1000}") int batchSize,
+                            @Value("${stoq.stocktake.max-scans-per-upload:200000}") int maxScansPerUpload) {
+        this.stocktakeSessionRepository = stocktakeSessionRepository;
+        this.stocktakeUploadRepository = stocktakeUploadRepository;
+        this.stoqRepository = stoqRepository;
+        this.productTemplateService = productTemplateService;
+        this.stockLevelService = stockLevelService;
+        this.permissionUtil = permissionUtil;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.uploadTimer = Timer.builder("stoq.stocktake.uploads")
+                .description("Time to ingest one scanner upload into a stocktake")
+                .register(meterRegistry);
+        this.batchSize = batchSize;
+        this.maxScansPerUpload = maxScansPerUpload;
+    }
+    
+    /**
+     * 开始盘点(需要集群成员权限)
+     */
+    @Transactional
+    public StocktakeResponseDTO createStocktake(Long stoqId, CreateStocktakeDTO dto, String userEmail) {
+        findAccessibleStoq(stoqId, userEmail);
+        
+        LocalDateTime now = LocalDateTime.now();
+        StocktakeSession session = new StocktakeSession();
+        session.setStoqId(stoqId);
+        session.setReference(dto == null ? null : dto.getReference());
+        session.setFullCount(dto != null && Boolean.TRUE.equals(dto.getFullCount()));
+        session.setCreatorEmail(userEmail);
+        session.setCreatedAt(now);
+        session.setUpdatedAt(now);
+        return toResponseDTO(stocktakeSessionRepository.save(session));
+    }
+    
+    /**
+     * 获取盘点
+     */
+    @Transactional(readOnly = true)
+    public StocktakeResponseDTO getStocktake(Long stoqId, Long sessionId, String userEmail) {
+        findAccessibleStoq(stoqId, userEmail);
+        return toResponseDTO(findSession(stoqId, sessionId));
+    }
+    
+    /**
+     * 上传扫码(JSON数组,元素为StocktakeScanDTO),单条扫码的错误只计数,不影响其它扫码
+     * 同一盘点中uploadId已计入时直接返回,不读取请求体
+     */
+    public StocktakeUploadResultDTO uploadScans(Long stoqId, Long sessionId, String uploadId,
+                                                InputStream in, String userEmail) throws IOException {
+        Stoq stoq = findAccessibleStoq(stoqId, userEmail);
+        StocktakeSession session = findSession(stoqId, sessionId);
+        if (session.getStatus() != StocktakeStatus.OPEN) {
+            throw new StocktakeStateException("Stocktake " + sessionId + " is already " + session.getStatus());
+        }
+        if (uploadId == null || uploadId.trim().isEmpty() || uploadId.length() > 100) {
+            throw new IllegalArgumentException("uploadId must be 1 to 100 characters");
+        }
+        
+        UploadContext context = new UploadContext(stoq.getClusterId(), sessionId, uploadId.trim(), userEmail);
+        if (stocktakeUploadRepository.existsBySessionIdAndUploadId(sessionId, context.result.getUploadId())) {
+            context.result.setDuplicateUpload(true);
+            return context.result;
+        }
+        
+        long start = System.nanoTime();
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Request body must be a JSON array");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new IllegalArgumentException("Unexpected end of JSON array");
+                }
+                // 先读成树再转换,单条字段类型错误不会破坏解析器位置
+                JsonNode node = objectMapper.readTree(parser);
+                try {
+                    context.add(objectMapper.treeToValue(node, StocktakeScanDTO.class));
+                } catch (JsonProcessingException e) {
+                    context.reject();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            // 上传整批计入或不计入,语法错误时整批拒绝,扫码枪可以用同一uploadId重传
+            throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+        }
+        StocktakeUploadResultDTO result = context.finish();
+        uploadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return result;
+    }
+    
+    /**
+     * 获取盘点差异: 盘点数量与当前账面数量不一致的商品(按商品模板ID排序)
+     */
+    @Transactional(readOnly = true)
+    public List<StocktakeVarianceDTO> getVariances(Long stoqId, Long sessionId, String userEmail) {
+        findAccessibleStoq(stoqId, userEmail);
+        return findVariances(findSession(stoqId, sessionId));
+    }
+    
+    /**
+     * 完成盘点: 差异作为ADJUST流水调整到库存(单号为STOCKTAKE-盘点ID),之后不能再上传
+     * 盘点数量少于已预留的数量时库存不足,整个完成操作回滚,盘点保持OPEN
+     */
+    @Transactional
+    public StocktakeResponseDTO complete(Long stoqId, Long sessionId, String userEmail) {
+        findAccessibleStoq(stoqId, userEmail);
+        StocktakeSession session = findSession(stoqId, sessionId);
+        // 先更新盘点行: 之后的上传会在这一行上等待本事务结束,再因状态不是OPEN而失败
+        if (stocktakeSessionRepository.finish(sessionId, StocktakeStatus.COMPLETED, LocalDateTime.now()) == 0) {
+            throw stateConflict(stoqId, sessionId);
+        }
+        
+        List<StockAdjustmentDTO> adjustments = new ArrayList<>();
+        for (StocktakeVarianceDTO variance : findVariances(session)) {
+            StockAdjustmentDTO adjustment = new StockAdjustmentDTO();
+            adjustment.setProductTemplateId(variance.getProductTemplateId());
+            adjustment.setDelta(variance.getVariance());
+            adjustments.add(adjustment);
+        }
+        if (!adjustments.isEmpty()) {
+            StockAdjustmentRequestDTO request = new StockAdjustmentRequestDTO();
+            request.setType(StockMovementType.ADJUST);
+            request.setReference("STOCKTAKE-" + sessionId);
+            request.setAdjustments(adjustments);
+            stockLevelService.adjustStock(stoqId, request, userEmail);
+        }
+        log.info("✅ 盘点已完成: 仓库{} 盘点{} ({}个商品有差异)", stoqId, sessionId, adjustments.size());
+        return toResponseDTO(findSession(stoqId, sessionId));
+    }
+    
+    /**
+     * 取消盘点: 库存不变
+     */
+    @Transactional
+    public StocktakeResponseDTO cancel(Long stoqId, Long sessionId, String userEmail) {
+        findAccessibleStoq(stoqId, userEmail);
+        findSession(stoqId, sessionId);
+        if (stocktakeSessionRepository.finish(sessionId, StocktakeStatus.CANCELLED, LocalDateTime.now()) == 0) {
+            throw stateConflict(stoqId, sessionId);
+        }
+        return toResponseDTO(findSession(stoqId, sessionId));
+    }
+    
+    private List<StocktakeVarianceDTO> findVariances(StocktakeSession session) {
+        Long sessionId = session.getId();
+        String sql = session.getFullCount() ? FULL_VARIANCE_SQL : CYCLE_VARIANCE_SQL;
+        Object[] args = session.getFullCount()
+                ? new Object[]{session.getStoqId(), sessionId}
+                : new Object[]{sessionId, session.getStoqId(), sessionId};
+        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+            long expected = rs.getLong(4);
+            long counted = rs.getLong(5);
+            return new StocktakeVarianceDTO(rs.getLong(1), rs.getString(2), rs.getString(3),
+                    expected, counted, counted - expected);
+        }, args);
+    }
+    
+    private StocktakeStateException stateConflict(Long stoqId, Long sessionId) {
+        return new StocktakeStateException("Stocktake " + sessionId + " is already "
+                + findSession(stoqId, sessionId).getStatus());
+    }
+    
+    private StocktakeSession findSession(Long stoqId, Long sessionId) {
+        return stocktakeSessionRepository.findByIdAndStoqId(sessionId, stoqId)
+                .orElseThrow(() -> new ResourceNotFoundException("Stocktake not found: " + sessionId));
+    }
+    
+    /**
+     * 查找仓库并验证用户是否是仓库所在集群的成员
+     */
+    private Stoq findAccessibleStoq(Long stoqId, String userEmail) {
+        Stoq stoq = stoqRepository.findById(stoqId)
+                .orElseThrow(() -> new ResourceNotFoundException("Stoq not found: " + stoqId));
+        permissionUtil.verifyClusterMember(stoq.getClusterId(), userEmail);
+        return stoq;
+    }
+    
+    private StocktakeResponseDTO toResponseDTO(StocktakeSession session) {
+        StocktakeResponseDTO dto = new StocktakeResponseDTO();
+        dto.setId(session.getId());
+        dto.setStoqId(session.getStoqId());
+        dto.setStatus(session.getStatus());
+        dto.setReference(session.getReference());
+        dto.setFullCount(session.getFullCount());
+        dto.setCountedScans(session.getCountedScans());
+        dto.setUnknownScans(session.getUnknownScans());
+        dto.setCreatorEmail(session.getCreatorEmail());
+        dto.setCreatedAt(session.getCreatedAt());
+        dto.setCompletedAt(session.getCompletedAt());
+        return dto;
+    }
+    
+    /**
+     * 单次上传的状态: 当前块中各条码的合计、已出现的扫码ID和按模板累加的数量
+     */
+    private class UploadContext {
+        private final Long clusterId;
+        private final Long sessionId;
+        private final String userEmail;
+        private final StocktakeUploadResultDTO result = new StocktakeUploadResultDTO();
+        // 条码 -> [扫码数, 件数]
+        private final Map<String, long[]> chunk = new HashMap<>();
+        private int chunkScans;
+        private final Set<String> seenScanIds = new HashSet<>();
+        // 模板ID -> 件数(按ID排序写入,并发上传的加锁顺序一致)
+        private final Map<Long, Long> counts = new TreeMap<>();
+        
+        private UploadContext(Long clusterId, Long sessionId, String uploadId, String userEmail) {
+            this.clusterId = clusterId;
+            this.sessionId = sessionId;
+            this.userEmail = userEmail;
+            result.setUploadId(uploadId);
+        }
+        
+        private void add(StocktakeScanDTO scan) {
+            countScan();
+            if (scan == null || !validator.validate(scan).isEmpty()) {
+                result.setInvalidScans(result.getInvalidScans() + 1);
+                return;
+            }
+            if (scan.getScanId() != null && !seenScanIds.add(scan.getScanId())) {
+                result.setDuplicateScans(result.getDuplicateScans() + 1);
+                return;
+            }
+            long[] tally = chunk.computeIfAbsent(scan.getCode().trim(), code -> new long[2]);
+            tally[0]++;
+            tally[1] += scan.getQuantity() == null ? 1 : scan.getQuantity();
+            if (++chunkScans >= batchSize) {
+                flush();
+            }
+        }
+        
+        private void reject() {
+            countScan();
+            result.setInvalidScans(result.getInvalidScans() + 1);
+        }
+        
+        private void countScan() {
+            result.setTotalScans(result.getTotalScans() + 1);
+            if (result.getTotalScans() > maxScansPerUpload) {
+                throw new IllegalArgumentException("Cannot upload more than " + maxScansPerUpload + " scans at once");
+            }
+        }
+        
+        /**
+         * 本块的条码一次解析为模板ID(已缓存的条码不查询数据库)
+         */
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            Map<String, Long> templateIds = productTemplateService.resolveTemplateIds(clusterId, chunk.keySet());
+            chunk.forEach((code, tally) -> {
+                Long templateId = templateIds.get(code);
+                if (templateId == null) {
+                    result.setUnknownScans(result.getUnknownScans() + (int) tally[0]);
+                    if (result.getUnknownCodes().size() < MAX_UNKNOWN_CODES) {
+                        result.getUnknownCodes().add(code);
+                    }
+                } else {
+                    result.setCountedScans(result.getCountedScans() + (int) tally[0]);
+                    counts.merge(templateId, tally[1], Long::sum);
+                }
+            });
+            chunk.clear();
+            chunkScans = 0;
+        }
+        
+        /**
+         * 在一个事务中记下uploadId并累加数量;uploadId已被并发的重传计入时回滚,只返回结果
+         */
+        private StocktakeUploadResultDTO finish() {
+            flush();
+            LocalDateTime now = LocalDateTime.now();
+            Boolean counted = transactionTemplate.execute(status -> {
+                if (stocktakeSessionRepository.addScans(sessionId, result.getCountedScans(), result.getUnknownScans(), now) == 0) {
+                    throw new StocktakeStateException("Stocktake " + sessionId + " is no longer open");
+                }
+                if (jdbcTemplate.update(INSERT_UPLOAD_SQL, sessionId, result.getUploadId(), result.getCountedScans(),
+                        userEmail, Timestamp.valueOf(now)) == 0) {
+                    status.setRollbackOnly();
+                    return false;
+                }
+                jdbcTemplate.batchUpdate(UPSERT_COUNT_SQL, new ArrayList<>(counts.entrySet()), batchSize, (ps, count) -> {
+                    ps.setLong(1, sessionId);
+                    ps.setLong(2, count.getKey());
+                    ps.setLong(3, count.getValue());
+                });
+                return true;
+            });
+            result.setDuplicateUpload(!Boolean.TRUE.equals(counted));
+            log.info("✅ 盘点扫码上传完成: 盘点{} 批次{} (共{}条, 计入{}条, 未知条码{}条, 重复{}条, 无效{}条)",
+                    sessionId, result.getUploadId(), result.getTotalScans(), result.getCountedScans(),
+                    result.getUnknownScans(), result.getDuplicateScans(), result.getInvalidScans());
+            return result;
+        }
+    }
+}
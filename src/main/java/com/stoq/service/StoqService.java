@@ -1,17 +1,24 @@
 package com.stoq.service;
 import com.stoq.dto.CreateStoqDTO;
+import com.stoq.dto.SliceResponseDTO;
 import com.stoq.dto.StoqResponseDTO;
 import com.stoq.entity.Cluster;
 import com.stoq.entity.Stoq;
 import com.stoq.exception.ResourceNotFoundException;
 import com.stoq.repository.ClusterRepository;
+import com.stoq.repository.LowStockAlertRepository;
+import com.stoq.repository.StockLevelRepository;
+import com.stoq.repository.StockReservationRepository;
+import com.stoq.repository.StocktakeSessionRepository;
+import com.stoq.repository.StocktakeUploadRepository;
 import com.stoq.repository.StoqRepository;
+import com.stoq.util.CursorUtil;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
@@ -19,6 +26,11 @@ public class StoqService {
     
     private final StoqRepository stoqRepository;
     private final ClusterRepository clusterRepository;
+    private final StockLevelRepository stockLevelRepository;
+    private final StockReservationRepository stockReservationRepository;
+    private final LowStockAlertRepository lowStockAlertRepository;
+    private final StocktakeSessionRepository stocktakeSessionRepository;
+    private final StocktakeUploadRepository stocktakeUploadRepository;
     
     /**
      * 创建仓库
@@ -45,38 +57,34 @@ public class StoqService {
     }
     
     /**
-     * 获取指定集群的所有仓库
+     * 获取指定集群的仓库(游标分页)
      */
-    public List<StoqResponseDTO> getStoqsByCluster(Long clusterId, String userEmail) {
+    @Transactional(readOnly = true)
+    public SliceResponseDTO<StoqResponseDTO> getStoqsByCluster(Long clusterId, String userEmail, String cursor, Integer limit) {
         // 验证集群是否存在且属于当前用户
-        Cluster cluster = clusterRepository.findByIdAndOwnerEmail(clusterId, userEmail)
-                .orElseThrow(() -> new ResourceNotFoundException(
-                        "Cluster not found or you don't have permission: " + clusterId));
+        if (!clusterRepository.existsByIdAndOwnerEmail(clusterId, userEmail)) {
+            throw new ResourceNotFoundException("Cluster not found or you don't have permission: " + clusterId);
+        }
         
-        List<Stoq> stoqs = stoqRepository.findByClusterId(clusterId);
-        return stoqs.stream()
-                .map(stoq -> toResponseDTO(stoq, cluster.getName()))
-                .collect(Collectors.toList());
+        Slice<StoqResponseDTO> stoqs = stoqRepository.findResponsesByClusterId(
+                clusterId, CursorUtil.decodeId(cursor), CursorUtil.pageRequest(limit));
+        return CursorUtil.toResponse(stoqs, Function.identity(), StoqResponseDTO::getId);
     }
     
     /**
-     * 获取当前用户创建的所有仓库
+     * 获取当前用户创建的仓库(游标分页)
      */
-    public List<StoqResponseDTO> getMyStoqs(String creatorEmail) {
-        List<Stoq> stoqs = stoqRepository.findByCreatorEmail(creatorEmail);
-        return stoqs.stream()
-                .map(stoq -> {
-                    String clusterName = clusterRepository.findById(stoq.getClusterId())
-                            .map(Cluster::getName)
-                            .orElse("Unknown");
-                    return toResponseDTO(stoq, clusterName);
-                })
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public SliceResponseDTO<StoqResponseDTO> getMyStoqs(String creatorEmail, String cursor, Integer limit) {
+        Slice<StoqResponseDTO> stoqs = stoqRepository.findResponsesByCreatorEmail(
+                creatorEmail, CursorUtil.decodeId(cursor), CursorUtil.pageRequest(limit));
+        return CursorUtil.toResponse(stoqs, Function.identity(), StoqResponseDTO::getId);
     }
     
     /**
      * 根据ID获取仓库
      */
+    @Transactional(readOnly = true)
     public StoqResponseDTO getStoqById(Long id, String userEmail) {
         Stoq stoq = stoqRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Stoq not found: " + id));
@@ -133,6 +141,13 @@ public class StoqService {
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "You don't have permission to delete this stoq"));
         
+        lowStockAlertRepository.deleteByStoqId(id);
+        stocktakeSessionRepository.deleteCountsByStoqId(id);
+        stocktakeUploadRepository.deleteByStoqId(id);
+        stocktakeSessionRepository.deleteByStoqId(id);
+        stockReservationRepository.deleteItemsByStoqId(id);
+        stockReservationRepository.deleteByStoqId(id);
+        stockLevelRepository.deleteByStoqId(id);
         stoqRepository.delete(stoq);
     }
     
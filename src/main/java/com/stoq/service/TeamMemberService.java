@@ -1,19 +1,21 @@
 package com.stoq.service;
 
 import com.stoq.dto.CreateTeamMemberDTO;
+import com.stoq.dto.SliceResponseDTO;
 import com.stoq.dto.TeamMemberResponseDTO;
 import com.stoq.entity.Team;
 import com.stoq.entity.TeamMember;
 import com.stoq.exception.ResourceNotFoundException;
 import com.stoq.repository.TeamMemberRepository;
 import com.stoq.repository.TeamRepository;
+import com.stoq.util.CursorUtil;
 import com.stoq.util.PermissionUtil;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
@@ -61,9 +63,10 @@ public class TeamMemberService {
     }
     
     /**
-     * 获取团队的所有成员
+     * 获取团队的成员(游标分页)
      */
-    public List<TeamMemberResponseDTO> getTeamMembers(Long teamId, String userEmail) {
+    @Transactional(readOnly = true)
+    public SliceResponseDTO<TeamMemberResponseDTO> getTeamMembers(Long teamId, String userEmail, String cursor, Integer limit) {
         // 验证团队是否存在
         Team team = teamRepository.findById(teamId)
                 .orElseThrow(() -> new ResourceNotFoundException("Team not found: " + teamId));
@@ -71,15 +74,15 @@ public class TeamMemberService {
         // 验证用户是否是集群成员
         permissionUtil.verifyClusterMember(team.getClusterId(), userEmail);
         
-        List<TeamMember> members = teamMemberRepository.findByTeamId(teamId);
-        return members.stream()
-                .map(member -> toResponseDTO(member, team.getName()))
-                .collect(Collectors.toList());
+        Slice<TeamMemberResponseDTO> members = teamMemberRepository.findResponsesByTeamId(
+                teamId, CursorUtil.decodeId(cursor), CursorUtil.pageRequest(limit));
+        return CursorUtil.toResponse(members, Function.identity(), TeamMemberResponseDTO::getId);
     }
     
     /**
      * 根据ID获取团队成员
      */
+    @Transactional(readOnly = true)
     public TeamMemberResponseDTO getTeamMemberById(Long id, String userEmail) {
         TeamMember member = teamMemberRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Team member not found: " + id));
@@ -148,18 +151,13 @@ public class TeamMemberService {
     }
     
     /**
-     * 获取当前用户创建的所有团队成员
+     * 获取当前用户创建的团队成员(游标分页)
      */
-    public List<TeamMemberResponseDTO> getMyTeamMembers(String creatorEmail) {
-        List<TeamMember> members = teamMemberRepository.findByCreatorEmail(creatorEmail);
-        return members.stream()
-                .map(member -> {
-                    String teamName = teamRepository.findById(member.getTeamId())
-                            .map(Team::getName)
-                            .orElse("Unknown");
-                    return toResponseDTO(member, teamName);
-                })
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public SliceResponseDTO<TeamMemberResponseDTO> getMyTeamMembers(String creatorEmail, String cursor, Integer limit) {
+        Slice<TeamMemberResponseDTO> members = teamMemberRepository.findResponsesByCreatorEmail(
+                creatorEmail, CursorUtil.decodeId(cursor), CursorUtil.pageRequest(limit));
+        return CursorUtil.toResponse(members, Function.identity(), TeamMemberResponseDTO::getId);
     }
     
     /**
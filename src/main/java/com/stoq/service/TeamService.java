@@ -1,18 +1,20 @@
 package com.stoq.service;
 import com.stoq.dto.CreateTeamDTO;
+import com.stoq.dto.SliceResponseDTO;
 import com.stoq.dto.TeamResponseDTO;
 import com.stoq.entity.Cluster;
 import com.stoq.entity.Team;
 import com.stoq.exception.ResourceNotFoundException;
 import com.stoq.repository.ClusterRepository;
 import com.stoq.repository.TeamRepository;
+import com.stoq.util.CursorUtil;
 import com.stoq.util.PermissionUtil;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
@@ -49,40 +51,37 @@ public class TeamService {
     }
     
     /**
-     * 获取集群的所有团队
+     * 获取集群的团队(游标分页)
      */
-    public List<TeamResponseDTO> getTeamsByCluster(Long clusterId, String userEmail) {
+    @Transactional(readOnly = true)
+    public SliceResponseDTO<TeamResponseDTO> getTeamsByCluster(Long clusterId, String userEmail, String cursor, Integer limit) {
         // 验证集群是否存在
-        Cluster cluster = clusterRepository.findById(clusterId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cluster not found: " + clusterId));
+        if (!clusterRepository.existsById(clusterId)) {
+            throw new ResourceNotFoundException("Cluster not found: " + clusterId);
+        }
         
         // 验证用户是否是集群成员
         permissionUtil.verifyClusterMember(clusterId, userEmail);
         
-        List<Team> teams = teamRepository.findByClusterId(clusterId);
-        return teams.stream()
-                .map(team -> toResponseDTO(team, cluster.getName()))
-                .collect(Collectors.toList());
+        Slice<TeamResponseDTO> teams = teamRepository.findResponsesByClusterId(
+                clusterId, CursorUtil.decodeId(cursor), CursorUtil.pageRequest(limit));
+        return CursorUtil.toResponse(teams, Function.identity(), TeamResponseDTO::getId);
     }
     
     /**
-     * 获取当前用户创建的所有团队
+     * 获取当前用户创建的团队(游标分页)
      */
-    public List<TeamResponseDTO> getMyTeams(String creatorEmail) {
-        List<Team> teams = teamRepository.findByCreatorEmail(creatorEmail);
-        return teams.stream()
-                .map(team -> {
-                    String clusterName = clusterRepository.findById(team.getClusterId())
-                            .map(Cluster::getName)
-                            .orElse("Unknown");
-                    return toResponseDTO(team, clusterName);
-                })
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public SliceResponseDTO<TeamResponseDTO> getMyTeams(String creatorEmail, String cursor, Integer limit) {
+        Slice<TeamResponseDTO> teams = teamRepository.findResponsesByCreatorEmail(
+                creatorEmail, CursorUtil.decodeId(cursor), CursorUtil.pageRequest(limit));
+        return CursorUtil.toResponse(teams, Function.identity(), TeamResponseDTO::getId);
     }
     
     /**
      * 根据ID获取团队
      */
+    @Transactional(readOnly = true)
     public TeamResponseDTO getTeamById(Long id, String userEmail) {
         Team team = teamRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Team not found: " + id));
@@ -2,6 +2,7 @@ package com.stoq.service;
 import com.stoq.dto.LoginDTO;
 import com.stoq.dto.LoginResponseDTO;
 import com.stoq.dto.ResetPasswordDTO;
+import com.stoq.dto.SliceResponseDTO;
 import com.stoq.dto.UserRegistrationDTO;
 import com.stoq.dto.UserResponseDTO;
 import com.stoq.entity.User;
@@ -9,17 +10,16 @@ import com.stoq.exception.EmailAlreadyExistsException;
 import com.stoq.exception.ResourceNotFoundException;
 import com.stoq.enums.VerificationCodeScenario;
 import com.stoq.repository.UserRepository;
+import com.stoq.util.CursorUtil;
 import com.stoq.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
 @Service
 @RequiredArgsConstructor
 public class UserService {
@@ -69,6 +69,7 @@ public class UserService {
     /**
      * 根据邮箱获取用户信息
      */
+    @Transactional(readOnly = true)
     public UserResponseDTO getUserByEmail(String email) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new ResourceNotFoundException(
@@ -78,12 +79,13 @@ public class UserService {
     }
     
     /**
-     * 获取所有用户
+     * 获取所有用户(按邮箱游标分页)
      */
-    public List<UserResponseDTO> getAllUsers() {
-        return userRepository.findAll().stream()
-                .map(this::convertToResponseDTO)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public SliceResponseDTO<UserResponseDTO> getAllUsers(String cursor, Integer limit) {
+        Slice<User> users = userRepository.findByEmailGreaterThanOrderByEmailAsc(
+                CursorUtil.decodeKey(cursor), CursorUtil.pageRequest(limit));
+        return CursorUtil.toResponse(users, this::convertToResponseDTO, User::getEmail);
     }
     
     /**
@@ -1,22 +1,25 @@
 package com.stoq.service;
 
 import com.stoq.entity.VerificationCode;
+import com.stoq.enums.VerificationCodeResult;
 import com.stoq.enums.VerificationCodeScenario;
 import com.stoq.exception.ResourceNotFoundException;
 import com.stoq.repository.VerificationCodeRepository;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.Locale;
 import java.util.Random;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class VerificationCodeService {
     
@@ -25,7 +28,25 @@ public class VerificationCodeService {
     private final RedisVerificationCodeService redisVerificationCodeService;
     private final Random random = new Random();
     private final MessageSource messageSource;
-
+    // 数据库备份的校验在独立事务中提交,调用方回滚时错误次数不会被撤销
+    private final TransactionTemplate attemptTransaction;
+    private final int maxAttempts;
+    
+    public VerificationCodeService(VerificationCodeRepository verificationCodeRepository,
+                                   EmailService emailService,
+                                   RedisVerificationCodeService redisVerificationCodeService,
+                                   MessageSource messageSource,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${stoq.verification.max-attempts:5}") int maxAttempts) {
+        this.verificationCodeRepository = verificationCodeRepository;
+        this.emailService = emailService;
+        this.redisVerificationCodeService = redisVerificationCodeService;
+        this.messageSource = messageSource;
+        this.attemptTransaction = new TransactionTemplate(transactionManager);
+        this.attemptTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxAttempts = maxAttempts;
+    }
+    
     /**
      * 生成并发送验证码(支持场景)
      */
@@ -50,7 +71,7 @@ public class VerificationCodeService {
         }
         
         // 3. 发送验证码邮件
-        emailService.sendVerificationCode(email, code, locale);
+        emailService.sendVerificationCode(email, code, scenarioCode, locale);
         return scenarioCode;
     }
     
@@ -60,32 +81,62 @@ public class VerificationCodeService {
     @Transactional
     public boolean verifyCode(String email, String code, String scenario) {
         String scenarioCode = normalizeScenario(scenario);
-        // 1. 优先从Redis验证
+        // 1. 优先从Redis验证(Redis中有该验证码时不再查数据库)
+        VerificationCodeResult result = VerificationCodeResult.ABSENT;
         try {
-            if (redisVerificationCodeService.verifyCode(email, code, scenarioCode)) {
-                log.info("✅ 验证码已从Redis验证: {} (场景: {})", email, scenarioCode);
-                return true;
-            }
+            result = redisVerificationCodeService.verifyCode(email, code, scenarioCode);
         } catch (Exception e) {
             log.warn("⚠️ Redis验证失败,使用数据库备份: {}", e.getMessage());
         }
+        if (result == VerificationCodeResult.MATCH) {
+            log.info("✅ 验证码已从Redis验证: {} (场景: {})", email, scenarioCode);
+            return true;
+        }
+        if (result == VerificationCodeResult.MISMATCH) {
+            throw new ResourceNotFoundException(messageSource.getMessage("error.verification.invalid", null, LocaleContextHolder.getLocale()));
+        }
         
-        // 2. 备份方案: 从数据库验证
+        // 2. 备份方案: 从数据库验证(错误次数限制与Redis相同)
+        result = attemptTransaction.execute(status -> verifyStoredCode(email, code, scenarioCode));
+        if (result == VerificationCodeResult.MATCH) {
+            log.info("✅ 验证码已从数据库验证并删除: {} (场景: {})", email, scenarioCode);
+            return true;
+        }
+        if (result == VerificationCodeResult.ABSENT && isExpired(email, scenarioCode)) {
+            throw new ResourceNotFoundException(messageSource.getMessage("error.verification.expired", null, LocaleContextHolder.getLocale()));
+        }
+        throw new ResourceNotFoundException(messageSource.getMessage("error.verification.invalid", null, LocaleContextHolder.getLocale()));
+    }
+    
+    /**
+     * 数据库中的验证码: 先以条件UPDATE占用一次校验机会再比较,并发猜测总数也不超过maxAttempts
+     * 正确时删除;错误且次数用完时删除(之后需要重新发送)
+     */
+    private VerificationCodeResult verifyStoredCode(String email, String code, String scenario) {
+        if (verificationCodeRepository.incrementAttempts(email, scenario, maxAttempts, LocalDateTime.now()) == 0) {
+            return VerificationCodeResult.ABSENT;
+        }
         VerificationCode verificationCode = verificationCodeRepository
-                .findByEmailAndCodeAndScenario(email, code, scenarioCode)
-                .orElseThrow(() -> new ResourceNotFoundException(messageSource.getMessage("error.verification.invalid", null, LocaleContextHolder.getLocale())));
-
-        // 检查是否过期
-        if (LocalDateTime.now().isAfter(verificationCode.getExpiresAt())) {
+                .findFirstByEmailAndScenarioOrderByCreatedAtDesc(email, scenario)
+                .orElse(null);
+        if (verificationCode == null) {
+            return VerificationCodeResult.ABSENT;
+        }
+        if (verificationCode.getCode().equals(code)) {
             verificationCodeRepository.delete(verificationCode);
-            throw new ResourceNotFoundException(messageSource.getMessage("error.verification.expired", null, LocaleContextHolder.getLocale()));
+            return VerificationCodeResult.MATCH;
         }
-        
-        // 验证成功后立即删除验证码
-        verificationCodeRepository.delete(verificationCode);
-        log.info("✅ 验证码已从数据库验证并删除: {} (场景: {})", email, scenario);
-        
-        return true;
+        if (verificationCode.getAttempts() >= maxAttempts) {
+            verificationCodeRepository.delete(verificationCode);
+            log.warn("❌ 验证码错误次数已达上限,已删除: {} (场景: {})", email, scenario);
+        }
+        return VerificationCodeResult.MISMATCH;
+    }
+    
+    private boolean isExpired(String email, String scenario) {
+        return verificationCodeRepository.findFirstByEmailAndScenarioOrderByCreatedAtDesc(email, scenario)
+                .map(verificationCode -> LocalDateTime.now().isAfter(verificationCode.getExpiresAt()))
+                .orElse(false);
     }
     
     /**
@@ -113,7 +164,7 @@ public class VerificationCodeService {
         int code = 100000 + random.nextInt(900000);
         return String.valueOf(code);
     }
-
+    
     /**
      * 统一验证码场景大小写并校验合法性
      */
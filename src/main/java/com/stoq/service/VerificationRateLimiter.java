@@ -0,0 +1,190 @@
+package com.stoq.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stoq.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 验证码发送限流
+ * 按邮箱和客户端IP各维护一个令牌桶,两个桶都有令牌时才放行(Redis Lua脚本原子扣减,多实例共享);
+ * Redis不可用时退化为进程内令牌桶,此时限额按实例计算。
+ */
+@Service
+@Slf4j
+public class VerificationRateLimiter {
+    
+    private static final String KEY_PREFIX = "rate_limit:verification:";
+    private static final String DECISIONS_METRIC = "stoq.rate.limit.decisions";
+    private static final RedisScript<List> TOKEN_BUCKET_SCRIPT = tokenBucketScript();
+    
+    private final RedisTemplate<String, String> redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Limit emailLimit;
+    private final Limit ipLimit;
+    private final Cache<String, LocalBucket> localBuckets;
+    private final Counter fallbackCounter;
+    
+    public VerificationRateLimiter(RedisTemplate<String, String> redisTemplate,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${stoq.rate-limit.verification.enabled:true}") boolean enabled,
+                                   @Value("${stoq.rate-limit.verification.email.capacity:3}") int emailCapacity,
+                                   @Value("${stoq.rate-limit.verification.email.refill-period:60s}") Duration emailRefillPeriod,
+                                   @Value("${stoq.rate-limit.verification.ip.capacity:20}") int ipCapacity,
+                                   @Value("${stoq.rate-limit.verification.ip.refill-period:10s}") Duration ipRefillPeriod,
+                                   @Value("${stoq.rate-limit.verification.local-maximum-size:100000}") long localMaximumSize) {
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.emailLimit = new Limit("email", emailCapacity, emailRefillPeriod.toMillis());
+        this.ipLimit = new Limit("ip", ipCapacity, ipRefillPeriod.toMillis());
+        // 桶补满后与新建的桶等价,闲置超过补满时间即可丢弃
+        this.localBuckets = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMillis(Math.max(emailLimit.fullAfterMillis(), ipLimit.fullAfterMillis())))
+                .maximumSize(localMaximumSize)
+                .build();
+        this.fallbackCounter = Counter.builder("stoq.rate.limit.fallbacks")
+                .description("Rate limit checks served by in-process buckets because Redis was unavailable")
+                .register(meterRegistry);
+    }
+    
+    private static RedisScript<List> tokenBucketScript() {
+        DefaultRedisScript<List> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource("redis/token_bucket.lua")));
+        script.setResultType(List.class);
+        return script;
+    }
+    
+    /**
+     * 为一次验证码发送扣减令牌,超出限额时抛出RateLimitExceededException(不扣减任何桶)
+     */
+    public void acquire(String email, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        String emailKey = KEY_PREFIX + "email:" + email.trim().toLowerCase(Locale.ROOT);
+        String ipKey = KEY_PREFIX + "ip:" + clientIp;
+        
+        Decision decision;
+        String backend = "redis";
+        try {
+            decision = acquireInRedis(emailKey, ipKey);
+        } catch (DataAccessException e) {
+            log.warn("⚠️ Redis限流失败,使用进程内限流: {}", e.getMessage());
+            fallbackCounter.increment();
+            backend = "local";
+            decision = acquireLocally(emailKey, ipKey);
+        }
+        
+        String limit = decision.limit == null ? "none" : decision.limit.name;
+        meterRegistry.counter(DECISIONS_METRIC,
+                "result", decision.limit == null ? "allowed" : "throttled",
+                "limit", limit,
+                "backend", backend).increment();
+        if (decision.limit != null) {
+            long seconds = Math.max(1, (decision.waitMillis + 999) / 1000);
+            log.warn("🚫 验证码发送过于频繁: {} / {} (限制: {}, {}秒后重试)", email, clientIp, limit, seconds);
+            throw new RateLimitExceededException(
+                    "Too many verification code requests, please retry in " + seconds + " seconds",
+                    Duration.ofSeconds(seconds));
+        }
+    }
+    
+    private Decision acquireInRedis(String emailKey, String ipKey) {
+        List<?> result = redisTemplate.execute(TOKEN_BUCKET_SCRIPT, Arrays.asList(emailKey, ipKey),
+                String.valueOf(emailLimit.capacity), String.valueOf(emailLimit.refillMillis),
+                String.valueOf(ipLimit.capacity), String.valueOf(ipLimit.refillMillis));
+        if (result == null || result.size() < 2) {
+            throw new IllegalStateException("Unexpected token bucket script result: " + result);
+        }
+        int limited = ((Number) result.get(0)).intValue();
+        long waitMillis = ((Number) result.get(1)).longValue();
+        return new Decision(limited == 1 ? emailLimit : limited == 2 ? ipLimit : null, waitMillis);
+    }
+    
+    /**
+     * 进程内令牌桶,语义与Lua脚本一致: 两个桶都有令牌时才同时扣减
+     */
+    private synchronized Decision acquireLocally(String emailKey, String ipKey) {
+        long now = System.currentTimeMillis();
+        LocalBucket emailBucket = localBuckets.get(emailKey, key -> new LocalBucket(emailLimit, now));
+        LocalBucket ipBucket = localBuckets.get(ipKey, key -> new LocalBucket(ipLimit, now));
+        long emailWait = emailBucket.refill(now);
+        long ipWait = ipBucket.refill(now);
+        if (emailWait > 0 || ipWait > 0) {
+            return emailWait >= ipWait ? new Decision(emailLimit, emailWait) : new Decision(ipLimit, ipWait);
+        }
+        emailBucket.tokens--;
+        ipBucket.tokens--;
+        return new Decision(null, 0);
+    }
+    
+    private static final class Limit {
+        private final String name;
+        private final int capacity;
+        private final long refillMillis; // 补充一个令牌的间隔
+        
+        private Limit(String name, int capacity, long refillMillis) {
+            this.name = name;
+            this.capacity = capacity;
+            this.refillMillis = refillMillis;
+        }
+        
+        private long fullAfterMillis() {
+            return capacity * refillMillis;
+        }
+    }
+    
+    private static final class LocalBucket {
+        private final Limit limit;
+        private long tokens;
+        private long stamp;
+        
+        private LocalBucket(Limit limit, long now) {
+            this.limit = limit;
+            this.tokens = limit.capacity;
+            this.stamp = now;
+        }
+        
+        /**
+         * 按经过的时间补充令牌,返回还需等待的毫秒数(有令牌时为0)
+         */
+        private long refill(long now) {
+            long refill = (now - stamp) / limit.refillMillis;
+            if (refill > 0) {
+                tokens = Math.min(limit.capacity, tokens + refill);
+                stamp += refill * limit.refillMillis;
+            }
+            if (tokens >= limit.capacity) {
+                stamp = now;
+            }
+            return tokens >= 1 ? 0 : limit.refillMillis - (now - stamp);
+        }
+    }
+    
+    private static final class Decision {
+        private final Limit limit; // 触发限流的桶,放行时为null
+        private final long waitMillis;
+        
+        private Decision(Limit limit, long waitMillis) {
+            this.limit = limit;
+            this.waitMillis = waitMillis;
+        }
+    }
+}
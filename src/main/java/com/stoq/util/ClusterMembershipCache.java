@@ -0,0 +1,119 @@
+package com.stoq.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stoq.entity.ClusterMember;
+import com.stoq.repository.ClusterMemberRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * 集群成员角色缓存
+ * 以(clusterId, userEmail)为键缓存成员角色,避免每次权限检查都查询cluster_members表。
+ * 非成员同样缓存(Optional.empty),成员变更时需显式失效;未命中时从主库加载,避免缓存副本上的旧数据。
+ */
+@Component
+@Slf4j
+public class ClusterMembershipCache {
+
+    private static final String CACHE_NAME = "clusterMembership";
+
+    private final ClusterMemberRepository clusterMemberRepository;
+    private final PrimaryReadTemplate primaryReadTemplate;
+    private final Cache<MembershipKey, Optional<String>> cache;
+
+    public ClusterMembershipCache(ClusterMemberRepository clusterMemberRepository,
+                                  PrimaryReadTemplate primaryReadTemplate,
+                                  ObjectProvider<MeterRegistry> meterRegistry,
+                                  @Value("${stoq.permission-cache.ttl:60s}") Duration ttl,
+                                  @Value("${stoq.permission-cache.maximum-size:10000}") long maximumSize) {
+        this.clusterMemberRepository = clusterMemberRepository;
+        this.primaryReadTemplate = primaryReadTemplate;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME));
+        log.info("✅ 集群成员缓存已启用 (TTL: {}, 最大条目: {})", ttl, maximumSize);
+    }
+
+    /**
+     * 获取用户在集群中的角色,非成员返回Optional.empty()
+     */
+    public Optional<String> getRole(Long clusterId, String userEmail) {
+        return cache.get(new MembershipKey(clusterId, userEmail),
+                key -> primaryReadTemplate.execute(() -> clusterMemberRepository
+                        .findByClusterIdAndUserEmail(key.clusterId, key.userEmail)
+                        .map(ClusterMember::getRole)));
+    }
+
+    /**
+     * 使单个成员的缓存失效(事务提交后再次失效,防止并发读取回填旧值)
+     */
+    public void evict(Long clusterId, String userEmail) {
+        MembershipKey key = new MembershipKey(clusterId, userEmail);
+        cache.invalidate(key);
+        afterCommit(() -> cache.invalidate(key));
+    }
+
+    /**
+     * 使整个集群的缓存失效
+     */
+    public void evictCluster(Long clusterId) {
+        Runnable evictAll = () -> cache.asMap().keySet().removeIf(key -> Objects.equals(key.clusterId, clusterId));
+        evictAll.run();
+        afterCommit(evictAll);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * 缓存键
+     */
+    private static final class MembershipKey {
+        private final Long clusterId;
+        private final String userEmail;
+
+        private MembershipKey(Long clusterId, String userEmail) {
+            this.clusterId = clusterId;
+            this.userEmail = userEmail;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MembershipKey)) {
+                return false;
+            }
+            MembershipKey that = (MembershipKey) o;
+            return Objects.equals(clusterId, that.clusterId) && Objects.equals(userEmail, that.userEmail);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(clusterId, userEmail);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.stoq.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * 流式CSV写入器(RFC 4180)
+ * 包含逗号、双引号或换行的字段用双引号包裹,null写为空字段。
+ */
+public class CsvWriter {
+    
+    private final Writer writer;
+    
+    public CsvWriter(Writer writer) {
+        this.writer = writer;
+    }
+    
+    /**
+     * 写入一行
+     */
+    public void writeRow(List<?> fields) throws IOException {
+        for (int i = 0; i < fields.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object field = fields.get(i);
+            if (field != null) {
+                writer.write(escape(field.toString()));
+            }
+        }
+        writer.write("\r\n");
+    }
+    
+    public void flush() throws IOException {
+        writer.flush();
+    }
+    
+    private static String escape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,83 @@
+package com.stoq.util;
+import com.stoq.dto.SliceResponseDTO;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 游标分页工具类
+ * 游标为最后一条记录主键的Base64编码,对客户端不透明
+ */
+public final class CursorUtil {
+    
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+    
+    private CursorUtil() {
+    }
+    
+    /**
+     * 构建分页参数(始终取第一页,位置由游标条件决定)
+     */
+    public static Pageable pageRequest(Integer limit) {
+        int size = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+        return PageRequest.of(0, size);
+    }
+    
+    /**
+     * 解析数字主键游标,为空时从头开始
+     */
+    public static Long decodeId(String cursor) {
+        String key = decodeKey(cursor);
+        if (key.isEmpty()) {
+            return 0L;
+        }
+        try {
+            return Long.valueOf(key);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+    
+    /**
+     * 解析字符串主键游标,为空时从头开始
+     */
+    public static String decodeKey(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return "";
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+    
+    /**
+     * 编码游标
+     */
+    public static String encode(Object key) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.valueOf(key).getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * 将Slice转换为游标分页响应
+     */
+    public static <E, D> SliceResponseDTO<D> toResponse(Slice<E> slice, Function<E, D> mapper, Function<E, ?> keyExtractor) {
+        List<E> content = slice.getContent();
+        SliceResponseDTO<D> response = new SliceResponseDTO<>();
+        response.setItems(content.stream().map(mapper).collect(Collectors.toList()));
+        response.setHasNext(slice.hasNext());
+        if (slice.hasNext() && !content.isEmpty()) {
+            response.setNextCursor(encode(keyExtractor.apply(content.get(content.size() - 1))));
+        }
+        return response;
+    }
+}
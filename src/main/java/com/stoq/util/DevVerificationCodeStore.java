@@ -0,0 +1,56 @@
+package com.stoq.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * 开发测试用的验证码副本(供 /users/get-verification-code 查询)
+ * 以(场景, 邮箱)为键,有效期与Redis中的验证码一致,条目数有上限。
+ * prod profile下不创建该Bean,生产环境不保留验证码副本。
+ */
+@Component
+@Profile("!prod")
+@Slf4j
+public class DevVerificationCodeStore {
+    
+    private static final String CACHE_NAME = "devVerificationCodes";
+    
+    private final Cache<String, String> cache;
+    
+    public DevVerificationCodeStore(ObjectProvider<MeterRegistry> meterRegistry,
+                                    @Value("${stoq.dev-code-store.ttl:5m}") Duration ttl,
+                                    @Value("${stoq.dev-code-store.maximum-size:10000}") long maximumSize) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME));
+        log.info("✅ 开发验证码存储已启用 (TTL: {}, 最大条目: {})", ttl, maximumSize);
+    }
+    
+    public void put(String email, String scenario, String code) {
+        cache.put(key(email, scenario), code);
+    }
+    
+    /**
+     * 获取验证码,不存在或已过期时返回null
+     */
+    public String get(String email, String scenario) {
+        return cache.getIfPresent(key(email, scenario));
+    }
+    
+    private static String key(String email, String scenario) {
+        return scenario.toUpperCase(Locale.ROOT) + ":" + email;
+    }
+}
@@ -1,5 +1,6 @@
 package com.stoq.util;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -7,7 +8,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 
 @Component
@@ -20,11 +23,22 @@ public class JwtUtil {
     @Value("${jwt.expiration:86400000}") // 默认24小时
     private long expiration;
     
+    // 签名密钥和解析器在Bean生命周期内只构建一次(均为线程安全)
+    private SecretKey key;
+    private JwtParser parser;
+    
+    @PostConstruct
+    public void init() {
+        key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build();
+    }
+    
     /**
      * 生成JWT token
      */
     public String generateToken(String email) {
-        SecretKey key = Keys.hmacShaKeyFor(secret.getBytes());
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + expiration);
         
@@ -36,18 +50,19 @@ public class JwtUtil {
                 .compact();
     }
     
+    /**
+     * 验证签名并解析token(只解析一次),无效或过期时抛出JwtException
+     */
+    public Claims parseClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+    
     /**
      * 从token中获取邮箱
      */
     public String getEmailFromToken(String token) {
         try {
-            SecretKey key = Keys.hmacShaKeyFor(secret.getBytes());
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-            return claims.getSubject();
+            return parseClaims(token).getSubject();
         } catch (Exception e) {
             log.error("获取token中的邮箱失败: {}", e.getMessage());
             return null;
@@ -59,11 +74,7 @@ public class JwtUtil {
      */
     public boolean validateToken(String token) {
         try {
-            SecretKey key = Keys.hmacShaKeyFor(secret.getBytes());
-            Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token);
+            parseClaims(token);
             return true;
         } catch (Exception e) {
             log.error("Token验证失败: {}", e.getMessage());
@@ -75,13 +86,16 @@ public class JwtUtil {
      * 刷新Token(生成新的Token)
      */
     public String refreshToken(String token) {
-        // 1. 验证旧token是否有效
-        if (!validateToken(token)) {
+        // 1. 验证旧token并获取邮箱
+        String email;
+        try {
+            email = parseClaims(token).getSubject();
+        } catch (Exception e) {
+            log.error("Token验证失败: {}", e.getMessage());
             throw new RuntimeException("Token无效或已过期,无法刷新");
         }
         
-        // 2. 从旧token中获取邮箱
-        String email = getEmailFromToken(token);
+        // 2. 检查token中是否包含用户信息
         if (email == null) {
             throw new RuntimeException("无法从Token中获取用户信息");
         }
@@ -1,28 +1,44 @@
 package com.stoq.util;
-import com.stoq.entity.Cluster;
-import com.stoq.entity.ClusterMember;
 import com.stoq.exception.ResourceNotFoundException;
-import com.stoq.repository.ClusterMemberRepository;
-import com.stoq.repository.ClusterRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.stereotype.Component;
 
 /**
  * 权限检查工具类
  */
 @Component
-@RequiredArgsConstructor
 public class PermissionUtil {
     
-    private final ClusterRepository clusterRepository;
-    private final ClusterMemberRepository clusterMemberRepository;
+    private static final String DENIALS_METRIC = "stoq.permission.denials";
+    
+    private final ClusterMembershipCache clusterMembershipCache;
+    
+    // 权限拒绝计数,按检查类型打tag
+    private final Counter adminDenials;
+    private final Counter adminOrMemberDenials;
+    private final Counter memberDenials;
+    
+    public PermissionUtil(ClusterMembershipCache clusterMembershipCache, MeterRegistry meterRegistry) {
+        this.clusterMembershipCache = clusterMembershipCache;
+        this.adminDenials = denialCounter(meterRegistry, "cluster_admin");
+        this.adminOrMemberDenials = denialCounter(meterRegistry, "cluster_admin_or_member");
+        this.memberDenials = denialCounter(meterRegistry, "cluster_member");
+    }
+    
+    private static Counter denialCounter(MeterRegistry meterRegistry, String check) {
+        return Counter.builder(DENIALS_METRIC)
+                .description("Permission checks rejected by PermissionUtil")
+                .tag("check", check)
+                .register(meterRegistry);
+    }
     
     /**
      * 检查用户是否是集群的ADMIN
      */
     public boolean isClusterAdmin(Long clusterId, String userEmail) {
-        return clusterMemberRepository.findByClusterIdAndUserEmail(clusterId, userEmail)
-                .map(member -> "ADMIN".equals(member.getRole()))
+        return clusterMembershipCache.getRole(clusterId, userEmail)
+                .map("ADMIN"::equals)
                 .orElse(false);
     }
     
@@ -30,7 +46,7 @@ public class PermissionUtil {
      * 检查用户是否是集群的ADMIN或MEMBER
      */
     public boolean isClusterAdminOrMember(Long clusterId, String userEmail) {
-        return clusterMemberRepository.findByClusterIdAndUserEmail(clusterId, userEmail)
+        return clusterMembershipCache.getRole(clusterId, userEmail)
                 .isPresent();
     }
     
@@ -38,7 +54,7 @@ public class PermissionUtil {
      * 检查用户是否是集群成员
      */
     public boolean isClusterMember(Long clusterId, String userEmail) {
-        return clusterMemberRepository.findByClusterIdAndUserEmail(clusterId, userEmail)
+        return clusterMembershipCache.getRole(clusterId, userEmail)
                 .isPresent();
     }
     
@@ -46,8 +62,7 @@ public class PermissionUtil {
      * 获取用户在集群中的角色
      */
     public String getUserRoleInCluster(Long clusterId, String userEmail) {
-        return clusterMemberRepository.findByClusterIdAndUserEmail(clusterId, userEmail)
-                .map(ClusterMember::getRole)
+        return clusterMembershipCache.getRole(clusterId, userEmail)
                 .orElse(null);
     }
     
@@ -56,6 +71,7 @@ public class PermissionUtil {
      */
     public void verifyClusterAdmin(Long clusterId, String userEmail) {
         if (!isClusterAdmin(clusterId, userEmail)) {
+            adminDenials.increment();
             throw new ResourceNotFoundException("You don't have permission to access this cluster");
         }
     }
@@ -65,6 +81,7 @@ public class PermissionUtil {
      */
     public void verifyClusterAdminOrMember(Long clusterId, String userEmail) {
         if (!isClusterAdminOrMember(clusterId, userEmail)) {
+            adminOrMemberDenials.increment();
             throw new ResourceNotFoundException("You don't have permission to access this cluster");
         }
     }
@@ -74,6 +91,7 @@ public class PermissionUtil {
      */
     public void verifyClusterMember(Long clusterId, String userEmail) {
         if (!isClusterMember(clusterId, userEmail)) {
+            memberDenials.increment();
             throw new ResourceNotFoundException("You are not a member of this cluster");
         }
     }
@@ -0,0 +1,36 @@
+package com.stoq.util;
+
+import com.stoq.config.ReadWriteRoutingDataSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * 主库读取
+ * 缓存加载器的结果(包括"不存在")会被缓存一段时间,不能读取有复制延迟的副本。
+ * 只读事务或没有事务时在新的只读事务中强制走主库;写事务中直接执行,可以读到本事务未提交的数据。
+ * 未启用读写分离时只有一个数据源,效果等同于直接执行。
+ */
+@Component
+public class PrimaryReadTemplate {
+    
+    private final TransactionTemplate primaryRead;
+    
+    public PrimaryReadTemplate(PlatformTransactionManager transactionManager) {
+        this.primaryRead = new TransactionTemplate(transactionManager);
+        this.primaryRead.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.primaryRead.setReadOnly(true);
+    }
+    
+    public <T> T execute(Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return action.get();
+        }
+        return ReadWriteRoutingDataSource.readFromPrimary(() -> primaryRead.execute(status -> action.get()));
+    }
+}
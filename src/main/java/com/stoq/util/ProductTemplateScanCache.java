@@ -0,0 +1,145 @@
+package com.stoq.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stoq.dto.ProductTemplateSummaryDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 扫码结果缓存
+ * 以(clusterId, 条码)为键缓存最近扫描过的模板摘要,未命中的条码同样缓存(Optional.empty)。
+ * 模板创建、更新、删除和导入时按条码失效,分类更新或删除时整个集群失效;
+ * 多实例部署时其它实例的缓存依赖TTL过期。
+ */
+@Component
+@Slf4j
+public class ProductTemplateScanCache {
+    
+    private static final String CACHE_NAME = "productTemplateScan";
+    
+    private final Cache<ScanKey, Optional<ProductTemplateSummaryDTO>> cache;
+    
+    public ProductTemplateScanCache(ObjectProvider<MeterRegistry> meterRegistry,
+                                    @Value("${stoq.scan-cache.ttl:60s}") Duration ttl,
+                                    @Value("${stoq.scan-cache.maximum-size:100000}") long maximumSize) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME));
+        log.info("✅ 扫码缓存已启用 (TTL: {}, 最大条目: {})", ttl, maximumSize);
+    }
+    
+    /**
+     * 批量获取条码对应的模板,未缓存的条码通过loader一次性加载(loader只需返回找到的条码)
+     */
+    public Map<String, Optional<ProductTemplateSummaryDTO>> getAll(Long clusterId, Collection<String> codes,
+                                                                   Function<Set<String>, Map<String, ProductTemplateSummaryDTO>> loader) {
+        Set<ScanKey> keys = codes.stream()
+                .map(code -> new ScanKey(clusterId, code))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<ScanKey, Optional<ProductTemplateSummaryDTO>> cached = cache.getAll(keys, missing -> {
+            Set<String> missingCodes = new HashSet<>();
+            for (ScanKey key : missing) {
+                missingCodes.add(key.code);
+            }
+            Map<String, ProductTemplateSummaryDTO> found = loader.apply(missingCodes);
+            Map<ScanKey, Optional<ProductTemplateSummaryDTO>> loaded = new HashMap<>();
+            for (ScanKey key : missing) {
+                loaded.put(key, Optional.ofNullable(found.get(key.code)));
+            }
+            return loaded;
+        });
+        
+        Map<String, Optional<ProductTemplateSummaryDTO>> result = new HashMap<>();
+        cached.forEach((key, template) -> result.put(key.code, template));
+        return result;
+    }
+    
+    /**
+     * 使集群内若干条码的缓存失效(事务提交后再次失效,防止并发读取回填旧值)
+     */
+    public void evict(Long clusterId, String... codes) {
+        List<ScanKey> keys = Arrays.stream(codes)
+                .filter(Objects::nonNull)
+                .map(code -> new ScanKey(clusterId, code))
+                .collect(Collectors.toList());
+        if (keys.isEmpty()) {
+            return;
+        }
+        cache.invalidateAll(keys);
+        afterCommit(() -> cache.invalidateAll(keys));
+    }
+    
+    /**
+     * 使整个集群的缓存失效
+     */
+    public void evictCluster(Long clusterId) {
+        Runnable evictAll = () -> cache.asMap().keySet().removeIf(key -> Objects.equals(key.clusterId, clusterId));
+        evictAll.run();
+        afterCommit(evictAll);
+    }
+    
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+    
+    /**
+     * 缓存键
+     */
+    private static final class ScanKey {
+        private final Long clusterId;
+        private final String code;
+        
+        private ScanKey(Long clusterId, String code) {
+            this.clusterId = clusterId;
+            this.code = code;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ScanKey)) {
+                return false;
+            }
+            ScanKey that = (ScanKey) o;
+            return Objects.equals(clusterId, that.clusterId) && Objects.equals(code, that.code);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(clusterId, code);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.stoq.util;
+
+import java.util.Collection;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 分段锁: 键按哈希映射到固定数量的锁上,不同键大多落在不同的锁上,可以并行;
+ * 只有相同(或哈希冲突)的键互相等待。锁的数量固定,不随键的数量增长。
+ * 一次锁住多个键时按锁的序号升序加锁,多个线程之间不会死锁。
+ */
+public final class StripedLocks {
+    
+    private final ReentrantLock[] locks;
+    
+    public StripedLocks(int stripes) {
+        // 取不小于stripes的2的幂,用位运算取序号
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+    
+    /**
+     * 锁住所有键对应的锁,返回的Held在close时按相反顺序解锁
+     */
+    public Held lockAll(Collection<?> keys) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (Object key : keys) {
+            indexes.add(indexOf(key));
+        }
+        ReentrantLock[] held = new ReentrantLock[indexes.size()];
+        int count = 0;
+        try {
+            for (int index : indexes) {
+                locks[index].lock();
+                held[count++] = locks[index];
+            }
+        } catch (RuntimeException | Error e) {
+            new Held(held, count).close();
+            throw e;
+        }
+        return new Held(held, count);
+    }
+    
+    private int indexOf(Object key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (locks.length - 1);
+    }
+    
+    /**
+     * 已持有的一组锁
+     */
+    public static final class Held implements AutoCloseable {
+        private final ReentrantLock[] locks;
+        private final int count;
+        
+        private Held(ReentrantLock[] locks, int count) {
+            this.locks = locks;
+            this.count = count;
+        }
+        
+        @Override
+        public void close() {
+            for (int i = count - 1; i >= 0; i--) {
+                locks[i].unlock();
+            }
+        }
+    }
+}
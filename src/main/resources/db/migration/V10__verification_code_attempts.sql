@@ -0,0 +1,3 @@
+-- 数据库备份的验证码同样限制错误次数(与Redis脚本中的attempts一致),达到上限后删除
+
+ALTER TABLE verification_codes ADD COLUMN attempts INT NOT NULL DEFAULT 0;
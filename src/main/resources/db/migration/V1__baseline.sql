@@ -0,0 +1,155 @@
+-- 基线: 引入Flyway之前由Hibernate(ddl-auto=update)生成的表结构,
+-- 加上 db/upgrade/001、002 的变更和商品模板全文索引。
+-- 已有数据库不会执行本脚本(baseline-on-migrate,基线版本为1),
+-- 但需先执行 db/upgrade 下的升级脚本,使表结构与本基线一致。
+-- 约束名与Hibernate生成的保持一致,便于后续迁移在新旧数据库上统一引用。
+
+CREATE TABLE clusters (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    address VARCHAR(500) NOT NULL,
+    city VARCHAR(100) NOT NULL,
+    country_id BIGINT NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    employee_count INTEGER NOT NULL,
+    field VARCHAR(100) NOT NULL,
+    logo VARCHAR(500),
+    name VARCHAR(200) NOT NULL,
+    owner_email VARCHAR(100) NOT NULL,
+    registration_number VARCHAR(100),
+    type VARCHAR(20) NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE cluster_members (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    cluster_id BIGINT NOT NULL,
+    joined_at DATETIME(6) NOT NULL,
+    role VARCHAR(20) NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    user_email VARCHAR(100) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT UKbijgwn79rd264hs5amvctqmx7 UNIQUE (cluster_id, user_email),
+    CONSTRAINT FKg535cbj3knq6sq90k3fp1erp7 FOREIGN KEY (cluster_id) REFERENCES clusters (id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE product_categories (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    cluster_id BIGINT NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    creator_email VARCHAR(100) NOT NULL,
+    description VARCHAR(1000),
+    image VARCHAR(500),
+    name VARCHAR(200) NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT FKdk00eivsbk6f0rmr79ybxmv73 FOREIGN KEY (cluster_id) REFERENCES clusters (id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE product_templates (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    bar_code VARCHAR(100),
+    category_id BIGINT NOT NULL,
+    cluster_id BIGINT NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    creator_email VARCHAR(100) NOT NULL,
+    currency VARCHAR(20) NOT NULL,
+    description VARCHAR(1000),
+    name VARCHAR(200) NOT NULL,
+    price DECIMAL(10,2) NOT NULL,
+    qr_code VARCHAR(100),
+    supplier VARCHAR(200) NOT NULL,
+    supplier_country VARCHAR(100) NOT NULL,
+    unit VARCHAR(100) NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_product_templates_cluster_bar_code UNIQUE (cluster_id, bar_code),
+    CONSTRAINT uk_product_templates_cluster_qr_code UNIQUE (cluster_id, qr_code),
+    CONSTRAINT FK4mt5ott75d92f88sny6u6cccg FOREIGN KEY (category_id) REFERENCES product_categories (id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- 名称和供应商全文索引(ngram分词,支持中文和前缀匹配)
+ALTER TABLE product_templates ADD FULLTEXT INDEX ft_product_templates_name_supplier (name, supplier) WITH PARSER ngram;
+
+CREATE TABLE product_template_images (
+    template_id BIGINT NOT NULL,
+    url VARCHAR(1000) NOT NULL,
+    position INTEGER NOT NULL,
+    PRIMARY KEY (template_id, position),
+    CONSTRAINT FKea3nep33mvomfl90ttdjtvp1w FOREIGN KEY (template_id) REFERENCES product_templates (id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE stoqs (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    administrator VARCHAR(100) NOT NULL,
+    cluster_id BIGINT NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    creator_email VARCHAR(100) NOT NULL,
+    description VARCHAR(1000),
+    name VARCHAR(200) NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT FK1n5dyeh4o1uqm7avxlb58gii6 FOREIGN KEY (cluster_id) REFERENCES clusters (id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE teams (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    cluster_id BIGINT NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    creator_email VARCHAR(100) NOT NULL,
+    description VARCHAR(1000),
+    logo VARCHAR(500),
+    name VARCHAR(200) NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT FKrop5wkfgn7wqfg1xfusrkvijr FOREIGN KEY (cluster_id) REFERENCES clusters (id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE team_members (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    avatar VARCHAR(500),
+    city VARCHAR(100) NOT NULL,
+    country_id BIGINT NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    creator_email VARCHAR(100) NOT NULL,
+    description VARCHAR(1000),
+    email VARCHAR(100) NOT NULL,
+    linked_user_email VARCHAR(100),
+    name VARCHAR(100) NOT NULL,
+    phone VARCHAR(20) NOT NULL,
+    role VARCHAR(20) NOT NULL,
+    stoq VARCHAR(100) NOT NULL,
+    surname VARCHAR(100) NOT NULL,
+    team_id BIGINT NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT UK4kbtpfyuo4cqqyjbj3uoshc8y UNIQUE (team_id, email),
+    CONSTRAINT UK_t30q0g06yn0qbgekrpvmd9fpf UNIQUE (email),
+    CONSTRAINT FKtgca08el3ofisywcf11f0f76t FOREIGN KEY (team_id) REFERENCES teams (id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE users (
+    email VARCHAR(100) NOT NULL,
+    age INTEGER NOT NULL,
+    avatar VARCHAR(500),
+    city VARCHAR(100) NOT NULL,
+    country VARCHAR(100) NOT NULL,
+    created_at DATETIME(6),
+    name VARCHAR(50) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    phone VARCHAR(20) NOT NULL,
+    sur_name VARCHAR(50) NOT NULL,
+    updated_at DATETIME(6),
+    PRIMARY KEY (email)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE verification_codes (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    code VARCHAR(6) NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    email VARCHAR(100) NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    scenario VARCHAR(20) NOT NULL,
+    verified BIT NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,58 @@
+-- 与仓库查询方法对应的复合索引
+-- 游标分页查询(xxxAndIdGreaterThanOrderByIdAsc)使用(过滤列, id),范围扫描直接按id有序返回
+-- 由主键(findById、findByIdAndXxx)或已有唯一约束覆盖的查询不再单独建索引
+
+-- ClusterRepository: findByOwnerEmail、findByOwnerEmailAndIdGreaterThanOrderByIdAsc
+CREATE INDEX idx_clusters_owner_email_id ON clusters (owner_email, id);
+-- ClusterRepository: findByName
+CREATE INDEX idx_clusters_name ON clusters (name);
+-- ClusterRepository.findByType不建索引: type只有PERSONAL/PROFESSIONAL两种取值
+
+-- ClusterMemberRepository: findByClusterId、findByClusterIdAndIdGreaterThanOrderByIdAsc、deleteByClusterId
+-- (findByClusterIdAndUserEmail由唯一约束(cluster_id, user_email)覆盖)
+CREATE INDEX idx_cluster_members_cluster_id_id ON cluster_members (cluster_id, id);
+-- ClusterMemberRepository: findByClusterIdAndRole
+CREATE INDEX idx_cluster_members_cluster_id_role ON cluster_members (cluster_id, role);
+-- ClusterMemberRepository: findByUserEmail
+CREATE INDEX idx_cluster_members_user_email ON cluster_members (user_email);
+
+-- ProductCategoryRepository: findByClusterId、findByClusterIdAndIdGreaterThanOrderByIdAsc
+CREATE INDEX idx_product_categories_cluster_id_id ON product_categories (cluster_id, id);
+-- ProductCategoryRepository: findByClusterIdAndName
+CREATE INDEX idx_product_categories_cluster_id_name ON product_categories (cluster_id, name);
+-- ProductCategoryRepository: findByCreatorEmail、findByCreatorEmailAndIdGreaterThanOrderByIdAsc
+CREATE INDEX idx_product_categories_creator_email_id ON product_categories (creator_email, id);
+
+-- ProductTemplateRepository: findByCategoryId、findByCategoryIdAndIdGreaterThanOrderByIdAsc
+CREATE INDEX idx_product_templates_category_id_id ON product_templates (category_id, id);
+-- ProductTemplateRepository: findByCategoryIdAndName、findExistingNames
+CREATE INDEX idx_product_templates_category_id_name ON product_templates (category_id, name);
+-- ProductTemplateRepository: findByCreatorEmail、findByCreatorEmailAndIdGreaterThanOrderByIdAsc
+CREATE INDEX idx_product_templates_creator_email_id ON product_templates (creator_email, id);
+
+-- StoqRepository: findByClusterId、findByClusterIdAndIdGreaterThanOrderByIdAsc
+CREATE INDEX idx_stoqs_cluster_id_id ON stoqs (cluster_id, id);
+-- StoqRepository: findByCreatorEmail、findByCreatorEmailAndIdGreaterThanOrderByIdAsc
+CREATE INDEX idx_stoqs_creator_email_id ON stoqs (creator_email, id);
+-- StoqRepository: findByAdministrator
+CREATE INDEX idx_stoqs_administrator ON stoqs (administrator);
+
+-- TeamRepository: findByClusterId、findByClusterIdAndIdGreaterThanOrderByIdAsc
+CREATE INDEX idx_teams_cluster_id_id ON teams (cluster_id, id);
+-- TeamRepository: findByCreatorEmail、findByCreatorEmailAndIdGreaterThanOrderByIdAsc
+CREATE INDEX idx_teams_creator_email_id ON teams (creator_email, id);
+
+-- TeamMemberRepository: findByTeamId、findByTeamIdAndIdGreaterThanOrderByIdAsc
+-- (findByTeamIdAndEmail、findByEmail由唯一约束覆盖)
+CREATE INDEX idx_team_members_team_id_id ON team_members (team_id, id);
+-- TeamMemberRepository: findByCreatorEmail、findByCreatorEmailAndIdGreaterThanOrderByIdAsc
+CREATE INDEX idx_team_members_creator_email_id ON team_members (creator_email, id);
+-- TeamMemberRepository: findByLinkedUserEmail
+CREATE INDEX idx_team_members_linked_user_email ON team_members (linked_user_email);
+
+-- UserRepository: findByPhone
+CREATE INDEX idx_users_phone ON users (phone);
+
+-- VerificationCodeRepository: findFirstByEmailAndScenarioOrderByCreatedAtDesc、findByEmailAndCodeAndScenario、
+-- deleteByEmail、deleteByEmailAndScenario
+CREATE INDEX idx_verification_codes_email_scenario_created_at ON verification_codes (email, scenario, created_at);
@@ -0,0 +1,24 @@
+-- 邮件发件箱: 验证码邮件与验证码在同一事务中写入,由EmailOutboxRelay批量发送
+
+CREATE TABLE email_outbox (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    recipient VARCHAR(100) NOT NULL,
+    sender VARCHAR(100),
+    subject VARCHAR(200) NOT NULL,
+    body VARCHAR(4000) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    attempts INT NOT NULL,
+    next_attempt_at DATETIME(6) NOT NULL,
+    lease_token VARCHAR(36),
+    last_error VARCHAR(500),
+    created_at DATETIME(6) NOT NULL,
+    sent_at DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- EmailOutboxRepository: findDueIds、claim、countByStatus
+CREATE INDEX idx_email_outbox_status_next_attempt_at ON email_outbox (status, next_attempt_at);
+-- EmailOutboxRepository: findByLeaseToken
+CREATE INDEX idx_email_outbox_lease_token ON email_outbox (lease_token);
+-- EmailOutboxRepository: deleteSentBefore
+CREATE INDEX idx_email_outbox_status_sent_at ON email_outbox (status, sent_at);
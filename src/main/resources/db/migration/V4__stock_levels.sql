@@ -0,0 +1,17 @@
+-- 仓库库存: 每个(仓库, 商品模板)一行,数量由条件UPDATE原子增减
+
+CREATE TABLE stock_levels (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    stoq_id BIGINT NOT NULL,
+    product_template_id BIGINT NOT NULL,
+    quantity BIGINT NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    -- StockLevelRepository: adjustQuantity、insertOrAdd(ON DUPLICATE KEY)、findResponsesByStoqId、deleteByStoqId
+    CONSTRAINT uk_stock_levels_stoq_product_template UNIQUE (stoq_id, product_template_id),
+    CONSTRAINT fk_stock_levels_stoq FOREIGN KEY (stoq_id) REFERENCES stoqs (id),
+    CONSTRAINT fk_stock_levels_product_template FOREIGN KEY (product_template_id) REFERENCES product_templates (id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- StockLevelRepository: deleteByProductTemplateId(同时作为外键索引)
+CREATE INDEX idx_stock_levels_product_template_id ON stock_levels (product_template_id);
@@ -0,0 +1,47 @@
+-- 库存流水(只追加)与定期压缩的库存快照
+
+CREATE TABLE stock_movements (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    stoq_id BIGINT NOT NULL,
+    product_template_id BIGINT NOT NULL,
+    type VARCHAR(20) NOT NULL,
+    delta BIGINT NOT NULL,
+    reference VARCHAR(100),
+    creator_email VARCHAR(100),
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+    -- 不设外键: 流水是审计记录,删除仓库或模板后保留,也避免每次插入检查父表
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- StockMovementRepository: findResponsesByStoqId(按ID倒序的游标分页)
+CREATE INDEX idx_stock_movements_stoq_id_id ON stock_movements (stoq_id, id);
+-- StockMovementRepository: sumDeltas 和 StockSnapshotService 的压缩语句(覆盖索引,不回表)
+CREATE INDEX idx_stock_movements_stoq_created_at ON stock_movements (stoq_id, created_at, product_template_id, delta);
+
+CREATE TABLE stock_snapshots (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    snapshot_at DATETIME(6) NOT NULL,
+    stoq_id BIGINT NOT NULL,
+    product_template_id BIGINT NOT NULL,
+    quantity BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    -- StockSnapshotRepository: findLatestSnapshotAt、findQuantities
+    CONSTRAINT uk_stock_snapshots_at_stoq_product_template UNIQUE (stoq_id, snapshot_at, product_template_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE stock_snapshot_runs (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    snapshot_at DATETIME(6) NOT NULL,
+    row_count BIGINT,
+    started_at DATETIME(6) NOT NULL,
+    completed_at DATETIME(6),
+    PRIMARY KEY (id),
+    -- StockSnapshotService: 多实例领取同一快照时刻
+    CONSTRAINT uk_stock_snapshot_runs_snapshot_at UNIQUE (snapshot_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- 已有库存记为期初流水,流水合计与stock_levels一致
+INSERT INTO stock_movements (stoq_id, product_template_id, type, delta, creator_email, created_at)
+SELECT stoq_id, product_template_id, 'OPENING', quantity, NULL, updated_at
+FROM stock_levels
+WHERE quantity <> 0;
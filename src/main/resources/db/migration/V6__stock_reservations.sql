@@ -0,0 +1,31 @@
+-- 库存预留: stock_levels.reserved 为已预留的数量,可用数量为 quantity - reserved
+
+ALTER TABLE stock_levels ADD COLUMN reserved BIGINT NOT NULL DEFAULT 0;
+
+CREATE TABLE stock_reservations (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    stoq_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    reference VARCHAR(100),
+    creator_email VARCHAR(100) NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_stock_reservations_stoq FOREIGN KEY (stoq_id) REFERENCES stoqs (id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- StockReservationRepository: findExpiredIds
+CREATE INDEX idx_stock_reservations_status_expires_at ON stock_reservations (status, expires_at);
+-- StockReservationRepository: deleteByStoqId、deleteItemsByStoqId(同时作为外键索引)
+CREATE INDEX idx_stock_reservations_stoq_id ON stock_reservations (stoq_id);
+
+-- 预留的商品(不设商品模板外键: 模板删除后确认时跳过已不存在的库存行)
+CREATE TABLE stock_reservation_items (
+    reservation_id BIGINT NOT NULL,
+    product_template_id BIGINT NOT NULL,
+    quantity BIGINT NOT NULL,
+    -- 同一预留中的商品已合并,按预留读取商品时走主键前缀
+    PRIMARY KEY (reservation_id, product_template_id),
+    CONSTRAINT fk_stock_reservation_items_reservation FOREIGN KEY (reservation_id) REFERENCES stock_reservations (id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,21 @@
+-- 低库存提醒: 阈值和提醒状态保存在库存行上,触发记录按仓库合并后发送摘要邮件
+
+ALTER TABLE stock_levels ADD COLUMN low_stock_threshold BIGINT;
+ALTER TABLE stock_levels ADD COLUMN low_stock_alerted_at DATETIME(6);
+
+CREATE TABLE low_stock_alerts (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    stoq_id BIGINT NOT NULL,
+    product_template_id BIGINT NOT NULL,
+    quantity BIGINT NOT NULL,
+    threshold BIGINT NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    notified_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_low_stock_alerts_stoq FOREIGN KEY (stoq_id) REFERENCES stoqs (id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- LowStockAlertRepository: findStoqIdsDue(notified_at IS NULL 分组取最早时间)、findByStoqIdAndNotifiedAtIsNullOrderById、deleteNotifiedBefore
+CREATE INDEX idx_low_stock_alerts_notified_stoq_created ON low_stock_alerts (notified_at, stoq_id, created_at);
+-- LowStockAlertRepository: deleteByStoqId(同时作为外键索引)
+CREATE INDEX idx_low_stock_alerts_stoq_id ON low_stock_alerts (stoq_id);
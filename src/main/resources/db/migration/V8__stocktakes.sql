@@ -0,0 +1,45 @@
+-- 盘点: 扫码数量按商品合计在 stocktake_counts,差异 = 盘点数量 - stock_levels.quantity
+
+CREATE TABLE stocktake_sessions (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    stoq_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    reference VARCHAR(100),
+    full_count BOOLEAN NOT NULL,
+    counted_scans BIGINT NOT NULL DEFAULT 0,
+    unknown_scans BIGINT NOT NULL DEFAULT 0,
+    creator_email VARCHAR(100) NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    completed_at DATETIME(6),
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_stocktake_sessions_stoq FOREIGN KEY (stoq_id) REFERENCES stoqs (id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- StocktakeSessionRepository: deleteByStoqId、deleteCountsByStoqId(同时作为外键索引)
+CREATE INDEX idx_stocktake_sessions_stoq_id ON stocktake_sessions (stoq_id);
+
+-- 不设商品模板外键: 差异查询连接product_templates,模板删除后其计数不再参与比较
+CREATE TABLE stocktake_counts (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    session_id BIGINT NOT NULL,
+    product_template_id BIGINT NOT NULL,
+    counted BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    -- 上传时 ON DUPLICATE KEY UPDATE 累加;差异查询按盘点读取计数、循环盘点按(盘点, 商品)连接
+    CONSTRAINT uk_stocktake_counts_session_product_template UNIQUE (session_id, product_template_id),
+    CONSTRAINT fk_stocktake_counts_session FOREIGN KEY (session_id) REFERENCES stocktake_sessions (id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE stocktake_uploads (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    session_id BIGINT NOT NULL,
+    upload_id VARCHAR(100) NOT NULL,
+    counted_scans BIGINT NOT NULL,
+    creator_email VARCHAR(100) NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    -- StocktakeUploadRepository: existsBySessionIdAndUploadId;INSERT IGNORE 保证同一批次只计入一次
+    CONSTRAINT uk_stocktake_uploads_session_upload UNIQUE (session_id, upload_id),
+    CONSTRAINT fk_stocktake_uploads_session FOREIGN KEY (session_id) REFERENCES stocktake_sessions (id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
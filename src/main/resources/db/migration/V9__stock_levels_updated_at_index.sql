@@ -0,0 +1,4 @@
+-- 快照压缩按更新时间查找有库存变动的仓库,避免全表扫描stock_levels
+
+-- StockLevelRepository: findStoqIdsUpdatedAfter(范围扫描updated_at,覆盖stoq_id)
+CREATE INDEX idx_stock_levels_updated_at_stoq_id ON stock_levels (updated_at, stoq_id);
@@ -0,0 +1,49 @@
+-- 令牌桶限流: 多个桶同时有令牌时各扣一个,否则都不扣
+-- KEYS[i]: 桶的key; ARGV[2i-1]: 桶容量; ARGV[2i]: 补充一个令牌的间隔(毫秒)
+-- 返回 {被限流的桶序号(0表示放行), 需要等待的毫秒数}
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local tokens = {}
+local stamps = {}
+local limited = 0
+local wait = 0
+
+for i, key in ipairs(KEYS) do
+    local capacity = tonumber(ARGV[2 * i - 1])
+    local interval = tonumber(ARGV[2 * i])
+    local bucket = redis.call('HMGET', key, 'tokens', 'ts')
+    local n = tonumber(bucket[1])
+    local ts = tonumber(bucket[2])
+    if n == nil or ts == nil then
+        n = capacity
+        ts = now
+    end
+    local refill = math.floor((now - ts) / interval)
+    if refill > 0 then
+        n = math.min(capacity, n + refill)
+        ts = ts + refill * interval
+    end
+    if n >= capacity then
+        ts = now
+    end
+    if n < 1 then
+        local remaining = interval - (now - ts)
+        if remaining > wait then
+            wait = remaining
+            limited = i
+        end
+    end
+    tokens[i] = n
+    stamps[i] = ts
+end
+
+if limited == 0 then
+    for i, key in ipairs(KEYS) do
+        redis.call('HSET', key, 'tokens', tokens[i] - 1, 'ts', stamps[i])
+        -- 桶补满所需的时间后自动删除
+        redis.call('PEXPIRE', key, tonumber(ARGV[2 * i - 1]) * tonumber(ARGV[2 * i]))
+    end
+end
+
+return {limited, wait}
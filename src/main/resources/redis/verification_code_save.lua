@@ -0,0 +1,6 @@
+-- 保存验证码: 覆盖旧验证码并清零错误次数
+-- KEYS[1]: 验证码key; ARGV[1]: 验证码; ARGV[2]: 有效期(毫秒)
+redis.call('DEL', KEYS[1])
+redis.call('HSET', KEYS[1], 'code', ARGV[1], 'attempts', 0)
+redis.call('PEXPIRE', KEYS[1], tonumber(ARGV[2]))
+return 1
@@ -0,0 +1,16 @@
+-- 校验验证码: 正确时删除;错误时累加错误次数,达到上限后删除(之后需要重新发送)
+-- KEYS[1]: 验证码key; ARGV[1]: 用户输入的验证码; ARGV[2]: 最大错误次数
+-- 返回 1: 正确; 2: 错误; 0: 不存在或已过期
+local code = redis.call('HGET', KEYS[1], 'code')
+if not code then
+    return 0
+end
+if code == ARGV[1] then
+    redis.call('DEL', KEYS[1])
+    return 1
+end
+local attempts = redis.call('HINCRBY', KEYS[1], 'attempts', 1)
+if attempts >= tonumber(ARGV[2]) then
+    redis.call('DEL', KEYS[1])
+end
+return 2
@@ -0,0 +1,143 @@
+package com.stoq.service;
+
+import com.stoq.util.PermissionUtil;
+import com.stoq.util.PrimaryReadTemplate;
+import com.stoq.util.ProductTemplateScanCache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * "我的"列表(getMy*)的查询数不随行数增长: 1行和多行时执行的SQL语句数相同
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({StoqService.class, TeamService.class, ProductCategoryService.class,
+        ProductTemplateService.class, TeamMemberService.class, PrimaryReadTemplate.class,
+        StockMovementJournal.class})
+class MyResourcesQueryCountTest {
+    
+    private static final String ONE = "one@stoq.com";
+    private static final String MANY = "many@stoq.com";
+    private static final int ROWS = 25;
+    
+    // getMy*不检查权限、不读扫码缓存
+    @MockBean
+    private PermissionUtil permissionUtil;
+    
+    @MockBean
+    private ProductTemplateScanCache scanCache;
+    
+    @Autowired
+    private StoqService stoqService;
+    
+    @Autowired
+    private TeamService teamService;
+    
+    @Autowired
+    private ProductCategoryService productCategoryService;
+    
+    @Autowired
+    private ProductTemplateService productTemplateService;
+    
+    @Autowired
+    private TeamMemberService teamMemberService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private EntityManager entityManager;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @BeforeEach
+    void seed() {
+        // 每个创建者的行分布在不同集群、分类和团队中,逐行解析父表名称时查询数会随行数增长
+        long id = 1;
+        for (String email : new String[]{ONE, MANY}) {
+            int rows = ONE.equals(email) ? 1 : ROWS;
+            for (int i = 0; i < rows; i++, id++) {
+                jdbcTemplate.update("INSERT INTO clusters (id, address, city, country_id, created_at, employee_count, "
+                        + "field, name, owner_email, type, updated_at) "
+                        + "VALUES (?, 'Road', 'City', 1, NOW(), 1, 'Retail', ?, ?, 'COMPANY', NOW())",
+                        id, "Cluster " + id, email);
+                jdbcTemplate.update("INSERT INTO stoqs (id, administrator, cluster_id, created_at, creator_email, name, updated_at) "
+                        + "VALUES (?, ?, ?, NOW(), ?, ?, NOW())", id, email, id, email, "Stoq " + id);
+                jdbcTemplate.update("INSERT INTO teams (id, cluster_id, created_at, creator_email, name, updated_at) "
+                        + "VALUES (?, ?, NOW(), ?, ?, NOW())", id, id, email, "Team " + id);
+                jdbcTemplate.update("INSERT INTO team_members (id, city, country_id, created_at, creator_email, email, name, "
+                        + "phone, role, stoq, surname, team_id, updated_at) "
+                        + "VALUES (?, 'City', 1, NOW(), ?, ?, 'Name', '123', 'MEMBER', 'Stoq', 'Surname', ?, NOW())",
+                        id, email, "member" + id + "@stoq.com", id);
+                jdbcTemplate.update("INSERT INTO product_categories (id, cluster_id, created_at, creator_email, name, updated_at) "
+                        + "VALUES (?, ?, NOW(), ?, ?, NOW())", id, id, email, "Category " + id);
+                jdbcTemplate.update("INSERT INTO product_templates (id, category_id, cluster_id, created_at, creator_email, "
+                        + "currency, name, price, supplier, supplier_country, unit, updated_at) "
+                        + "VALUES (?, ?, ?, NOW(), ?, 'CNY', ?, 9.99, 'Supplier', 'CN', 'box', NOW())",
+                        id, id, id, email, "Template " + id);
+            }
+        }
+    }
+    
+    @Test
+    void getMyStoqs() {
+        assertConstantQueries(email -> () -> stoqService.getMyStoqs(email, null, ROWS).getItems().size());
+    }
+    
+    @Test
+    void getMyTeams() {
+        assertConstantQueries(email -> () -> teamService.getMyTeams(email, null, ROWS).getItems().size());
+    }
+    
+    @Test
+    void getMyProductCategories() {
+        assertConstantQueries(email -> () -> productCategoryService.getMyProductCategories(email, null, ROWS).getItems().size());
+    }
+    
+    @Test
+    void getMyProductTemplates() {
+        assertConstantQueries(email -> () -> productTemplateService.getMyProductTemplates(email, null, ROWS).getItems().size());
+    }
+    
+    @Test
+    void getMyTeamMembers() {
+        assertConstantQueries(email -> () -> teamMemberService.getMyTeamMembers(email, null, ROWS).getItems().size());
+    }
+    
+    private void assertConstantQueries(Function<String, Supplier<Integer>> listing) {
+        long oneQueries = countQueries(listing.apply(ONE), 1);
+        long manyQueries = countQueries(listing.apply(MANY), ROWS);
+        assertThat(oneQueries).isPositive();
+        assertThat(manyQueries).isEqualTo(oneQueries);
+    }
+    
+    /**
+     * 清空一级缓存后执行一次列表查询,返回执行的SQL语句数
+     */
+    private long countQueries(Supplier<Integer> listing, int expectedRows) {
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        assertThat(listing.get()).isEqualTo(expectedRows);
+        return statistics.getPrepareStatementCount();
+    }
+}